@@ -0,0 +1,159 @@
+package edu.stanford.slac.core_work_management.benchmark;
+
+import edu.stanford.slac.core_work_management.model.CustomField;
+import edu.stanford.slac.core_work_management.model.EmbeddableLocation;
+import edu.stanford.slac.core_work_management.model.EmbeddableShopGroup;
+import edu.stanford.slac.core_work_management.model.EmbeddableWorkType;
+import edu.stanford.slac.core_work_management.model.WATypeCustomField;
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.value.StringValue;
+import edu.stanford.slac.core_work_management.model.value.ValueType;
+import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import edu.stanford.slac.core_work_management.service.ScriptService;
+import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidation;
+import edu.stanford.slac.core_work_management.service.workflow.BaseWorkflow;
+import edu.stanford.slac.core_work_management.service.workflow.NewWorkValidation;
+import edu.stanford.slac.core_work_management.service.workflow.ReportWorkflow;
+import edu.stanford.slac.core_work_management.service.workflow.RequestWorkflow;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowWorkUpdate;
+import groovy.lang.GroovyClassLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * Measure the dispatch of the work type validators for a compilation mode.
+ * <p>
+ * The validators are compiled as the {@link ScriptService} does, without the spring context, and the dependencies
+ * used by the measured paths are replaced with stubs: the work repository return no children so the workflow
+ * update only evaluates the current state.
+ * <p>
+ * The TEC validators are excluded from the static mode: they don't pass the static type checking because their
+ * lists of validation results are untyped literals, mixing the results of the custom fields and of the strings,
+ * passed where an {@code ArrayList<ValidationResult<String>>} is expected. So only the dynamic mode is run by
+ * default; a validator typed for the static compilation is compared in both modes passing
+ * {@code -p compilationMode=Dynamic,Static} to the benchmark jar.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+public class ValidatorDispatchBenchmark {
+    @Param({"TECHardwareReportValidation", "TECHardwareRequestValidation"})
+    private String validator;
+    @Param({"Dynamic"})
+    private String compilationMode;
+    private GroovyClassLoader classLoader;
+    private WorkTypeValidation validation;
+    private NewWorkValidation newWorkValidation;
+    private WorkflowWorkUpdate workflowWorkUpdate;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        classLoader = new GroovyClassLoader(
+                getClass().getClassLoader(),
+                ScriptService.getCompilerConfiguration(ScriptService.CompilationMode.valueOf(compilationMode))
+        );
+        String scriptName = "validation/%s.groovy".formatted(validator);
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(scriptName)) {
+            if (is == null) throw new IllegalStateException("Script %s not found".formatted(scriptName));
+            Class<?> validationClass = classLoader.parseClass(new String(is.readAllBytes(), StandardCharsets.UTF_8), scriptName);
+            validation = (WorkTypeValidation) newInstance(validationClass);
+        }
+
+        Work work = createWork();
+        newWorkValidation = NewWorkValidation.builder().work(work).build();
+        workflowWorkUpdate = WorkflowWorkUpdate.builder()
+                .work(work)
+                .workflow(createWorkflow())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        classLoader.clearCache();
+        classLoader.close();
+    }
+
+    @Benchmark
+    public void updateWorkflow() {
+        validation.updateWorkflow(workflowWorkUpdate);
+    }
+
+    @Benchmark
+    public void checkValid() {
+        validation.checkValid(newWorkValidation);
+    }
+
+    /**
+     * Create the validator passing a stub for the dependencies used by the measured paths
+     */
+    private Object newInstance(Class<?> validationClass) throws Exception {
+        Constructor<?> constructor = validationClass.getDeclaredConstructors()[0];
+        Object[] args = new Object[constructor.getParameterCount()];
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        for (int idx = 0; idx < parameterTypes.length; idx++) {
+            if (parameterTypes[idx] == Clock.class) {
+                args[idx] = Clock.systemUTC();
+            } else if (parameterTypes[idx] == WorkRepository.class) {
+                args[idx] = Proxy.newProxyInstance(
+                        WorkRepository.class.getClassLoader(),
+                        new Class<?>[]{WorkRepository.class},
+                        (proxy, method, methodArgs) -> method.getReturnType() == List.class ? List.of() : null
+                );
+            }
+        }
+        return constructor.newInstance(args);
+    }
+
+    private BaseWorkflow createWorkflow() {
+        if (validator.contains("Report")) {
+            ReportWorkflow workflow = new ReportWorkflow();
+            workflow.init();
+            return workflow;
+        }
+        return new RequestWorkflow();
+    }
+
+    /**
+     * Create a work that pass the validation of all the validators
+     */
+    private Work createWork() {
+        return Work.builder()
+                .id("work-id")
+                .domainId("domain-id")
+                .title("title")
+                .description("description")
+                .location(EmbeddableLocation.builder().id("location-id").name("location").build())
+                .shopGroup(EmbeddableShopGroup.builder().id("shop-group-id").name("shop group").build())
+                .workType(
+                        EmbeddableWorkType.builder()
+                                .id("work-type-id")
+                                .title("work type")
+                                .customFields(
+                                        List.of(
+                                                WATypeCustomField.builder().id("project-id").name("project").valueType(ValueType.String).build(),
+                                                WATypeCustomField.builder().id("urgency-id").name("urgency").valueType(ValueType.String).build()
+                                        )
+                                )
+                                .build()
+                )
+                .customFields(
+                        List.of(
+                                CustomField.builder().id("project-id").value(StringValue.builder().value("project").build()).build(),
+                                CustomField.builder().id("urgency-id").value(StringValue.builder().value("high").build()).build()
+                        )
+                )
+                .build();
+    }
+}
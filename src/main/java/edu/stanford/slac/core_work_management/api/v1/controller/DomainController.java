@@ -6,6 +6,7 @@ import edu.stanford.slac.core_work_management.api.v1.dto.*;
 import edu.stanford.slac.core_work_management.service.DomainService;
 import edu.stanford.slac.core_work_management.service.LocationService;
 import edu.stanford.slac.core_work_management.service.ShopGroupService;
+import edu.stanford.slac.core_work_management.service.WorkFlowAnalyticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,12 +14,15 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +36,7 @@ public class DomainController {
     DomainService domainService;
     LocationService locationService;
     ShopGroupService shopGroupService;
+    WorkFlowAnalyticsService workFlowAnalyticsService;
 
     @PostMapping(
             consumes = {MediaType.APPLICATION_JSON_VALUE},
@@ -61,10 +66,66 @@ public class DomainController {
     public ApiResultResponse<DomainDTO> findDomainById(
             Authentication authentication,
             @Schema(description = "The id of the domain to find")
+            @PathVariable String domainId,
+            @Schema(description = "If true the work statistics of the domain are returned too")
+            @RequestParam(value = "statistics", required = false, defaultValue = "false") Optional<Boolean> statistics
+    ) {
+        return ApiResultResponse.of(
+                domainService.findById(domainId, statistics.orElse(false))
+        );
+    }
+
+    @GetMapping(
+            path = "/{domainId}/statistics",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Return the count of the works of the domain for each work type and status")
+    @PreAuthorize("@baseAuthorizationService.checkAuthenticated(#authentication)")
+    public ApiResultResponse<List<WorkTypeStatusStatisticsDTO>> findDomainStatistics(
+            Authentication authentication,
+            @Schema(description = "The id of the domain")
             @PathVariable String domainId
     ) {
         return ApiResultResponse.of(
-                domainService.findById(domainId)
+                domainService.getDomainStatistics(domainId)
+        );
+    }
+
+    @GetMapping(
+            path = "/{domainId}/statistics/flow",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Return the throughput, the lead and cycle time percentiles and the work in progress of each work type over time")
+    @PreAuthorize("@baseAuthorizationService.checkAuthenticated(#authentication)")
+    public ApiResultResponse<List<WorkFlowStatisticsDTO>> findDomainFlowStatistics(
+            Authentication authentication,
+            @Schema(description = "The id of the domain")
+            @PathVariable String domainId,
+            @Schema(description = "The start of the time window")
+            @RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Schema(description = "The end of the time window, now when omitted")
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> to,
+            @Schema(description = "The length of each interval of the window as ISO-8601 duration")
+            @RequestParam(value = "interval", required = false, defaultValue = "P1D") Duration interval,
+            @Schema(description = "The id of the work type, all the work types when omitted")
+            @RequestParam(value = "workTypeId", required = false) Optional<String> workTypeId,
+            @Schema(description = "The id of the shop group, all the shop groups when omitted")
+            @RequestParam(value = "shopGroupId", required = false) Optional<String> shopGroupId,
+            @Schema(description = "The comma separated percentiles of the lead and cycle time")
+            @RequestParam(value = "percentiles", required = false, defaultValue = "50,85,95") List<Integer> percentiles
+    ) {
+        return ApiResultResponse.of(
+                workFlowAnalyticsService.getFlowStatistics(
+                        domainId,
+                        workTypeId.orElse(null),
+                        shopGroupId.orElse(null),
+                        from,
+                        to.orElse(null),
+                        interval,
+                        percentiles
+                )
         );
     }
 
@@ -19,6 +19,7 @@ package edu.stanford.slac.core_work_management.api.v1.controller;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -42,13 +43,16 @@ import edu.stanford.slac.core_work_management.api.v1.dto.ReviewWorkDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.UpdateWorkDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.WorkDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.WorkDetailsOptionDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkHistoryEntryDTO;
 import edu.stanford.slac.core_work_management.api.v1.dto.WorkQueryParameterDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkStatusCountStatisticsDTO;
 import edu.stanford.slac.core_work_management.service.WorkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 
@@ -127,8 +131,9 @@ public class DomainWorkController {
             @Schema(description = "Is the flag to include the changes history")
             @RequestParam(name = "changes", required = false, defaultValue = "false") Optional<Boolean> changes,
             @Schema(description = "Is the flag to include the model changes history")
-            @RequestParam(name = "model-changes", required = false, defaultValue = "false") Optional<Boolean> modelChanges
-
+            @RequestParam(name = "model-changes", required = false, defaultValue = "false") Optional<Boolean> modelChanges,
+            @Schema(description = "Is the comma separated list of the work fields to return, all the fields are returned when omitted")
+            @RequestParam(name = "fields", required = false) Optional<Set<String>> fields
     ) {
         return ApiResultResponse.of(
                 workService.findWorkById(
@@ -136,6 +141,7 @@ public class DomainWorkController {
                         workId,
                         WorkDetailsOptionDTO.builder()
                                 .changes(changes.orElse(false))
+                                .fields(fields.orElse(null))
                                 .build()
                 )
         );
@@ -165,6 +171,97 @@ public class DomainWorkController {
         );
     }
 
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Get a page of the full history of a work",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "The history entries of the work from the most recent to the oldest")
+            }
+    )
+    @GetMapping(value = "/{domainId}/work/{workId}/history/events", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("@baseAuthorizationService.checkAuthenticated(#authentication)")
+    public ApiResultResponse<List<WorkHistoryEntryDTO>> findWorkHistoryEntriesById(
+            Authentication authentication,
+            @Schema(description = "Is the id of the domain that contains the work", required = true)
+            @PathVariable String domainId,
+            @Schema(description = "Is the id of the work", required = true)
+            @PathVariable String workId,
+            @Schema(description = "Is the id of the last entry of the previous page, the most recent entries are returned when omitted")
+            @RequestParam(value = "anchorId", required = false) Optional<String> anchorId,
+            @Schema(description = "Is the max number of entries to return")
+            @RequestParam(value = "limit", required = false, defaultValue = "20") Optional<Integer> limit
+    ) {
+        return ApiResultResponse.of(
+                workService.findWorkHistoryEntriesById(
+                        domainId,
+                        workId,
+                        anchorId.orElse(null),
+                        limit.orElse(20)
+                )
+        );
+    }
+
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Get a page of the works in the subtree of a work",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "The descendants of the work ordered by creation, the cursor of the next page is in the X-Next-Cursor header")
+            }
+    )
+    @GetMapping(value = "/{domainId}/work/{workId}/subtree", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("@baseAuthorizationService.checkAuthenticated(#authentication)")
+    @PostAuthorize("@workAuthorizationService.applyCompletionDTOList(returnObject, authentication)")
+    public ApiResultResponse<List<WorkDTO>> findWorkSubtreeById(
+            Authentication authentication,
+            @Schema(description = "Is the id of the domain that contains the work", required = true)
+            @PathVariable String domainId,
+            @Schema(description = "Is the id of the root work of the subtree", required = true)
+            @PathVariable String workId,
+            @Schema(description = "Is the cursor returned in the X-Next-Cursor header for the previous page, the first page is returned when omitted")
+            @RequestParam(value = "cursor", required = false) Optional<String> cursor,
+            @Schema(description = "Is the max number of works to return, it is capped to 100")
+            @RequestParam(value = "limit", required = false, defaultValue = "100") Optional<Integer> limit,
+            @Schema(description = "Is the comma separated list of the work fields to return, all the fields are returned when omitted")
+            @RequestParam(name = "fields", required = false) Optional<Set<String>> fields,
+            HttpServletResponse response
+    ) {
+        var works = workService.findWorkSubtreeById(
+                domainId,
+                workId,
+                cursor.orElse(null),
+                limit.orElse(WorkService.MAX_PAGE_SIZE),
+                WorkDetailsOptionDTO.builder()
+                        .fields(fields.orElse(null))
+                        .build()
+        );
+        workService.getCursor(works).ifPresent(nextCursor -> response.setHeader("X-Next-Cursor", nextCursor));
+        return ApiResultResponse.of(works);
+    }
+
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Get the count of the works in the subtree of a work for each status",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "The count of the descendants of the work for each status")
+            }
+    )
+    @GetMapping(value = "/{domainId}/work/{workId}/subtree/statistics", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("@baseAuthorizationService.checkAuthenticated(#authentication)")
+    public ApiResultResponse<List<WorkStatusCountStatisticsDTO>> findWorkSubtreeStatistics(
+            Authentication authentication,
+            @Schema(description = "Is the id of the domain that contains the work", required = true)
+            @PathVariable String domainId,
+            @Schema(description = "Is the id of the root work of the subtree", required = true)
+            @PathVariable String workId
+    ) {
+        return ApiResultResponse.of(
+                workService.getWorkSubtreeStatusStatistics(
+                        domainId,
+                        workId
+                )
+        );
+    }
+
     /**
      * Assign a work to a bucket
      *
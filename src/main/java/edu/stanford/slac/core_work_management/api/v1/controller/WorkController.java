@@ -17,6 +17,9 @@
 
 package edu.stanford.slac.core_work_management.api.v1.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ApiResultResponse;
 import edu.stanford.slac.core_work_management.api.v1.dto.*;
 import edu.stanford.slac.core_work_management.service.WorkService;
@@ -25,24 +28,33 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @AllArgsConstructor
 @RestController
 @RequestMapping("/v1/work")
 @Schema(description = "Set of api for the work management")
 public class WorkController {
+    private static final String WORK_EXPORT_MEDIA_TYPE = "application/x-ndjson";
+    private static final int EXPORT_BATCH_SIZE = 100;
     private final WorkService workService;
+    private final ObjectMapper objectMapper;
 
     @Operation(summary = "find all works that respect the criteria")
     @ApiResponses(value = {
@@ -60,17 +72,106 @@ public class WorkController {
             @Schema(name = "limit", description = "Limit the number the number of entries after the start date.")
             @RequestParam(value = "limit") Optional<Integer> limit,
             @Schema(name = "search", description = "Typical search functionality")
-            @RequestParam(value = "search") Optional<String> search
+            @RequestParam(value = "search") Optional<String> search,
+            @Schema(name = "fields", description = "Is the comma separated list of the work fields to return, all the fields are returned when omitted")
+            @RequestParam(value = "fields") Optional<Set<String>> fields,
+            @Schema(name = "cursor", description = "Is the cursor returned in the X-Next-Cursor header by a previous search, it takes the precedence over the anchorId")
+            @RequestParam(value = "cursor") Optional<String> cursor,
+            @Schema(name = "domainId", description = "Filter the works by domain ids")
+            @RequestParam(value = "domainId") Optional<List<String>> domainIds,
+            @Schema(name = "status", description = "Filter the works by current workflow states")
+            @RequestParam(value = "status") Optional<List<WorkflowStateDTO>> statuses,
+            @Schema(name = "workTypeId", description = "Filter the works by work type ids")
+            @RequestParam(value = "workTypeId") Optional<List<String>> workTypeIds,
+            @Schema(name = "shopGroupId", description = "Filter the works by shop group ids")
+            @RequestParam(value = "shopGroupId") Optional<List<String>> shopGroupIds,
+            @Schema(name = "locationId", description = "Filter the works by location ids")
+            @RequestParam(value = "locationId") Optional<List<String>> locationIds,
+            @Schema(name = "assignedTo", description = "Filter the works by assigned users")
+            @RequestParam(value = "assignedTo") Optional<List<String>> assignedTo,
+            HttpServletResponse response
     ) {
-        return ApiResultResponse.of(
-                workService.searchAllWork(
-                        WorkQueryParameterDTO.builder()
-                                .anchorID(anchorId.orElse(null))
-                                .contextSize(contextSize.orElse(null))
-                                .limit(limit.orElse(null))
-                                .search(search.orElse(null))
-                                .build()
-                )
+        var works = workService.searchAllWork(
+                WorkQueryParameterDTO.builder()
+                        .anchorID(anchorId.orElse(null))
+                        .cursor(cursor.orElse(null))
+                        .contextSize(contextSize.orElse(null))
+                        .limit(limit.orElse(null))
+                        .search(search.orElse(null))
+                        .fields(fields.orElse(null))
+                        .domainIds(domainIds.orElse(null))
+                        .statuses(statuses.orElse(null))
+                        .workTypeIds(workTypeIds.orElse(null))
+                        .shopGroupIds(shopGroupIds.orElse(null))
+                        .locationIds(locationIds.orElse(null))
+                        .assignedTo(assignedTo.orElse(null))
+                        .build()
         );
+        workService.getCursor(works).ifPresent(nextCursor -> response.setHeader("X-Next-Cursor", nextCursor));
+        return ApiResultResponse.of(works);
+    }
+
+    @Operation(summary = "export all works that respect the criteria as newline delimited json")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export started successfully")
+    })
+    @GetMapping(path = "/export", produces = {WORK_EXPORT_MEDIA_TYPE})
+    @PreAuthorize("@baseAuthorizationService.checkAuthenticated(#authentication)")
+    public ResponseEntity<StreamingResponseBody> exportAllWork(
+            Authentication authentication,
+            @Schema(name = "search", description = "Typical search functionality")
+            @RequestParam(value = "search") Optional<String> search,
+            @Schema(name = "fields", description = "Is the comma separated list of the work fields to return, all the fields are returned when omitted")
+            @RequestParam(value = "fields") Optional<Set<String>> fields,
+            @Schema(name = "domainId", description = "Filter the works by domain ids")
+            @RequestParam(value = "domainId") Optional<List<String>> domainIds,
+            @Schema(name = "status", description = "Filter the works by current workflow states")
+            @RequestParam(value = "status") Optional<List<WorkflowStateDTO>> statuses,
+            @Schema(name = "workTypeId", description = "Filter the works by work type ids")
+            @RequestParam(value = "workTypeId") Optional<List<String>> workTypeIds,
+            @Schema(name = "shopGroupId", description = "Filter the works by shop group ids")
+            @RequestParam(value = "shopGroupId") Optional<List<String>> shopGroupIds,
+            @Schema(name = "locationId", description = "Filter the works by location ids")
+            @RequestParam(value = "locationId") Optional<List<String>> locationIds,
+            @Schema(name = "assignedTo", description = "Filter the works by assigned users")
+            @RequestParam(value = "assignedTo") Optional<List<String>> assignedTo
+    ) {
+        var queryParameter = WorkQueryParameterDTO.builder()
+                .search(search.orElse(null))
+                .fields(fields.orElse(null))
+                .domainIds(domainIds.orElse(null))
+                .statuses(statuses.orElse(null))
+                .workTypeIds(workTypeIds.orElse(null))
+                .shopGroupIds(shopGroupIds.orElse(null))
+                .locationIds(locationIds.orElse(null))
+                .assignedTo(assignedTo.orElse(null))
+                .build();
+        // each work is written as a json line, the generator must not close the response stream
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = outputStream -> workService.exportAllWork(
+                queryParameter,
+                EXPORT_BATCH_SIZE,
+                batch -> {
+                    var authListByWorkId = workService.getAuthorizationByWorks(batch, authentication);
+                    try {
+                        for (WorkDTO workDTO : batch) {
+                            writer.writeValue(
+                                    outputStream,
+                                    workDTO.toBuilder()
+                                            .accessList(authListByWorkId.get(workDTO.id()))
+                                            .build()
+                            );
+                            outputStream.write('\n');
+                        }
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+        );
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.parseMediaType(WORK_EXPORT_MEDIA_TYPE))
+                .body(body);
     }
 }
@@ -7,6 +7,7 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
 
 import java.util.Optional;
+import java.util.Set;
 
 @Builder(toBuilder = true)
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -14,11 +15,23 @@ import java.util.Optional;
 @Schema(description = "Define the options for the work details")
 public record WorkDetailsOptionDTO(
         @Schema(description = "The flag to include the work changes")
-        Boolean changes
+        Boolean changes,
+        @Schema(description = "The name of the work fields to return, all the fields are returned when it is null or empty. The id of the domain and of the shop group are always returned")
+        Set<String> fields
 ) {
     public WorkDetailsOptionDTO {
         if(changes == null) {
             changes = false;
         }
     }
+
+    /**
+     * Check if a work field has been requested
+     *
+     * @param field the name of the field
+     * @return true if the field has been requested
+     */
+    public boolean includes(String field) {
+        return fields == null || fields.isEmpty() || fields.contains(field);
+    }
 }
@@ -0,0 +1,41 @@
+package edu.stanford.slac.core_work_management.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "The flow of the works of a work type in a time interval")
+public record WorkFlowStatisticsDTO(
+        @Schema(description = "The id of the work type")
+        String workTypeId,
+        @Schema(description = "The start of the interval, included")
+        @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        LocalDateTime intervalStart,
+        @Schema(description = "The end of the interval, excluded")
+        @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        LocalDateTime intervalEnd,
+        @Schema(description = "The number of the works that moved to in progress for the first time in the interval")
+        Long started,
+        @Schema(description = "The number of the works closed in the interval, the throughput")
+        Long completed,
+        @Schema(description = "The number of the works in progress at the end of the interval")
+        Long wip,
+        @Schema(description = "The percentiles of the lead time, from the creation to the close, in seconds for each requested percentile (p50, p95...)")
+        Map<String, Long> leadTime,
+        @Schema(description = "The percentiles of the cycle time, from the first start to the close, in seconds for each requested percentile (p50, p95...)")
+        Map<String, Long> cycleTime
+) {
+}
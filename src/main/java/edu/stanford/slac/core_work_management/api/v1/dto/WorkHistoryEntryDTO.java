@@ -0,0 +1,36 @@
+package edu.stanford.slac.core_work_management.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Define an entry of the full history of a work")
+public record WorkHistoryEntryDTO(
+        @Schema(description = "The unique identifier of the entry, it can be used as anchor to load the next page")
+        String id,
+        @Schema(description = "The id of the work")
+        String workId,
+        @Schema(description = "The kind of the entry")
+        WorkHistoryTypeDTO type,
+        @Schema(description = "The previous status of the work, set for the status entries")
+        WorkStatusLogDTO status,
+        @Schema(description = "The previous bucket association of the work, set for the bucket association entries")
+        WorkBucketAssociationDTO bucketAssociation,
+        @Schema(description = "The notification, set for the notification entries")
+        NotificationDTO notification,
+        @Schema(description = "The date when the entry has been added to the work")
+        @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        LocalDateTime createdDate
+) {
+}
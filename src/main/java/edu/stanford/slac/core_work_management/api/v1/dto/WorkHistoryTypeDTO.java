@@ -0,0 +1,14 @@
+package edu.stanford.slac.core_work_management.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Define the kind of the work history entry")
+public enum WorkHistoryTypeDTO {
+    Status,
+    BucketAssociation,
+    Notification
+}
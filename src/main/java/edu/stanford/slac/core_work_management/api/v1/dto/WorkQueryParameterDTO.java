@@ -6,6 +6,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 
 import java.util.List;
+import java.util.Set;
 
 @Builder
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -16,10 +17,24 @@ public record WorkQueryParameterDTO(
         List<String> domainIds,
         @Schema(description = "Is the id to point to as starting point in the search")
         String anchorID,
+        @Schema(description = "Is the opaque cursor returned by a previous search to use as starting point, it takes the precedence over the anchor")
+        String cursor,
         @Schema(description = "Include this number of element before the anchor")
         Integer contextSize,
         @Schema(description = "Limit the number of element after the anchor.")
         Integer limit,
         @Schema(description = "Typical search functionality.")
-        String search
+        String search,
+        @Schema(description = "The list of the workflow states to filter on")
+        List<WorkflowStateDTO> statuses,
+        @Schema(description = "The list of the work type ids to filter on")
+        List<String> workTypeIds,
+        @Schema(description = "The list of the shop group ids to filter on")
+        List<String> shopGroupIds,
+        @Schema(description = "The list of the location ids to filter on")
+        List<String> locationIds,
+        @Schema(description = "The list of the users assigned to the work to filter on")
+        List<String> assignedTo,
+        @Schema(description = "The name of the work fields to return, all the fields are returned when it is null or empty.")
+        Set<String> fields
         ) {}
@@ -18,6 +18,7 @@
 package edu.stanford.slac.core_work_management.api.v1.mapper;
 
 import edu.stanford.slac.core_work_management.api.v1.dto.*;
+import edu.stanford.slac.core_work_management.api.v1.mapper.LookupContext.Kind;
 import edu.stanford.slac.core_work_management.model.BucketSlot;
 import edu.stanford.slac.core_work_management.model.BucketSlotQueryParameter;
 import edu.stanford.slac.core_work_management.model.BucketSlotWorkType;
@@ -27,6 +28,7 @@ import org.mapstruct.*;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Mapper(
@@ -87,7 +89,11 @@ public abstract class BucketSlotMapper {
         if (workTypeIds == null) return result;
         workTypeIds.forEach(
                 wt -> result.add(
-                            domainService.findWorkTypeById(wt.getDomainId(), wt.getWorkTypeId())
+                            LookupContext.lookup(
+                                    Kind.WorkTypeDTO,
+                                    List.of(wt.getDomainId(), wt.getWorkTypeId()),
+                                    () -> domainService.findWorkTypeById(wt.getDomainId(), wt.getWorkTypeId())
+                            )
                     )
         );
         return result;
@@ -102,7 +108,7 @@ public abstract class BucketSlotMapper {
 @Named("toLOVValueDTO")
 public LOVValueDTO toLOVValueDTO(String value) {
     if (value == null) return null;
-    var valueFound = lovService.findLovValueById(value);
+    var valueFound = LookupContext.lookup(Kind.LOVValue, value, () -> lovService.findLovValueById(value));
     return LOVValueDTO
             .builder()
             .id(
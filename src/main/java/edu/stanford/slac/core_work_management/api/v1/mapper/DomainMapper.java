@@ -10,11 +10,10 @@ import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
 import edu.stanford.slac.core_work_management.service.LOVService;
 import edu.stanford.slac.core_work_management.service.ScriptService;
 import edu.stanford.slac.core_work_management.service.StringUtility;
-import edu.stanford.slac.core_work_management.service.workflow.BaseWorkflow;
-import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowRegistry;
+import edu.stanford.slac.core_work_management.api.v1.mapper.LookupContext.Kind;
 import org.mapstruct.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -26,8 +25,6 @@ import static java.util.Collections.emptyList;
         componentModel = "spring"
 )
 public abstract class DomainMapper {
-    @Autowired
-    private ApplicationContext context;
     @Autowired
     private LOVService lovService;
     @Autowired
@@ -36,6 +33,8 @@ public abstract class DomainMapper {
     private WorkTypeRepository workTypeRepository;
     @Autowired
     protected ScriptService scriptService;
+    @Autowired
+    protected WorkflowRegistry workflowRegistry;
     /**
      * Convert a NewDomainDTO to a Domain model
      *
@@ -53,7 +52,7 @@ public abstract class DomainMapper {
      * @return the DTO
      */
     @Mapping(target = "workflows", source = "workflows", qualifiedByName = "toWorkflowDTO")
-    @Mapping(target = "workTypeStatusStatistics", source = "workTypeStatusStatistics", qualifiedByName = "convertStatistic")
+    @Mapping(target = "workTypeStatusStatistics", ignore = true)
     public abstract DomainDTO toDTO(Domain domain);
 
     /**
@@ -187,11 +186,34 @@ public abstract class DomainMapper {
                 .group(customField.getGroup())
                 .description(customField.getDescription())
                 .valueType(toDTO(customField.getValueType()))
-                .lovValues(customField.getValueType() == ValueType.LOV ? lovService.findAllByFieldReference(customField.getLovFieldReference()) : emptyList())
+                .lovValues(customField.getValueType() == ValueType.LOV ? findAllLOVByFieldReference(customField.getLovFieldReference()) : emptyList())
                 .isMandatory(customField.getIsMandatory())
                 .build();
     }
 
+    /**
+     * Find all the LOV elements for a field reference, using the lookup context when available
+     *
+     * @param fieldReference the field reference
+     * @return the list of LOV elements
+     */
+    private List<LOVElementDTO> findAllLOVByFieldReference(String fieldReference) {
+        return LookupContext.lookup(Kind.LOVElementsByFieldReference, fieldReference, () -> lovService.findAllByFieldReference(fieldReference));
+    }
+
+    /**
+     * Find a work type by id, using the lookup context when available
+     *
+     * @param workTypeId the id of the work type
+     * @return the found work type
+     */
+    private WorkType findWorkTypeById(String workTypeId) {
+        return Optional.ofNullable(
+                        LookupContext.lookup(Kind.WorkType, workTypeId, () -> workTypeRepository.findById(workTypeId).orElse(null))
+                )
+                .orElseThrow(() -> WorkTypeNotFound.notFoundById().errorCode(-1).workId(workTypeId).build());
+    }
+
     /**
      * Convert a WorkType model to a WorkTypeSummaryDTO
      *
@@ -202,11 +224,7 @@ public abstract class DomainMapper {
         Set<WorkTypeSummaryDTO> result = new HashSet<>();
         if (childWorkTypeIds == null) return result;
         childWorkTypeIds.forEach(
-                workTypeId -> {
-                    WorkType workType = workTypeRepository.findById(workTypeId)
-                            .orElseThrow(() -> WorkTypeNotFound.notFoundById().errorCode(-1).workId(workTypeId).build());
-                    result.add(toSummaryDTO(workType));
-                }
+                workTypeId -> result.add(toSummaryDTO(findWorkTypeById(workTypeId)))
         );
         return result;
     }
@@ -242,7 +260,7 @@ public abstract class DomainMapper {
      * @return the converted DTO
      */
     public EmbeddableWorkflow toEmbeddableFromDomainIdAndId(String domainId, String workflowId) {
-        Domain domain = domainRepository.findById(domainId)
+        Domain domain = findDomainModelById(domainId)
                 .orElseThrow(() -> ControllerLogicException.builder()
                         .errorCode(-1)
                         .errorMessage("The domain with id '%s' is not available".formatted(domainId))
@@ -253,21 +271,12 @@ public abstract class DomainMapper {
                 .errorMessage("The workflow with id '%s' is not available".formatted(workflowId))
                 .errorDomain("DomainMapper::toWorkflowDTOById")
                 .build());
-        BaseWorkflow workFlowInstance = (BaseWorkflow) context.getBean(workflowFound.getImplementation());
-        var isPresent = workFlowInstance.getClass().isAnnotationPresent(edu.stanford.slac.core_work_management.service.workflow.Workflow.class);
-        if (!isPresent) {
-            throw ControllerLogicException.builder()
-                    .errorCode(-1)
-                    .errorMessage("The workflow class with name '%s' is not available".formatted(workflowFound.getImplementation()))
-                    .errorDomain("DomainMapper::toWorkflowDTO")
-                    .build();
-        }
-        var annot = workFlowInstance.getClass().getAnnotation(edu.stanford.slac.core_work_management.service.workflow.Workflow.class);
+        var workflowDTO = toWorkflowDTOFromImplementation(workflowFound.getImplementation());
         return EmbeddableWorkflow.builder()
                 .id(workflowFound.getId())
-                .name(annot.name())
+                .name(workflowDTO.name())
                 .implementation(workflowFound.getImplementation())
-                .validTransitions(toDTO(workFlowInstance.getValidTransitions()))
+                .validTransitions(workflowDTO.validTransitions())
                 .build();
     }
 
@@ -279,7 +288,7 @@ public abstract class DomainMapper {
      * @return the converted DTO
      */
     public WorkflowDTO toWorkflowFromDomainIdAndId(String domainId, String workflowId) {
-        Domain domain = domainRepository.findById(domainId)
+        Domain domain = findDomainModelById(domainId)
                 .orElseThrow(() -> ControllerLogicException.builder()
                         .errorCode(-1)
                         .errorMessage("The domain with id '%s' is not available".formatted(domainId))
@@ -290,21 +299,12 @@ public abstract class DomainMapper {
                 .errorMessage("The workflow with id '%s' is not available".formatted(workflowId))
                 .errorDomain("DomainMapper::toWorkflowDTOById")
                 .build());
-        BaseWorkflow workFlowInstance = (BaseWorkflow) context.getBean(workflowFound.getImplementation());
-        var isPresent = workFlowInstance.getClass().isAnnotationPresent(edu.stanford.slac.core_work_management.service.workflow.Workflow.class);
-        if (!isPresent) {
-            throw ControllerLogicException.builder()
-                    .errorCode(-1)
-                    .errorMessage("The workflow class with name '%s' is not available".formatted(workflowFound.getImplementation()))
-                    .errorDomain("DomainMapper::toWorkflowDTO")
-                    .build();
-        }
-        var annot = workFlowInstance.getClass().getAnnotation(edu.stanford.slac.core_work_management.service.workflow.Workflow.class);
+        var workflowDTO = toWorkflowDTOFromImplementation(workflowFound.getImplementation());
         return WorkflowDTO.builder()
                 .id(workflowFound.getId())
-                .name(annot.name())
+                .name(workflowDTO.name())
                 .implementation(workflowFound.getImplementation())
-                .validTransitions(toDTO(workFlowInstance.getValidTransitions()))
+                .validTransitions(workflowDTO.validTransitions())
                 .build();
     }
 
@@ -315,25 +315,35 @@ public abstract class DomainMapper {
      * @return the converted DTO
      */
     public WorkflowDTO toWorkflowDTOFromWorkflow(Workflow workflow) {
-        BaseWorkflow workFlowInstance = (BaseWorkflow) context.getBean(workflow.getImplementation());
-        var isPresent = workFlowInstance.getClass().isAnnotationPresent(edu.stanford.slac.core_work_management.service.workflow.Workflow.class);
-        if (!isPresent) {
-            throw ControllerLogicException.builder()
-                    .errorCode(-1)
-                    .errorMessage("The workflow class with name '%s' is not available".formatted(workflow.getImplementation()))
-                    .errorDomain("DomainMapper::toWorkflowDTO")
-                    .build();
-        }
-        var annot = workFlowInstance.getClass().getAnnotation(edu.stanford.slac.core_work_management.service.workflow.Workflow.class);
-        return WorkflowDTO.builder()
+        return toWorkflowDTOFromImplementation(workflow.getImplementation())
+                .toBuilder()
                 .id(workflow.getId())
-                .name(annot.name())
-                .description(annot.description())
-                .implementation(workflow.getImplementation())
-                .validTransitions(toDTO(workFlowInstance.getValidTransitions()))
                 .build();
     }
 
+    /**
+     * Return the description of a workflow implementation, precompiled at startup by the registry
+     * the returned DTO has no id because it is not bound to any domain
+     *
+     * @param implementation the name of the workflow bean
+     * @return the converted DTO
+     */
+    private WorkflowDTO toWorkflowDTOFromImplementation(String implementation) {
+        return workflowRegistry.getWorkflowDTO(implementation);
+    }
+
+    /**
+     * Find a domain model by id, memoized in the lookup context
+     *
+     * @param domainId the id of the domain
+     * @return the domain if found
+     */
+    private Optional<Domain> findDomainModelById(String domainId) {
+        return Optional.ofNullable(
+                LookupContext.lookup(Kind.DomainModel, domainId, () -> domainRepository.findById(domainId).orElse(null))
+        );
+    }
+
     /**
      * Convert a set of Workflow to a set of WorkflowDTO
      *
@@ -344,55 +354,10 @@ public abstract class DomainMapper {
     public Set<WorkflowDTO> toWorkflowDTO(Set<Workflow> workflows) {
         Set<WorkflowDTO> result = new HashSet<>();
         if (workflows == null) return result;
-        workflows.forEach(
-                w -> {
-                    ;
-                    BaseWorkflow workFlowInstance = (BaseWorkflow) context.getBean(w.getImplementation());
-                    var isPresent = workFlowInstance.getClass().isAnnotationPresent(edu.stanford.slac.core_work_management.service.workflow.Workflow.class);
-                    if (!isPresent) {
-                        throw ControllerLogicException.builder()
-                                .errorCode(-1)
-                                .errorMessage("The workflow class with name '%s' is not available".formatted(w.getImplementation()))
-                                .errorDomain("DomainMapper::toWorkflowDTO")
-                                .build();
-                    }
-                    var annot = workFlowInstance.getClass().getAnnotation(edu.stanford.slac.core_work_management.service.workflow.Workflow.class);
-                    result.add(
-                            WorkflowDTO.builder()
-                                    .id(w.getId())
-                                    .name(annot.name())
-                                    .description(annot.description())
-                                    .implementation(w.getImplementation())
-                                    .validTransitions(toDTO(workFlowInstance.getValidTransitions()))
-                                    .build()
-                    );
-                }
-        );
+        workflows.forEach(w -> result.add(toWorkflowDTOFromWorkflow(w)));
         return result;
     }
 
-    /**
-     * Convert a map of WorkflowState to a map of WorkflowStateDTO
-     *
-     * @param validTransitions the map to convert
-     * @return the converted map
-     */
-    private Map<WorkflowStateDTO, Set<WorkflowStateDTO>> toDTO
-    (Map<WorkflowState, Set<WorkflowState>> validTransitions) {
-        Map<WorkflowStateDTO, Set<WorkflowStateDTO>> result = new HashMap<>();
-        if (validTransitions == null) return result;
-        validTransitions.forEach(
-                (key, value) -> {
-                    result.put(
-                            WorkflowStateDTO.valueOf(key.name()),
-                            value.stream().map(
-                                    workflowState -> WorkflowStateDTO.valueOf(workflowState.name())
-                            ).collect(Collectors.toSet())
-                    );
-                }
-        );
-        return result;
-    }
 
     /**
      * Normalize the name of the domain
@@ -418,8 +383,7 @@ public abstract class DomainMapper {
         return value.entrySet().stream()
                 .map(
                         entry -> {
-                            WorkType workType = workTypeRepository.findById(entry.getKey())
-                                    .orElseThrow(() -> WorkTypeNotFound.notFoundById().errorCode(-1).workId(entry.getKey()).build());
+                            WorkType workType = findWorkTypeById(entry.getKey());
                             return WorkTypeStatusStatisticsDTO
                                     .builder()
                                     .workType(toSummaryDTO(workType))
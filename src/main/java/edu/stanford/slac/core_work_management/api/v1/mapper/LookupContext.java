@@ -0,0 +1,173 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : LookupContext
+ * ----------------------------------------------------------------------------
+ * File       : LookupContext.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.api.v1.mapper;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Thread bound memoization context for the entities resolved during the mapping.
+ * <p>
+ * The mapper helper methods resolve the referenced entities through {@link #lookup(Kind, Object, Supplier)}:
+ * when a context is open the value is taken from it, or loaded once and remembered, so the same
+ * document is never fetched twice while the context is alive. Callers that know in advance which
+ * entities will be needed (for example a whole page of works) can also load them in bulk and
+ * publish them with {@link #put(Kind, Object, Object)}.
+ * <p>
+ * The context is opened with {@link #open()} and must be closed, the suggested usage is a
+ * try-with-resources block. Opening a context when another one is already bound to the thread
+ * joins the existing one, that is unbound only when the outermost owner closes it.
+ */
+public final class LookupContext implements AutoCloseable {
+    private static final ThreadLocal<LookupContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The kind of entities managed by the context
+     */
+    public enum Kind {
+        Domain,
+        DomainModel,
+        WorkType,
+        WorkTypeDTO,
+        WorkTypeCustomField,
+        LOVElement,
+        LOVElementsByFieldReference,
+        LOVValue,
+        Bucket
+    }
+
+    private final Map<Kind, Map<Object, Object>> values = new EnumMap<>(Kind.class);
+    private final Map<Kind, Long> hits = new EnumMap<>(Kind.class);
+    private final Map<Kind, Long> misses = new EnumMap<>(Kind.class);
+    private int owners = 0;
+
+    private LookupContext() {
+    }
+
+    /**
+     * Open a context for the current thread, or join the one already open
+     *
+     * @return the opened context
+     */
+    public static LookupContext open() {
+        LookupContext context = CURRENT.get();
+        if (context == null) {
+            context = new LookupContext();
+            CURRENT.set(context);
+        }
+        context.owners++;
+        return context;
+    }
+
+    /**
+     * Return the context bound to the current thread
+     *
+     * @return the current context if one is open
+     */
+    public static Optional<LookupContext> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Resolve a value using the context of the current thread if any, otherwise
+     * the loader is directly called
+     *
+     * @param kind   the kind of the entity
+     * @param key    the key of the entity
+     * @param loader the loader used when the entity is not yet present
+     * @return the resolved value
+     */
+    public static <T> T lookup(Kind kind, Object key, Supplier<T> loader) {
+        LookupContext context = CURRENT.get();
+        if (context == null) return loader.get();
+        return context.resolve(kind, key, loader);
+    }
+
+    /**
+     * Return the value for the key or load and remember it, null result are remembered too
+     * and exceptions thrown by the loader are propagated without storing anything
+     *
+     * @param kind   the kind of the entity
+     * @param key    the key of the entity
+     * @param loader the loader used when the entity is not yet present
+     * @return the resolved value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T resolve(Kind kind, Object key, Supplier<T> loader) {
+        Map<Object, Object> kindValues = values.computeIfAbsent(kind, k -> new HashMap<>());
+        if (kindValues.containsKey(key)) {
+            hits.merge(kind, 1L, Long::sum);
+            return (T) kindValues.get(key);
+        }
+        misses.merge(kind, 1L, Long::sum);
+        T value = loader.get();
+        kindValues.put(key, value);
+        return value;
+    }
+
+    /**
+     * Check if a value for the key is already present
+     *
+     * @param kind the kind of the entity
+     * @param key  the key of the entity
+     * @return true if the value, even a null one, is present
+     */
+    public boolean contains(Kind kind, Object key) {
+        Map<Object, Object> kindValues = values.get(kind);
+        return kindValues != null && kindValues.containsKey(key);
+    }
+
+    /**
+     * Publish a value already loaded by the caller
+     *
+     * @param kind  the kind of the entity
+     * @param key   the key of the entity
+     * @param value the value
+     */
+    public <T> void put(Kind kind, Object key, T value) {
+        values.computeIfAbsent(kind, k -> new HashMap<>()).put(key, value);
+    }
+
+    /**
+     * Return the number of lookup satisfied by the context for each kind
+     */
+    public Map<Kind, Long> getHits() {
+        return Collections.unmodifiableMap(hits);
+    }
+
+    /**
+     * Return the number of lookup that needed the loader for each kind
+     */
+    public Map<Kind, Long> getMisses() {
+        return Collections.unmodifiableMap(misses);
+    }
+
+    /**
+     * Release the context, it is unbound from the thread when the last owner closes it
+     */
+    @Override
+    public void close() {
+        if (--owners == 0) {
+            CURRENT.remove();
+        }
+    }
+}
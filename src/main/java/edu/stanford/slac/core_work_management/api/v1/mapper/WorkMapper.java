@@ -12,18 +12,32 @@ import edu.stanford.slac.core_work_management.model.*;
 import edu.stanford.slac.core_work_management.model.value.*;
 import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
 import edu.stanford.slac.core_work_management.service.*;
+import edu.stanford.slac.core_work_management.service.authorization.AuthorizationSnapshotService;
+import edu.stanford.slac.core_work_management.api.v1.mapper.LookupContext.Kind;
 import org.mapstruct.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static edu.stanford.slac.core_work_management.config.AuthorizationStringConfig.WORK_AUTHORIZATION_TEMPLATE;
 
@@ -37,9 +51,77 @@ import static edu.stanford.slac.core_work_management.config.AuthorizationStringC
         nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS
 )
 public abstract class WorkMapper {
+    /**
+     * The path of the work document needed by each field of the {@link WorkDTO}
+     */
+    private static final Map<String, List<String>> WORK_FIELD_PATHS = Map.ofEntries(
+            Map.entry("id", List.of("id")),
+            Map.entry("parentWorkId", List.of("parentWorkId")),
+            Map.entry("domain", List.of("domainId")),
+            Map.entry("workNumber", List.of("workNumber")),
+            Map.entry("relatedToWorkIds", List.of("relatedToWorkIds")),
+            Map.entry("workType", List.of("workType")),
+            Map.entry("currentStatus", List.of("currentStatus")),
+            Map.entry("statusHistory", List.of("statusHistory")),
+            Map.entry("title", List.of("title")),
+            Map.entry("description", List.of("description")),
+            Map.entry("assignedTo", List.of("assignedTo")),
+            Map.entry("location", List.of("location")),
+            Map.entry("shopGroup", List.of("shopGroup")),
+            Map.entry("customFields", List.of("customFields", "workType.customFields")),
+            Map.entry("attachments", List.of("attachments")),
+            Map.entry("changesHistory", List.of()),
+            Map.entry("currentBucketAssociation", List.of("currentBucketAssociation")),
+            Map.entry("bucketAssociationsHistory", List.of("bucketAssociationsHistory")),
+            Map.entry("createdDate", List.of("createdDate")),
+            Map.entry("createdBy", List.of("createdBy")),
+            Map.entry("lastModifiedDate", List.of("lastModifiedDate")),
+            Map.entry("lastModifiedBy", List.of("lastModifiedBy")),
+            Map.entry("version", List.of("version")),
+            Map.entry("accessList", List.of())
+    );
+    /**
+     * The path of the work document always loaded, they are needed by the mapping and by the authorization
+     */
+    private static final List<String> WORK_MANDATORY_PATHS = List.of("id", "domainId", "workType.id", "shopGroup.id", "createdDate");
+    /**
+     * The path of the work document used by the permission checks and by the work type validators
+     */
+    public static final List<String> PERMISSION_CHECK_PATHS = List.of(
+            "id",
+            "domainId",
+            "parentWorkId",
+            "workNumber",
+            "title",
+            "workType.id",
+            "workType.title",
+            "workType.validatorName",
+            "shopGroup.id",
+            "location",
+            "assignedTo",
+            "currentStatus",
+            "createdDate",
+            "createdBy"
+    );
+    /**
+     * The option that select the fields filled by the permission check conversion
+     */
+    /**
+     * The fields of the {@link WorkDTO} that can receive a resolved LOV value
+     */
+    private static final Set<String> LOV_TARGET_FIELDS = Arrays.stream(WorkDTO.WorkDTOBuilder.class.getDeclaredFields())
+            .filter(field -> field.getType().isAssignableFrom(LOVValueDTO.class))
+            .map(Field::getName)
+            .collect(Collectors.toUnmodifiableSet());
+    protected static final WorkDetailsOptionDTO PERMISSION_CHECK_OPTIONS = WorkDetailsOptionDTO.builder()
+            .fields(Set.of("workType", "shopGroup", "location", "assignedTo", "currentStatus"))
+            .build();
+
     @Autowired
     AuthService authService;
     @Autowired
+    AuthorizationSnapshotService authorizationSnapshotService;
+    @Autowired
     ShopGroupService shopGroupService;
     @Autowired
     LocationService locationService;
@@ -99,18 +181,61 @@ public abstract class WorkMapper {
      * @param work the entity to convert
      * @return the converted DTO
      */
-    @Mapping(target = "workType", expression = "java(toWorkTypeDTOFromWorkTypeId(work.getDomainId(), work.getWorkType()))")
-    @Mapping(target = "customFields", expression = "java(toCustomFieldValuesDTOForWork(work.getWorkType().getId(), work.getCustomFields()))")
-    @Mapping(target = "domain", expression = "java(toDomainDTO(work.getDomainId()))")
+    @Mapping(target = "workType", expression = "java(isRequested(workDetailsOptionDTO, \"workType\") ? toWorkTypeDTOFromWorkTypeId(work.getDomainId(), work.getWorkType()) : null)")
+    @Mapping(target = "customFields", expression = "java(isRequested(workDetailsOptionDTO, \"customFields\") ? toCustomFieldValuesDTOForWork(work.getWorkType(), work.getCustomFields()) : null)")
+    @Mapping(target = "domain", expression = "java(toDomainDTO(work.getDomainId(), workDetailsOptionDTO))")
     @Mapping(target = "changesHistory", expression = "java(getChanges(work.getId(), workDetailsOptionDTO))")
     abstract public WorkDTO toDTO(Work work, WorkDetailsOptionDTO workDetailsOptionDTO);
 
     @Mapping(target = "bucket", expression = "java(fetchBucket(bucketAssociation.getBucketId()))")
     abstract public WorkBucketAssociationDTO toDTO(WorkBucketAssociation bucketAssociation);
 
+    /**
+     * Convert the {@link WorkHistoryEntry} to a {@link WorkHistoryEntryDTO}
+     *
+     * @param workHistoryEntry the entity to convert
+     * @return the converted DTO
+     */
+    abstract public WorkHistoryEntryDTO toDTO(WorkHistoryEntry workHistoryEntry);
+
+    /**
+     * Convert the {@link Work}, loaded with the {@link #PERMISSION_CHECK_PATHS}, to a slim {@link WorkDTO}
+     * used by the permission checks, no other entity is loaded during the conversion. The LOV resolution of
+     * {@link #afterMapping(WorkDTO.WorkDTOBuilder, Work, WorkDetailsOptionDTO)} needs the options, so it is not
+     * applied to this conversion
+     *
+     * @param work the entity to convert
+     * @return the converted DTO
+     */
+    @Named("toPermissionCheckDTO")
+    @Mapping(target = "workType", expression = "java(toPermissionCheckWorkTypeDTO(work.getWorkType()))")
+    @Mapping(target = "domain", expression = "java(toDomainDTO(work.getDomainId(), PERMISSION_CHECK_OPTIONS))")
+    @Mapping(target = "customFields", ignore = true)
+    @Mapping(target = "changesHistory", ignore = true)
+    @Mapping(target = "statusHistory", ignore = true)
+    @Mapping(target = "currentBucketAssociation", ignore = true)
+    @Mapping(target = "bucketAssociationsHistory", ignore = true)
+    @Mapping(target = "attachments", ignore = true)
+    abstract public WorkDTO toPermissionCheckDTO(Work work);
+
+    /**
+     * Convert the embedded work type to a DTO with only the information used by the permission checks
+     *
+     * @param workType the embedded work type
+     * @return the converted DTO
+     */
+    protected EmbeddableWorkTypeDTO toPermissionCheckWorkTypeDTO(EmbeddableWorkType workType) {
+        if (workType == null) return null;
+        return EmbeddableWorkTypeDTO.builder()
+                .id(workType.getId())
+                .title(workType.getTitle())
+                .validatorName(workType.getValidatorName())
+                .build();
+    }
+
     public BucketSlotDTO fetchBucket(String bucketId) {
         if(bucketId==null) return null;
-        return bucketService.findById(bucketId);
+        return LookupContext.lookup(Kind.Bucket, bucketId, () -> bucketService.findById(bucketId));
     }
 
     /**
@@ -130,8 +255,87 @@ public abstract class WorkMapper {
      * @param workQueryParameterDTO the DTO to convert
      * @return the converted entity
      */
+    @Mapping(target = "fields", expression = "java(toModelFields(workQueryParameterDTO.fields()))")
+    @Mapping(target = "cursorCreatedDate", ignore = true)
+    @Mapping(target = "cursorId", ignore = true)
     abstract public WorkQueryParameter toModel(WorkQueryParameterDTO workQueryParameterDTO);
 
+    /**
+     * Decode the cursor of the {@link WorkQueryParameterDTO} into the position fields of the {@link WorkQueryParameter}
+     *
+     * @param workQueryParameterDTO the DTO to convert
+     * @param builder               the builder of the converted entity
+     */
+    @AfterMapping
+    protected void decodeCursor(WorkQueryParameterDTO workQueryParameterDTO, @MappingTarget WorkQueryParameter.WorkQueryParameterBuilder builder) {
+        if (workQueryParameterDTO.cursor() == null || workQueryParameterDTO.cursor().isBlank()) return;
+        String[] position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(workQueryParameterDTO.cursor()), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length != 2 || position[1].isBlank()) throw new IllegalArgumentException();
+            builder.cursorCreatedDate(LocalDateTime.parse(position[0]));
+            builder.cursorId(position[1]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("The cursor '%s' is not valid".formatted(workQueryParameterDTO.cursor()))
+                    .errorDomain("WorkMapper::decodeCursor")
+                    .build();
+        }
+    }
+
+    /**
+     * Encode the position of a {@link WorkDTO} as an opaque cursor that can be used
+     * to continue the search after it
+     *
+     * @param workDTO the last work of a page
+     * @return the cursor, null if the work has no position
+     */
+    @Named("toCursor")
+    public String toCursor(WorkDTO workDTO) {
+        if (workDTO == null || workDTO.id() == null || workDTO.createdDate() == null) return null;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "%s|%s".formatted(workDTO.createdDate(), workDTO.id()).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Convert the name of the {@link WorkDTO} fields to the path of the {@link Work} document to load
+     * the path needed to build the DTO and to check the authorization are always included
+     *
+     * @param fields the name of the DTO fields
+     * @return the path to load, null if all the document is needed
+     */
+    @Named("toModelFields")
+    public List<String> toModelFields(Collection<String> fields) {
+        if (fields == null || fields.isEmpty()) return null;
+        Set<String> paths = new LinkedHashSet<>(WORK_MANDATORY_PATHS);
+        fields.forEach(
+                field -> {
+                    if (!WORK_FIELD_PATHS.containsKey(field)) {
+                        throw ControllerLogicException.builder()
+                                .errorCode(-1)
+                                .errorMessage("The field '%s' is not a valid work field".formatted(field))
+                                .errorDomain("WorkMapper::toModelFields")
+                                .build();
+                    }
+                    paths.addAll(WORK_FIELD_PATHS.get(field));
+                }
+        );
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * Check if a field of the {@link WorkDTO} has been requested
+     *
+     * @param workDetailsOptionDTO the options, null means all the fields
+     * @param field                the name of the field
+     * @return true if the field should be filled
+     */
+    protected boolean isRequested(WorkDetailsOptionDTO workDetailsOptionDTO, String field) {
+        return workDetailsOptionDTO == null || workDetailsOptionDTO.includes(field);
+    }
+
     /**
      * Convert the {@link WriteCustomFieldDTO} to a {@link CustomField}
      *
@@ -147,6 +351,20 @@ public abstract class WorkMapper {
         ).toList();
     }
 
+    /**
+     * Convert the {@link String} domain id to a {@link DomainDTO}, when the domain has not been
+     * requested only its id is returned
+     *
+     * @param domainId             the id of the domain
+     * @param workDetailsOptionDTO the options
+     * @return the converted DTO
+     */
+    public DomainDTO toDomainDTO(String domainId, WorkDetailsOptionDTO workDetailsOptionDTO) {
+        if (domainId == null) return null;
+        if (!isRequested(workDetailsOptionDTO, "domain")) return DomainDTO.builder().id(domainId).build();
+        return toDomainDTO(domainId);
+    }
+
     /**
      * Convert the {@link String} domain id to a {@link DomainDTO}
      *
@@ -155,22 +373,40 @@ public abstract class WorkMapper {
      */
     public DomainDTO toDomainDTO(String domainId) {
         if(domainId == null) return null;
-        return domainService.findById(domainId);
+        return LookupContext.lookup(Kind.Domain, domainId, () -> domainService.findById(domainId));
     }
 
     /**
      * Convert the {@link WriteCustomFieldDTO} to a {@link CustomField}
+     * <p>
+     * The name of the fields are taken from the work type snapshot embedded into the work, the
+     * work type is fetched only for the fields that are not present into the snapshot
      *
+     * @param workType               the work type embedded into the work
      * @param customAttributesValues the list of the custom attributes
      * @return the converted entity
+     * @throws ControllerLogicException if the work has custom fields but no work type
      */
-    public List<CustomFieldDTO> toCustomFieldValuesDTOForWork(String workTypeId, List<CustomField> customAttributesValues) {
+    public List<CustomFieldDTO> toCustomFieldValuesDTOForWork(EmbeddableWorkType workType, List<CustomField> customAttributesValues) {
+        if (customAttributesValues == null) return null;
+        // without the work type the custom fields definition cannot be found
+        if (workType == null || (workType.getCustomFields() == null && workType.getId() == null)) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("The work has custom fields but no work type to resolve them")
+                    .errorDomain("WorkMapper::toCustomFieldValuesDTOForWork")
+                    .build();
+        }
+        Map<String, WATypeCustomField> embeddedFields = new HashMap<>();
+        if (workType.getCustomFields() != null) {
+            workType.getCustomFields().forEach(customField -> embeddedFields.put(customField.getId(), customField));
+        }
         return customAttributesValues.stream().map(
                 customAttribute -> CustomFieldDTO.builder()
                         .id(customAttribute.getId())
                         .name(
-                                workTypeRepository
-                                        .findCustomFieldById(workTypeId, customAttribute.getId())
+                                Optional.ofNullable(embeddedFields.get(customAttribute.getId()))
+                                        .or(() -> findCustomFieldById(workType.getId(), customAttribute.getId()))
                                         .map(WATypeCustomField::getName)
                                         .orElseThrow(
                                                 () -> CustomAttributeNotFound.notFoundById()
@@ -185,6 +421,45 @@ public abstract class WorkMapper {
         ).toList();
     }
 
+    /**
+     * Find the custom field definition of a work type
+     * the work type already resolved in the lookup context is used, otherwise only the custom field is loaded
+     *
+     * @param workTypeId    the id of the work type
+     * @param customFieldId the id of the custom field
+     * @return the custom field definition if found
+     */
+    private Optional<WATypeCustomField> findCustomFieldById(String workTypeId, String customFieldId) {
+        if (LookupContext.current().map(context -> context.contains(Kind.WorkType, workTypeId)).orElse(false)) {
+            return findWorkTypeById(workTypeId)
+                    .map(WorkType::getCustomFields)
+                    .flatMap(
+                            customFields -> customFields.stream()
+                                    .filter(customField -> customField.getId().equals(customFieldId))
+                                    .findFirst()
+                    );
+        }
+        return Optional.ofNullable(
+                LookupContext.lookup(
+                        Kind.WorkTypeCustomField,
+                        "%s/%s".formatted(workTypeId, customFieldId),
+                        () -> workTypeRepository.findCustomFieldById(workTypeId, customFieldId).orElse(null)
+                )
+        );
+    }
+
+    /**
+     * Find a work type by id, memoized in the lookup context
+     *
+     * @param workTypeId the id of the work type
+     * @return the work type if found
+     */
+    private Optional<WorkType> findWorkTypeById(String workTypeId) {
+        return Optional.ofNullable(
+                LookupContext.lookup(Kind.WorkType, workTypeId, () -> workTypeRepository.findById(workTypeId).orElse(null))
+        );
+    }
+
     /**
      * Convert static string field to {@link }LOVValueDTO}
      *
@@ -193,7 +468,7 @@ public abstract class WorkMapper {
      */
     public LOVValueDTO toLOVValueDTO(String value) {
         if (value == null) return null;
-        var valueFound = lovService.findLovValueById(value);
+        var valueFound = LookupContext.lookup(Kind.LOVValue, value, () -> lovService.findLovValueById(value));
         return LOVValueDTO
                 .builder()
                 .id(
@@ -213,7 +488,7 @@ public abstract class WorkMapper {
      */
     private AbstractValue tryToLOV(AbstractValue value) {
         if (value.getClass().isAssignableFrom(LOVValue.class)) {
-            var lovElementFound = lovService.findLovValueByIdNoException(((LOVValue) value).getValue());
+            var lovElementFound = findLovElementById(((LOVValue) value).getValue());
             if (lovElementFound.isPresent()) {
                 return LOVValue.builder().value(lovElementFound.get().value()).build();
             }
@@ -222,6 +497,18 @@ public abstract class WorkMapper {
     }
 
 
+    /**
+     * Find a LOV element by id, memoized in the lookup context
+     *
+     * @param lovElementId the id of the LOV element
+     * @return the LOV element if found
+     */
+    private Optional<LOVElementDTO> findLovElementById(String lovElementId) {
+        return Optional.ofNullable(
+                LookupContext.lookup(Kind.LOVElement, lovElementId, () -> lovService.findLovValueByIdNoException(lovElementId).orElse(null))
+        );
+    }
+
     /**
      * Get the authorization level on activity
      */
@@ -234,10 +521,10 @@ public abstract class WorkMapper {
         }
 
         //check if it's a root
-        boolean isRoot = authService.checkForRoot(authentication);
+        boolean isRoot = authorizationSnapshotService.isRoot(authentication);
         // check if user can write normal field
         if (isRoot) return AuthorizationTypeDTO.Admin;
-        if (authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+        if (authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                 authentication,
                 AuthorizationTypeDTO.Write,
                 WORK_AUTHORIZATION_TEMPLATE.formatted(workId)
@@ -438,7 +725,7 @@ public abstract class WorkMapper {
         } else if (valueType.isAssignableFrom(LOVValue.class)) {
             LOVValue lValue =  (LOVValue) abstractValue;
             // get the real lov value
-            var lovElementFound = lovService.findLovValueByIdNoException(lValue.getValue())
+            var lovElementFound = findLovElementById(lValue.getValue())
                     .orElseThrow(
                             ()->LOVValueNotFound.byId()
                                     .errorCode(-1)
@@ -459,7 +746,7 @@ public abstract class WorkMapper {
                     .originalValue(abstractValue)
                     .build();
         } else if (valueType.isAssignableFrom(BucketValue.class)) {
-             var bucketSlotDTO = bucketService.findById(((BucketValue) abstractValue).getValue());
+            var bucketSlotDTO = fetchBucket(((BucketValue) abstractValue).getValue());
             newAttributeValue = ValueDTO
                     .builder()
                     .type(ValueTypeDTO.Bucket)
@@ -476,9 +763,22 @@ public abstract class WorkMapper {
         return newAttributeValue;
     }
 
+    /**
+     * Resolve the LOV values of the fields of the work that reference a LOV
+     * it is applied only to the conversions with the {@link WorkDetailsOptionDTO}, the work type and the LOV are
+     * loaded only when a requested field can receive a LOV value
+     *
+     * @param target               the DTO builder
+     * @param source               the work
+     * @param workDetailsOptionDTO the options of the conversion
+     */
     @AfterMapping
-    protected void afterMapping(@MappingTarget final WorkDTO.WorkDTOBuilder target, Work source) {
-        var listOfReferenced = lovService.getLOVFieldReference(LOVDomainTypeDTO.Work, source.getDomainId(), source.getWorkType().getId()).keySet();
+    protected void afterMapping(@MappingTarget final WorkDTO.WorkDTOBuilder target, Work source, WorkDetailsOptionDTO workDetailsOptionDTO) {
+        if (LOV_TARGET_FIELDS.stream().noneMatch(field -> isRequested(workDetailsOptionDTO, field))) return;
+        var listOfReferenced = findWorkTypeById(source.getWorkType().getId())
+                .filter(workType -> workType.getDomainId().equals(source.getDomainId()))
+                .map(workType -> lovService.getLOVFieldReference(workType).keySet())
+                .orElseGet(() -> lovService.getLOVFieldReference(LOVDomainTypeDTO.Work, null, null).keySet());
         var targetFields = target.getClass().getDeclaredFields();
         var sourceFields = source.getClass().getDeclaredFields();
         listOfReferenced.forEach(
@@ -503,7 +803,7 @@ public abstract class WorkMapper {
                                         field1.set(target,
                                                 LOVValueDTO.builder()
                                                         .id(idValue)
-                                                        .value(lovService.findLovValueById(idValue))
+                                                        .value(LookupContext.lookup(Kind.LOVValue, idValue, () -> lovService.findLovValueById(idValue)))
                                                         .build()
                                         );
                                     } catch (IllegalAccessException e) {
@@ -5,6 +5,10 @@ import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
 @Log4j2
 @Getter
 @Setter
@@ -15,4 +19,17 @@ public class CWMAppProperties {
     private String imagePreviewTopic;
     private String workflowProcessingTopic;
     private Integer kafkaConsumerConcurrency;
+    private Duration authorizationSnapshotTtl;
+    private Integer authorizationSnapshotMaxSize;
+    private Integer scriptCacheSize;
+    private Integer scriptExecutorPoolSize;
+    private Integer scriptExecutorQueueCapacity;
+    private Duration scriptExecutionTimeout;
+    private String validatorScriptsPath;
+    private Set<String> staticCompiledValidators = new HashSet<>();
+    private Integer workHistoryWindowSize;
+    private Duration workStatisticReconciliationInterval;
+    private Duration domainStatisticRefreshWindow;
+    private Duration workFlowRollupBucket;
+    private Duration shopGroupMembershipResyncInterval;
 }
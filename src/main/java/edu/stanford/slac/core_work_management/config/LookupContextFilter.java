@@ -0,0 +1,56 @@
+package edu.stanford.slac.core_work_management.config;
+
+import edu.stanford.slac.core_work_management.api.v1.mapper.LookupContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Bind a {@link LookupContext} to each request, so the entities resolved by the mappers are loaded at most
+ * once during the request.
+ * The memoized entities are the domains, work types, LOV values and buckets referenced by the works, the write
+ * requests validate against them and answer with an id or a flag, so they never map again an entity changed by
+ * the same request. The hit and miss counters are reported also when the request fails.
+ */
+@Log4j2
+@Component
+@AllArgsConstructor
+public class LookupContextFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        try (LookupContext context = LookupContext.open()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                record(context.getHits(), "hit");
+                record(context.getMisses(), "miss");
+                log.debug("Lookup context for {}: hits {} misses {}", request.getRequestURI(), context.getHits(), context.getMisses());
+            }
+        }
+    }
+
+    /**
+     * Report the counters of the context
+     *
+     * @param counters the counters for each kind
+     * @param result   the result of the lookup
+     */
+    private void record(Map<LookupContext.Kind, Long> counters, String result) {
+        counters.forEach(
+                (kind, count) -> meterRegistry
+                        .counter("cwm_lookup_context", "kind", kind.name(), "result", result)
+                        .increment(count)
+        );
+    }
+}
@@ -1,9 +1,11 @@
 package edu.stanford.slac.core_work_management.consumer;
 
-import edu.stanford.slac.core_work_management.exception.WorkNotFound;
+import edu.stanford.slac.core_work_management.api.v1.mapper.LookupContext;
 import edu.stanford.slac.core_work_management.model.ProcessWorkflowInfo;
 import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import edu.stanford.slac.core_work_management.service.WorkChangeTracker;
 import edu.stanford.slac.core_work_management.service.WorkService;
+import edu.stanford.slac.core_work_management.service.WorkflowPropagationService;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -25,6 +27,8 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 public class ProcessingWorkflowUpdate {
     private final WorkRepository workRepository;
     private final WorkService workService;
+    private final WorkflowPropagationService workflowPropagationService;
+    private final WorkChangeTracker workChangeTracker;
 
     @RetryableTopic(
             attempts = "3",
@@ -42,8 +46,8 @@ public class ProcessingWorkflowUpdate {
             @Header(KafkaHeaders.OFFSET) long offset
     ) throws RuntimeException, IOException {
         log.info("Start workflow processing for work: {}", processWorkflowInfo);
-        // fetch the work object of the workflow updates
-        try {
+        // fetch the work object of the workflow updates, the entities resolved by the mappers are loaded once
+        try (LookupContext ignored = LookupContext.open()) {
             var workToProcessOptional = wrapCatch(() -> workRepository.findByDomainIdAndId(processWorkflowInfo.getDomainId(), processWorkflowInfo.getWorkId()), -1);
             if (workToProcessOptional.isEmpty()) {
                 log.error("Work with id {} not found", processWorkflowInfo.getWorkId());
@@ -53,29 +57,16 @@ public class ProcessingWorkflowUpdate {
             var workToProcess = workToProcessOptional.get();
             // we can proceed with the workflow update
             log.info("Processing workflow update for work: {}", workToProcess);
+            var trackedWork = workChangeTracker.track(workToProcess);
             // lastly we need to update the workflow
             workService.updateWorkWorkflow(workToProcess, null);
 
-            // save the work with all the automatic update on the workflow
-            workRepository.save(workToProcess);
+            // save only the automatic update on the workflow
+            workChangeTracker.save(trackedWork);
 
             // after this work is update we need to update all the
             // tree up to the ancestor
-            if (workToProcess.getParentWorkId() != null) {
-                // find parent work
-                var parentWork = wrapCatch(
-                        () -> workRepository.findByDomainIdAndId(workToProcess.getDomainId(), workToProcess.getParentWorkId()).orElseThrow(
-                                () -> WorkNotFound
-                                        .notFoundById()
-                                        .errorCode(-1)
-                                        .workId(workToProcess.getParentWorkId())
-                                        .build()
-                        ),
-                        -7
-                );
-                // try to find parent work type
-                workService.updateParentWorkWorkflow(parentWork);
-            }
+            workflowPropagationService.updateAncestorsWorkflow(workToProcess);
             acknowledgment.acknowledge();
         } catch (Exception e) {
             log.error("Error processing workflow update for work: {}", processWorkflowInfo, e);
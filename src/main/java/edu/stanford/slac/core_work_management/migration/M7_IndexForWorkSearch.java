@@ -0,0 +1,64 @@
+package edu.stanford.slac.core_work_management.migration;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.core_work_management.model.Work;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Create the compound indexes used by the work search, each one ends with the
+ * (createdDate, _id) tuple used for ordering and as cursor position
+ */
+@AllArgsConstructor
+@ChangeUnit(id = "init-work-search-index", order = "7", author = "bisegni")
+public class M7_IndexForWorkSearch {
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        createSearchIndex("work-search-created-date-index");
+        createSearchIndex("work-search-domain-index", "domainId");
+        createSearchIndex("work-search-domain-status-index", "domainId", "currentStatus.status");
+        createSearchIndex("work-search-work-type-index", "workType.id");
+        createSearchIndex("work-search-shop-group-index", "shopGroup.id");
+        createSearchIndex("work-search-location-index", "location.id");
+        createSearchIndex("work-search-assigned-to-index", "assignedTo");
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+
+    /**
+     * Create an index on the filter fields followed by the ordering ones
+     *
+     * @param name         the name of the index
+     * @param filterFields the fields used as filter
+     */
+    private void createSearchIndex(String name, String... filterFields) {
+        Index index = new Index();
+        for (String field : filterFields) {
+            index.on(field, Sort.Direction.ASC);
+        }
+        MongoDDLOps.createIndex(
+                Work.class,
+                mongoTemplate,
+                index
+                        .on(
+                                "createdDate",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "_id",
+                                Sort.Direction.ASC
+                        )
+                        .named(name)
+        );
+    }
+}
@@ -0,0 +1,83 @@
+package edu.stanford.slac.core_work_management.migration;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.core_work_management.model.ShopGroup;
+import edu.stanford.slac.core_work_management.model.ShopGroupMembership;
+import edu.stanford.slac.core_work_management.service.ShopGroupMembershipIndex;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Objects;
+
+/**
+ * Create the shop group membership collection, with his indexes, from the users of the stored shop groups
+ */
+@AllArgsConstructor
+@ChangeUnit(id = "init-shop-group-membership", order = "8", author = "bisegni")
+public class M8_InitShopGroupMembership {
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        MongoDDLOps.createIndex(
+                ShopGroupMembership.class,
+                mongoTemplate,
+                new Index()
+                        .on(
+                                "shopGroupId",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "userEmail",
+                                Sort.Direction.ASC
+                        )
+                        .unique()
+                        .named("shop-group-membership-unique-index")
+        );
+        MongoDDLOps.createIndex(
+                ShopGroupMembership.class,
+                mongoTemplate,
+                new Index()
+                        .on(
+                                "userEmail",
+                                Sort.Direction.ASC
+                        )
+                        .named("shop-group-membership-email-index")
+        );
+
+        // fill the membership from the existing shop groups
+        mongoTemplate.remove(new Query(), ShopGroupMembership.class);
+        mongoTemplate.findAll(ShopGroup.class).forEach(
+                shopGroup -> {
+                    if (shopGroup.getUsers() == null) return;
+                    var memberships = shopGroup.getUsers().stream()
+                            .filter(u -> u.getUser() != null)
+                            .map(u -> ShopGroupMembershipIndex.normalizeEmail(u.getUser().mail()))
+                            .filter(Objects::nonNull)
+                            .distinct()
+                            .map(
+                                    email -> ShopGroupMembership.builder()
+                                            .domainId(shopGroup.getDomainId())
+                                            .shopGroupId(shopGroup.getId())
+                                            .userEmail(email)
+                                            .build()
+                            )
+                            .toList();
+                    if (!memberships.isEmpty()) {
+                        mongoTemplate.insertAll(memberships);
+                    }
+                }
+        );
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+}
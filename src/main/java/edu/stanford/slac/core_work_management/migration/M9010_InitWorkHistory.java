@@ -0,0 +1,140 @@
+package edu.stanford.slac.core_work_management.migration;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.model.Notification;
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkBucketAssociation;
+import edu.stanford.slac.core_work_management.model.WorkHistoryEntry;
+import edu.stanford.slac.core_work_management.model.WorkHistoryType;
+import edu.stanford.slac.core_work_management.model.WorkStatusLog;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Create the index of the work history and move the embedded history of the existing works into it,
+ * on the works are kept only the most recent entries
+ */
+@Log4j2
+@AllArgsConstructor
+@ChangeUnit(id = "init-work-history", order = "9010", author = "bisegni")
+public class M9010_InitWorkHistory {
+    private static final int BATCH_SIZE = 500;
+    private final MongoTemplate mongoTemplate;
+    private final CWMAppProperties cwmAppProperties;
+
+    @Execution
+    public void changeSet() {
+        MongoDDLOps.createIndex(
+                WorkHistoryEntry.class,
+                mongoTemplate,
+                new Index()
+                        .on("workId", Sort.Direction.ASC)
+                        .on("domainId", Sort.Direction.ASC)
+                        .on("createdDate", Sort.Direction.DESC)
+                        .on("_id", Sort.Direction.DESC)
+                        .named("work-history-page-index")
+        );
+
+        int windowSize = Objects.requireNonNullElse(cwmAppProperties.getWorkHistoryWindowSize(), Integer.MAX_VALUE);
+        Query workQuery = new Query(
+                new Criteria().orOperator(
+                        Criteria.where("statusHistory.0").exists(true),
+                        Criteria.where("bucketAssociationsHistory.0").exists(true),
+                        Criteria.where("notificationsHistory.0").exists(true)
+                )
+        );
+        workQuery.fields().include("id", "domainId", "createdDate", "statusHistory", "bucketAssociationsHistory", "notificationsHistory");
+
+        List<WorkHistoryEntry> entries = new ArrayList<>();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Work.class);
+        int pending = 0;
+        int migratedWorks = 0;
+        try (var works = mongoTemplate.stream(workQuery, Work.class)) {
+            for (Work work : (Iterable<Work>) works::iterator) {
+                // the status history has the most recent status in front
+                List<WorkStatusLog> statusHistory = nonNull(work.getStatusHistory());
+                for (int idx = statusHistory.size() - 1; idx >= 0; idx--) {
+                    WorkStatusLog status = statusHistory.get(idx);
+                    entries.add(toEntry(work, WorkHistoryType.Status, status.getChanged_on()).status(status).build());
+                }
+                for (WorkBucketAssociation association : nonNull(work.getBucketAssociationsHistory())) {
+                    entries.add(toEntry(work, WorkHistoryType.BucketAssociation, association.getCreatedDate()).bucketAssociation(association).build());
+                }
+                for (Notification notification : nonNull(work.getNotificationsHistory())) {
+                    entries.add(toEntry(work, WorkHistoryType.Notification, notification.getChanged_on()).notification(notification).build());
+                }
+
+                // keep only the window on the work
+                bulkOperations.updateOne(
+                        new Query(Criteria.where("id").is(work.getId())),
+                        new Update()
+                                .set("statusHistory", statusHistory.subList(0, Math.min(windowSize, statusHistory.size())))
+                                .set("bucketAssociationsHistory", lastEntries(work.getBucketAssociationsHistory(), windowSize))
+                                .set("notificationsHistory", lastEntries(work.getNotificationsHistory(), windowSize))
+                );
+                migratedWorks++;
+                if (++pending == BATCH_SIZE) {
+                    flush(entries, bulkOperations);
+                    bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Work.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            flush(entries, bulkOperations);
+        }
+        log.info("History of {} works moved into the work history", migratedWorks);
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+
+    /**
+     * Write the history entries and then trim the works
+     *
+     * @param entries        the history entries to write, the list is cleared
+     * @param bulkOperations the updates of the works
+     */
+    private void flush(List<WorkHistoryEntry> entries, BulkOperations bulkOperations) {
+        if (!entries.isEmpty()) {
+            mongoTemplate.insert(entries, WorkHistoryEntry.class);
+            entries.clear();
+        }
+        bulkOperations.execute();
+    }
+
+    private static WorkHistoryEntry.WorkHistoryEntryBuilder toEntry(Work work, WorkHistoryType type, LocalDateTime date) {
+        return WorkHistoryEntry.builder()
+                .domainId(work.getDomainId())
+                .workId(work.getId())
+                .type(type)
+                .createdDate(date != null ? date : work.getCreatedDate());
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        return list != null ? list : List.of();
+    }
+
+    private static <T> List<T> lastEntries(List<T> list, int windowSize) {
+        List<T> history = nonNull(list);
+        return history.subList(Math.max(0, history.size() - windowSize), history.size());
+    }
+}
@@ -0,0 +1,54 @@
+package edu.stanford.slac.core_work_management.migration;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkStatusCounter;
+import edu.stanford.slac.core_work_management.service.WorkStatusCounterService;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Replace the work statistic index, that was created on a not existing field, with the one that cover the
+ * count of the works for each work type and status, and fill the work status counters
+ */
+@AllArgsConstructor
+@ChangeUnit(id = "init-work-status-counter", order = "9011", author = "bisegni")
+public class M9011_InitWorkStatusCounter {
+    private final MongoTemplate mongoTemplate;
+    private final WorkStatusCounterService workStatusCounterService;
+
+    @Execution
+    public void changeSet() {
+        var workIndexOps = mongoTemplate.indexOps(Work.class);
+        if (workIndexOps.getIndexInfo().stream().anyMatch(i -> i.getName().equals("work-type-status-statistic-index"))) {
+            workIndexOps.dropIndex("work-type-status-statistic-index");
+        }
+        MongoDDLOps.createIndex(
+                Work.class,
+                mongoTemplate,
+                new Index()
+                        .on("domainId", Sort.Direction.ASC)
+                        .on("workType.id", Sort.Direction.ASC)
+                        .on("currentStatus.status", Sort.Direction.ASC)
+                        .named("work-domain-type-status-statistic-index")
+        );
+        MongoDDLOps.createIndex(
+                WorkStatusCounter.class,
+                mongoTemplate,
+                new Index()
+                        .on("domainId", Sort.Direction.ASC)
+                        .named("work-status-counter-domain-index")
+        );
+        workStatusCounterService.reconcileAll();
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+}
@@ -0,0 +1,37 @@
+package edu.stanford.slac.core_work_management.migration;
+
+import edu.stanford.slac.core_work_management.model.Domain;
+import edu.stanford.slac.core_work_management.service.DomainService;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Remove the statistics embedded into the domains and compute them in their own collection
+ */
+@AllArgsConstructor
+@ChangeUnit(id = "move-domain-statistics", order = "9012", author = "bisegni")
+public class M9012_MoveDomainStatistics {
+    private final MongoTemplate mongoTemplate;
+    private final DomainService domainService;
+
+    @Execution
+    public void changeSet() {
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("workTypeStatusStatistics").exists(true)),
+                new Update().unset("workTypeStatusStatistics"),
+                Domain.class
+        );
+        mongoTemplate.findAll(Domain.class).forEach(domain -> domainService.updateDomainStatistics(domain.getId()));
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+}
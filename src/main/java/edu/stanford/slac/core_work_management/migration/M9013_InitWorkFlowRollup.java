@@ -0,0 +1,47 @@
+package edu.stanford.slac.core_work_management.migration;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.core_work_management.model.WorkFlowRollup;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Create the indexes used to read the work flow rollups of a domain in a time window
+ */
+@AllArgsConstructor
+@ChangeUnit(id = "init-work-flow-rollup", order = "9013", author = "bisegni")
+public class M9013_InitWorkFlowRollup {
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        MongoDDLOps.createIndex(
+                WorkFlowRollup.class,
+                mongoTemplate,
+                new Index()
+                        .on("domainId", Sort.Direction.ASC)
+                        .on("bucketStart", Sort.Direction.ASC)
+                        .named("work-flow-rollup-domain-bucket-index")
+        );
+        MongoDDLOps.createIndex(
+                WorkFlowRollup.class,
+                mongoTemplate,
+                new Index()
+                        .on("domainId", Sort.Direction.ASC)
+                        .on("workTypeId", Sort.Direction.ASC)
+                        .on("shopGroupId", Sort.Direction.ASC)
+                        .on("bucketStart", Sort.Direction.ASC)
+                        .named("work-flow-rollup-work-type-bucket-index")
+        );
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+}
@@ -0,0 +1,127 @@
+package edu.stanford.slac.core_work_management.migration;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.core_work_management.model.Work;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Create the indexes on the work ancestor path and fill the path of the sub works created before it was stored
+ */
+@Log4j2
+@AllArgsConstructor
+@ChangeUnit(id = "init-work-ancestor-path", order = "9", author = "bisegni")
+public class M9_InitWorkAncestorPath {
+    private static final int BATCH_SIZE = 500;
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        MongoDDLOps.createIndex(
+                Work.class,
+                mongoTemplate,
+                new Index()
+                        .on("domainId", Sort.Direction.ASC)
+                        .on("ancestorIds", Sort.Direction.ASC)
+                        .on("createdDate", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .named("work-ancestor-path-index")
+        );
+        MongoDDLOps.createIndex(
+                Work.class,
+                mongoTemplate,
+                new Index()
+                        .on("domainId", Sort.Direction.ASC)
+                        .on("ancestorIds", Sort.Direction.ASC)
+                        .on("currentStatus.status", Sort.Direction.ASC)
+                        .named("work-ancestor-path-status-index")
+        );
+
+        // load the parent of all the sub works
+        Query subWorkQuery = new Query(Criteria.where("parentWorkId").ne(null));
+        subWorkQuery.fields().include("id", "parentWorkId");
+        Map<String, String> parentById = new HashMap<>();
+        mongoTemplate.find(subWorkQuery, Work.class).forEach(w -> parentById.put(w.getId(), w.getParentWorkId()));
+
+        // write the path of each sub work
+        Map<String, List<String>> pathById = new HashMap<>();
+        BulkOperations bulkOperations = null;
+        int pending = 0;
+        for (String workId : parentById.keySet()) {
+            if (bulkOperations == null) {
+                bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Work.class);
+            }
+            bulkOperations.updateOne(
+                    new Query(Criteria.where("id").is(workId)),
+                    new Update().set("ancestorIds", getPath(workId, parentById, pathById))
+            );
+            if (++pending == BATCH_SIZE) {
+                bulkOperations.execute();
+                bulkOperations = null;
+                pending = 0;
+            }
+        }
+        if (bulkOperations != null) {
+            bulkOperations.execute();
+        }
+        log.info("Ancestor path stored for {} sub works", parentById.size());
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+
+    /**
+     * Return the path from the root to the parent of a work
+     *
+     * @param workId     the id of the work
+     * @param parentById the parent of each sub work
+     * @param pathById   the path already computed
+     * @return the ids of the ancestors from the root to the direct parent
+     */
+    private List<String> getPath(String workId, Map<String, String> parentById, Map<String, List<String>> pathById) {
+        List<String> cached = pathById.get(workId);
+        if (cached != null) return cached;
+        // walk up to the root, or to an ancestor with an already computed path
+        List<String> ancestors = new ArrayList<>();
+        List<String> knownPath = Collections.emptyList();
+        String current = parentById.get(workId);
+        while (current != null) {
+            List<String> currentPath = pathById.get(current);
+            if (currentPath != null) {
+                knownPath = currentPath;
+                ancestors.add(current);
+                break;
+            }
+            if (ancestors.contains(current) || current.equals(workId)) {
+                log.warn("The parent chain of the work {} contains a cycle", workId);
+                break;
+            }
+            ancestors.add(current);
+            current = parentById.get(current);
+        }
+        Collections.reverse(ancestors);
+        List<String> path = new ArrayList<>(knownPath.size() + ancestors.size());
+        path.addAll(knownPath);
+        path.addAll(ancestors);
+        pathById.put(workId, path);
+        return path;
+    }
+}
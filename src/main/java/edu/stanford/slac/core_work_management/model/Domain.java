@@ -8,8 +8,6 @@ import org.springframework.data.annotation.*;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 @Data
@@ -44,13 +42,6 @@ public class Domain implements Serializable {
      */
     private Set<Workflow> workflows;
 
-    /**
-     * The work type status statistics of the domain.
-     * this field contains the statistics of the work by work type id
-     * the key of the map is the work type id and the value is the list of the status statistics
-     */
-    private Map<String, List<WorkStatusCountStatistics>> workTypeStatusStatistics;
-
     /**
      * The date when the domain was created.
      * This field is annotated with @CreatedDate to indicate that it stores the date when the domain was created.
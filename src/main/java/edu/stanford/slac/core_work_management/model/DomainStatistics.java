@@ -0,0 +1,53 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : DomainStatistics
+ * ----------------------------------------------------------------------------
+ * File       : DomainStatistics.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The last computed statistics of a domain, kept apart from the domain so the domain is
+ * not rewritten at each refresh and its reads stay small
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DomainStatistics {
+    /**
+     * The id of the domain
+     */
+    @Id
+    private String id;
+    /**
+     * The statistics of the work by work type id
+     * the key of the map is the work type id and the value is the list of the status statistics
+     */
+    private Map<String, List<WorkStatusCountStatistics>> workTypeStatusStatistics;
+    /**
+     * The date when the statistics have been computed
+     */
+    private LocalDateTime refreshedDate;
+}
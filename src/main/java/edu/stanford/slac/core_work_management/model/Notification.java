@@ -1,11 +1,20 @@
 package edu.stanford.slac.core_work_management.model;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.time.LocalDateTime;
 
 /**
  * Define the notification
  * correlate the notification type and the destination
  */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class Notification {
     /**
      * The type of the notification
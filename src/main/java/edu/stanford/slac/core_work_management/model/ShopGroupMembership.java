@@ -0,0 +1,54 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : ShopGroupMembership
+ * ----------------------------------------------------------------------------
+ * File       : ShopGroupMembership.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+
+/**
+ * The membership of a user to a shop group, the email is stored normalized
+ * so the membership can be checked with an exact match on an index
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ShopGroupMembership {
+    @Id
+    private String id;
+    /**
+     * The domain id where the shop group belong to
+     */
+    private String domainId;
+    /**
+     * The id of the shop group
+     */
+    private String shopGroupId;
+    /**
+     * The normalized email of the user
+     */
+    private String userEmail;
+    @CreatedDate
+    private LocalDateTime createdDate;
+}
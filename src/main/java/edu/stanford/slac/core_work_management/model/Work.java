@@ -31,6 +31,11 @@ public class Work {
      * This field is used to identify the parent work of the current work.
      */
     private String parentWorkId;
+    /**
+     * The ids of the ancestors of the work, from the root of the tree to the direct parent.
+     * This field is used to load the whole ancestor chain of a sub work with a single query.
+     */
+    private List<String> ancestorIds;
     /**
      * The unique identifier for the domain.
      * This field is used to identify the domain to which the work belongs.
@@ -108,6 +113,10 @@ public class Work {
      */
     @Builder.Default
     private List<WorkStatusLog> statusHistory = new ArrayList<>();
+    /**
+     * The date when the work moved to in progress for the first time, it is the start of the cycle time
+     */
+    private LocalDateTime startedDate;
     /**
      * The date and time when the work was created.
      * This field is automatically populated with the date and time of creation, using @CreatedDate annotation.
@@ -0,0 +1,100 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkFlowRollup
+ * ----------------------------------------------------------------------------
+ * File       : WorkFlowRollup.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The workflow transitions of the works of a domain, work type and shop group that happened in a time bucket
+ * <p>
+ * the rollup is updated atomically with increments each time the works change status, its id is derived from the
+ * domain, the work type, the shop group and the start of the bucket so each bucket is a single document. The lead and
+ * cycle times of the works closed in the bucket are kept as histograms with exponential bins, so the size of the
+ * document does not depend on the number of the closed works and the histograms of many buckets can be merged.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkFlowRollup {
+    @Id
+    private String id;
+    /**
+     * The domain id where the works belong to
+     */
+    private String domainId;
+    /**
+     * The id of the work type of the works
+     */
+    private String workTypeId;
+    /**
+     * The id of the shop group of the works, null if the works have no shop group
+     */
+    private String shopGroupId;
+    /**
+     * The start of the time bucket
+     */
+    private LocalDateTime bucketStart;
+    /**
+     * The number of the works that entered each state
+     */
+    @Builder.Default
+    private Map<String, Long> enteredCount = new HashMap<>();
+    /**
+     * The number of the works that left each state
+     */
+    @Builder.Default
+    private Map<String, Long> exitedCount = new HashMap<>();
+    /**
+     * The number of the works that moved to in progress for the first time
+     */
+    @Builder.Default
+    private Long startedCount = 0L;
+    /**
+     * The number of the works closed for each bin of the lead time, from the creation to the close
+     */
+    @Builder.Default
+    private Map<String, Long> leadTimeHistogram = new HashMap<>();
+    /**
+     * The number of the works closed for each bin of the cycle time, from the first start to the close
+     */
+    @Builder.Default
+    private Map<String, Long> cycleTimeHistogram = new HashMap<>();
+
+    /**
+     * Return the id of the rollup
+     *
+     * @param domainId    the domain id
+     * @param workTypeId  the work type id
+     * @param shopGroupId the shop group id
+     * @param bucketStart the start of the bucket
+     * @return the id of the rollup
+     */
+    public static String idOf(String domainId, String workTypeId, String shopGroupId, LocalDateTime bucketStart) {
+        return "%s/%s/%s/%d".formatted(domainId, workTypeId, shopGroupId, bucketStart.toEpochSecond(ZoneOffset.UTC));
+    }
+}
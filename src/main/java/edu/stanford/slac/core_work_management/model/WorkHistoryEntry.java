@@ -0,0 +1,71 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkHistoryEntry
+ * ----------------------------------------------------------------------------
+ * File       : WorkHistoryEntry.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * An entry of the full history of a work
+ * <p>
+ * the work keeps embedded only the most recent entries of its history lists, every entry added to
+ * those lists is also appended here so the full history can be read page by page
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "work_history")
+public class WorkHistoryEntry {
+    @Id
+    private String id;
+    /**
+     * The domain id where the work belong to
+     */
+    private String domainId;
+    /**
+     * The id of the work
+     */
+    private String workId;
+    /**
+     * The kind of the entry
+     */
+    private WorkHistoryType type;
+    /**
+     * The previous status of the work, set for the {@link WorkHistoryType#Status} entries
+     */
+    private WorkStatusLog status;
+    /**
+     * The previous bucket association, set for the {@link WorkHistoryType#BucketAssociation} entries
+     */
+    private WorkBucketAssociation bucketAssociation;
+    /**
+     * The notification, set for the {@link WorkHistoryType#Notification} entries
+     */
+    private Notification notification;
+    /**
+     * The date when the entry has been added to the work
+     */
+    private LocalDateTime createdDate;
+}
@@ -0,0 +1,27 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkHistoryType
+ * ----------------------------------------------------------------------------
+ * File       : WorkHistoryType.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.model;
+
+/**
+ * The kind of the work history entry, it tells which of the embedded history lists the entry comes from
+ */
+public enum WorkHistoryType {
+    Status,
+    BucketAssociation,
+    Notification
+}
@@ -0,0 +1,29 @@
+package edu.stanford.slac.core_work_management.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Define the partial update of a stored work
+ * the update contains only the operations for the modified fields and is applied
+ * only if the stored work has still the version read before the modification
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class WorkPartialUpdate {
+    /**
+     * The id of the work to update
+     */
+    private String id;
+    /**
+     * The version of the work read before the modification
+     */
+    private Long version;
+    /**
+     * The operations to apply, it contains also the increment of the version
+     */
+    private Update update;
+}
@@ -17,19 +17,45 @@
 
 package edu.stanford.slac.core_work_management.model;
 
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Data
 @Builder
 @AllArgsConstructor
 @EqualsAndHashCode
 public class WorkQueryParameter {
     private String anchorID;
+    /**
+     * The created date of the cursor position, used together with the cursor id
+     */
+    private LocalDateTime cursorCreatedDate;
+    /**
+     * The id of the work at the cursor position
+     */
+    private String cursorId;
     private Integer contextSize;
     private Integer limit;
     private String search;
+    private List<String> domainIds;
+    private List<WorkflowState> statuses;
+    private List<String> workTypeIds;
+    private List<String> shopGroupIds;
+    private List<String> locationIds;
+    private List<String> assignedTo;
+    /**
+     * The ids of the works whose subtree contains the searched works
+     */
+    private List<String> ancestorIds;
+    /**
+     * The path of the work document to load, all the document is loaded when it is null or empty
+     */
+    private List<String> fields;
 }
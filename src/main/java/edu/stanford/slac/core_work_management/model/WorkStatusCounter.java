@@ -0,0 +1,68 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkStatusCounter
+ * ----------------------------------------------------------------------------
+ * File       : WorkStatusCounter.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.model;
+
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+/**
+ * The number of the works of a domain that are of a work type and are in a status
+ * <p>
+ * the counter is updated atomically when a work is created or changes status and is periodically rebuilt from the
+ * works, its id is derived from the domain, the work type and the status so each counter is a single document
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkStatusCounter {
+    @Id
+    private String id;
+    /**
+     * The domain id where the works belong to
+     */
+    private String domainId;
+    /**
+     * The id of the work type of the works
+     */
+    private String workTypeId;
+    /**
+     * The current status of the works
+     */
+    private WorkflowState status;
+    /**
+     * The number of the works
+     */
+    private Long count;
+
+    /**
+     * Return the id of the counter
+     *
+     * @param domainId   the domain id
+     * @param workTypeId the work type id
+     * @param status     the status
+     * @return the id of the counter
+     */
+    public static String idOf(String domainId, String workTypeId, WorkflowState status) {
+        return "%s/%s/%s".formatted(domainId, workTypeId, status);
+    }
+}
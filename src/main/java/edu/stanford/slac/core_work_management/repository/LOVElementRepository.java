@@ -20,6 +20,7 @@ package edu.stanford.slac.core_work_management.repository;
 import edu.stanford.slac.core_work_management.model.LOVElement;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface LOVElementRepository extends MongoRepository<LOVElement, String>, LOVElementRepositoryCustom {
@@ -39,6 +40,14 @@ public interface LOVElementRepository extends MongoRepository<LOVElement, String
      */
     List<LOVElement> findByFieldReferenceContains(String fieldReference);
 
+    /**
+     * Find all the LOV elements that are used by at least one of the field references
+     *
+     * @param fieldReferences the field references to search
+     * @return the list of LOV elements
+     */
+    List<LOVElement> findAllByFieldReferenceIn(Collection<String> fieldReferences);
+
     /**
      * Find all the LOV elements by group name
      *
@@ -0,0 +1,17 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.ShopGroupMembership;
+import lombok.NonNull;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface ShopGroupMembershipRepository extends MongoRepository<ShopGroupMembership, String> {
+    /**
+     * Find all the members of a shop group
+     *
+     * @param shopGroupId the id of the shop group
+     * @return the memberships of the shop group
+     */
+    List<ShopGroupMembership> findAllByShopGroupId(@NonNull String shopGroupId);
+}
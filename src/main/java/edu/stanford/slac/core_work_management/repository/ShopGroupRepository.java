@@ -17,13 +17,4 @@ public interface ShopGroupRepository extends MongoRepository<ShopGroup, String>{
      * @return true if the shop group exists
      */
     boolean existsByDomainIdAndId(@NonNull String domainId, @NonNull String shopGroupId);
-
-    /**
-     * Check if a specific shop group contains a user email
-     *
-     * @param shopGroupId the id of the shop group
-     * @param userIds the email of the user
-     * @return true if the shop group exists
-     */
-    boolean existsByDomainIdAndIdAndUsers_User_mail_ContainingIgnoreCase(@NonNull String domainId, @NonNull String shopGroupId, @NonNull String userIds);
 }
@@ -0,0 +1,28 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.WorkFlowRollup;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface WorkFlowRollupRepositoryCustom {
+    /**
+     * Add the deltas to the rollups with a single write, the missing rollups are created
+     *
+     * @param deltas the rollups where the counts are the values to add
+     */
+    void increment(Collection<WorkFlowRollup> deltas);
+
+    /**
+     * Find the rollups of a domain with the bucket in a time window
+     *
+     * @param domainId    the id of the domain
+     * @param workTypeId  the id of the work type, null for all the work types
+     * @param shopGroupId the id of the shop group, null for all the shop groups
+     * @param from        the start of the window, included
+     * @param to          the end of the window, excluded
+     * @return the rollups ordered by bucket
+     */
+    List<WorkFlowRollup> findAllInWindow(String domainId, String workTypeId, String shopGroupId, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,77 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.WorkFlowRollup;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@AllArgsConstructor
+public class WorkFlowRollupRepositoryImpl implements WorkFlowRollupRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void increment(Collection<WorkFlowRollup> deltas) {
+        if (deltas == null || deltas.isEmpty()) return;
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WorkFlowRollup.class);
+        deltas.forEach(
+                delta -> {
+                    Update update = new Update()
+                            .setOnInsert("domainId", delta.getDomainId())
+                            .setOnInsert("workTypeId", delta.getWorkTypeId())
+                            .setOnInsert("shopGroupId", delta.getShopGroupId())
+                            .setOnInsert("bucketStart", delta.getBucketStart());
+                    incAll(update, "enteredCount", delta.getEnteredCount());
+                    incAll(update, "exitedCount", delta.getExitedCount());
+                    if (delta.getStartedCount() != null && delta.getStartedCount() > 0) {
+                        update.inc("startedCount", delta.getStartedCount());
+                    }
+                    incAll(update, "leadTimeHistogram", delta.getLeadTimeHistogram());
+                    incAll(update, "cycleTimeHistogram", delta.getCycleTimeHistogram());
+                    bulkOperations.upsert(
+                            new Query(
+                                    Criteria.where("id").is(
+                                            WorkFlowRollup.idOf(delta.getDomainId(), delta.getWorkTypeId(), delta.getShopGroupId(), delta.getBucketStart())
+                                    )
+                            ),
+                            update
+                    );
+                }
+        );
+        bulkOperations.execute();
+    }
+
+    @Override
+    public List<WorkFlowRollup> findAllInWindow(String domainId, String workTypeId, String shopGroupId, LocalDateTime from, LocalDateTime to) {
+        Criteria criteria = Criteria.where("domainId").is(domainId);
+        if (workTypeId != null) criteria.and("workTypeId").is(workTypeId);
+        if (shopGroupId != null) criteria.and("shopGroupId").is(shopGroupId);
+        criteria.and("bucketStart").gte(from).lt(to);
+        return mongoTemplate.find(
+                new Query(criteria).with(Sort.by(Sort.Direction.ASC, "bucketStart")),
+                WorkFlowRollup.class
+        );
+    }
+
+    /**
+     * Add the increment of each entry of a map field
+     *
+     * @param update the update
+     * @param field  the name of the map field
+     * @param values the values to add for each key
+     */
+    private static void incAll(Update update, String field, Map<String, Long> values) {
+        if (values == null) return;
+        values.forEach((key, value) -> update.inc("%s.%s".formatted(field, key), value));
+    }
+}
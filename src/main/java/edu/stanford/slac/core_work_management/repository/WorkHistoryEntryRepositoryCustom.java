@@ -0,0 +1,18 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.WorkHistoryEntry;
+
+import java.util.List;
+
+public interface WorkHistoryEntryRepositoryCustom {
+    /**
+     * Find a page of the history of a work, from the most recent entry to the oldest one
+     *
+     * @param domainId the id of the domain
+     * @param workId   the id of the work
+     * @param anchorId the id of the last entry of the previous page, null to start from the most recent one
+     * @param limit    the max number of entries to return
+     * @return the entries of the page
+     */
+    List<WorkHistoryEntry> findPageByWorkId(String domainId, String workId, String anchorId, int limit);
+}
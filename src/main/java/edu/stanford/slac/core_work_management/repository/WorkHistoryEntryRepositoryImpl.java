@@ -0,0 +1,46 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.WorkHistoryEntry;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+
+@Repository
+@AllArgsConstructor
+public class WorkHistoryEntryRepositoryImpl implements WorkHistoryEntryRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Find a page of the history of a work
+     * <p>
+     * The entries are ordered by the (createdDate, id) tuple in descending order, the page start after the anchor
+     * so each page is a single bounded scan on the work history index.
+     */
+    @Override
+    public List<WorkHistoryEntry> findPageByWorkId(String domainId, String workId, String anchorId, int limit) {
+        Criteria criteria = Criteria.where("workId").is(workId).and("domainId").is(domainId);
+        if (anchorId != null) {
+            Query anchorQuery = new Query(Criteria.where("id").is(anchorId).and("workId").is(workId));
+            anchorQuery.fields().include("createdDate");
+            WorkHistoryEntry anchor = mongoTemplate.findOne(anchorQuery, WorkHistoryEntry.class);
+            if (anchor == null) return Collections.emptyList();
+            criteria = criteria.orOperator(
+                    Criteria.where("createdDate").lt(anchor.getCreatedDate()),
+                    new Criteria().andOperator(
+                            Criteria.where("createdDate").is(anchor.getCreatedDate()),
+                            Criteria.where("id").lt(anchor.getId())
+                    )
+            );
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdDate", "id"))
+                .limit(limit);
+        return mongoTemplate.find(query, WorkHistoryEntry.class);
+    }
+}
@@ -1,12 +1,13 @@
 package edu.stanford.slac.core_work_management.repository;
 
 import edu.stanford.slac.core_work_management.model.Work;
-import edu.stanford.slac.core_work_management.model.WorkTypeStatusStatistics;
+import edu.stanford.slac.core_work_management.model.WorkStatusCountStatistics;
 import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
 import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,24 +16,6 @@ import java.util.Optional;
  */
 @JaversSpringDataAuditable
 public interface WorkRepository extends MongoRepository<Work, String>, WorkRepositoryCustom {
-    @Aggregation(pipeline = {
-            "{ '$group': { '_id': { 'workTypeId': '$workTypeId', 'status': '$currentStatus.status' }, 'count': { '$sum': 1 } } }",
-            "{ '$group': { '_id':'$_id.workTypeId',  'status': { $addToSet: {status: '$_id.status', count: '$count'} } } }",
-            "{ '$addFields': { 'workTypeId': '$_id' } }",
-            "{ '$project': { '_id': 0, 'workTypeId': 1, 'status': 1 } }",
-            "{ '$sort': { 'workTypeId': 1 } }"
-    })
-    List<WorkTypeStatusStatistics> getWorkStatusStatistics();
-
-    @Aggregation(pipeline = {
-            "{ $match: { domainId:?0, workTypeId: { $exists: true }, 'currentStatus.status': { $exists: true } } }",
-            "{ '$group': { '_id': { 'workTypeId': '$workTypeId', 'status': '$currentStatus.status' }, 'count': { '$sum': 1 } } }",
-            "{ '$group': { '_id':'$_id.workTypeId',  'status': { $addToSet: {status: '$_id.status', count: '$count'} } } }",
-            "{ '$addFields': { 'workTypeId': '$_id' } }",
-            "{ '$project': { '_id': 0, 'workTypeId': 1, 'status': 1 } }",
-            "{ '$sort': { 'workTypeId': 1 } }"
-    })
-    List<WorkTypeStatusStatistics> getWorkStatisticsByDomainId(String domainId);
 
     /**
      * Find a work by domain id and id.
@@ -80,6 +63,30 @@ public interface WorkRepository extends MongoRepository<Work, String>, WorkRepos
      */
     List<Work> findByDomainIdAndParentWorkId(String domainId, String parentWorkId);
 
+    /**
+     * Find all works that are children of one of the parent work ids.
+     *
+     * @param domainId      the domain id
+     * @param parentWorkIds the parent work ids
+     * @return the list of works that are children of the parent work ids
+     */
+    List<Work> findByDomainIdAndParentWorkIdIn(String domainId, Collection<String> parentWorkIds);
+
+    /**
+     * The Statistic for the work status count of a subtree.
+     *
+     * @param domainId the domain id
+     * @param workId   the id of the root of the subtree
+     * @return the count of the descendants of the work for each status
+     */
+    @Aggregation(pipeline = {
+            "{ $match: { domainId: ?0, ancestorIds: ?1 } }",
+            "{ '$group': { '_id': '$currentStatus.status', 'count': { '$sum': 1 } } }",
+            "{ '$project': { '_id': 0, 'status': '$_id', 'count': 1 } }",
+            "{ '$sort': { 'status': 1 } }"
+    })
+    List<WorkStatusCountStatistics> getSubtreeStatusStatistics(String domainId, String workId);
+
     /**
      * Find all works that belong to the bucket
      *
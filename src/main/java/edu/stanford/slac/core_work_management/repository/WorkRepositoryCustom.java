@@ -19,10 +19,15 @@ package edu.stanford.slac.core_work_management.repository;
 
 import edu.stanford.slac.core_work_management.model.WATypeCustomField;
 import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkPartialUpdate;
 import edu.stanford.slac.core_work_management.model.WorkQueryParameter;
+import edu.stanford.slac.core_work_management.model.WorkStatusCounter;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface WorkRepositoryCustom {
 
@@ -34,6 +39,35 @@ public interface WorkRepositoryCustom {
      */
     List<Work> searchAll(WorkQueryParameter queryParameter);
 
+    /**
+     * Stream all the work that match the filters of the query parameter
+     * the works are read from a database cursor ordered by creation, the position and the
+     * limit of the query parameter are ignored. The stream need to be closed after use
+     *
+     * @param queryParameter the query parameter
+     * @return the stream of work
+     */
+    Stream<Work> streamAll(WorkQueryParameter queryParameter);
+
+    /**
+     * Find a work by id loading only some path of the document
+     *
+     * @param id     the id of the work
+     * @param fields the path to load, all the document is loaded when null or empty
+     * @return the found work
+     */
+    Optional<Work> findByIdWithFields(String id, Collection<String> fields);
+
+    /**
+     * Find a work of a domain by id loading only some path of the document
+     *
+     * @param domainId the id of the domain
+     * @param id       the id of the work
+     * @param fields   the path to load, all the document is loaded when null or empty
+     * @return the found work
+     */
+    Optional<Work> findByDomainIdAndIdWithFields(String domainId, String id, Collection<String> fields);
+
     /**
      * Return the next work id
      *
@@ -41,4 +75,33 @@ public interface WorkRepositoryCustom {
      */
     Long getNextWorkId();
 
+    /**
+     * Apply the partial updates of the works, all the updates are sent with a single write
+     * each update is applied only if the stored work has still the version read before the modification
+     *
+     * @param updates the updates to apply
+     * @return the number of the updated works
+     * @throws org.springframework.dao.OptimisticLockingFailureException if some work has been updated concurrently
+     */
+    long updateWithVersionCheck(Collection<WorkPartialUpdate> updates);
+
+    /**
+     * Count the works of a domain for each work type and status
+     * the aggregation is covered by the domain, work type and status index
+     *
+     * @param domainId the id of the domain
+     * @return the count for each work type and status
+     */
+    List<WorkStatusCounter> getWorkStatusCountByDomainId(String domainId);
+
+    /**
+     * Count the works of a domain that are in a status for each work type
+     *
+     * @param domainId    the id of the domain
+     * @param workTypeId  the id of the work type, null for all the work types
+     * @param shopGroupId the id of the shop group, null for all the shop groups
+     * @param status      the status of the works
+     * @return the count for each work type
+     */
+    List<WorkStatusCounter> getWorkStatusCount(String domainId, String workTypeId, String shopGroupId, WorkflowState status);
 }
@@ -17,16 +17,25 @@
 
 package edu.stanford.slac.core_work_management.repository;
 
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.core_work_management.model.Counter;
 import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkPartialUpdate;
 import edu.stanford.slac.core_work_management.model.WorkQueryParameter;
+import edu.stanford.slac.core_work_management.model.WorkStatusCounter;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.MongoTransactionException;
 import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.Fields;
 import org.springframework.data.mongodb.core.query.*;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
@@ -34,9 +43,12 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 @AllArgsConstructor
@@ -44,33 +56,70 @@ public class WorkRepositoryImpl implements WorkRepositoryCustom {
     private final MongoTemplate mongoTemplate;
     /**
      * Search all the work
+     * <p>
+     * The position of the search is given by the cursor, that already contains the created date and the id
+     * of the work to start from, or by the anchor id, whose created date is loaded with an additional query.
+     * The works are ordered by the (createdDate, id) tuple so each page is a single bounded scan
+     * on the compound indexes that start with the filtered fields and end with the ordering ones.
      * @param queryParameter the query parameter
      * @return the list of work
      */
     @Override
     public List<Work> searchAll(WorkQueryParameter queryParameter) {
+        boolean hasPosition = queryParameter.getCursorId() != null || queryParameter.getAnchorID() != null;
         if (
                 queryParameter.getContextSize() != null &&
                         queryParameter.getContextSize() >0 &&
-                        queryParameter.getAnchorID() == null
+                        !hasPosition
         ) {
             throw ControllerLogicException
                     .builder()
                     .errorCode(-1)
-                    .errorMessage("The context count cannot be used without the anchor")
+                    .errorMessage("The context count cannot be used without the anchor or the cursor")
                     .errorDomain("WorkRepositoryImpl::searchAll")
                     .build();
         }
 
-        // all the criteria
-        List<Criteria> allCriteria = new ArrayList<>();
-        LocalDateTime anchorCreatedDate = queryParameter.getAnchorID() != null?getAnchorCreatedDate(queryParameter.getAnchorID()):null;
-        List<Work> elementsBeforeAnchor = contextSearch(queryParameter, anchorCreatedDate, allCriteria);
-        List<Work> elementsAfterAnchor =  limitSearch(queryParameter, anchorCreatedDate, allCriteria);
+        // the position to start from
+        LocalDateTime positionCreatedDate = null;
+        String positionId = null;
+        if (queryParameter.getCursorId() != null) {
+            positionCreatedDate = queryParameter.getCursorCreatedDate();
+            positionId = queryParameter.getCursorId();
+        } else if (queryParameter.getAnchorID() != null) {
+            positionCreatedDate = getAnchorCreatedDate(queryParameter.getAnchorID());
+            positionId = queryParameter.getAnchorID();
+        }
+        List<Work> elementsBeforeAnchor = contextSearch(queryParameter, positionCreatedDate, positionId);
+        List<Work> elementsAfterAnchor =  limitSearch(queryParameter, positionCreatedDate, positionId);
         elementsBeforeAnchor.addAll(elementsAfterAnchor);
         return elementsBeforeAnchor;
     }
 
+    @Override
+    public Stream<Work> streamAll(WorkQueryParameter queryParameter) {
+        Query query = getFilteredQuery(queryParameter, null);
+        query.with(
+                Sort.by(
+                        Sort.Direction.ASC, "createdDate", "id")
+        );
+        return mongoTemplate.stream(query, Work.class);
+    }
+
+    @Override
+    public Optional<Work> findByIdWithFields(String id, Collection<String> fields) {
+        Query query = new Query(Criteria.where("id").is(id));
+        applyFields(query, fields);
+        return Optional.ofNullable(mongoTemplate.findOne(query, Work.class));
+    }
+
+    @Override
+    public Optional<Work> findByDomainIdAndIdWithFields(String domainId, String id, Collection<String> fields) {
+        Query query = new Query(Criteria.where("domainId").is(domainId).and("id").is(id));
+        applyFields(query, fields);
+        return Optional.ofNullable(mongoTemplate.findOne(query, Work.class));
+    }
+
     @Override
     @Retryable(
             value = {MongoTransactionException.class, UncategorizedMongoDbException.class},
@@ -90,6 +139,91 @@ public class WorkRepositoryImpl implements WorkRepositoryCustom {
         return Objects.requireNonNull(counter).getSequence();
     }
 
+    @Override
+    public long updateWithVersionCheck(Collection<WorkPartialUpdate> updates) {
+        if (updates == null || updates.isEmpty()) return 0;
+        long matched;
+        long modified;
+        if (updates.size() == 1) {
+            WorkPartialUpdate workUpdate = updates.iterator().next();
+            UpdateResult result = mongoTemplate.updateFirst(getVersionQuery(workUpdate), workUpdate.getUpdate(), Work.class);
+            matched = result.getMatchedCount();
+            modified = result.getModifiedCount();
+        } else {
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Work.class);
+            updates.forEach(workUpdate -> bulkOperations.updateOne(getVersionQuery(workUpdate), workUpdate.getUpdate()));
+            BulkWriteResult result = bulkOperations.execute();
+            matched = result.getMatchedCount();
+            modified = result.getModifiedCount();
+        }
+        if (matched != updates.size()) {
+            throw new OptimisticLockingFailureException(
+                    "%d of %d works have been modified concurrently".formatted(updates.size() - matched, updates.size())
+            );
+        }
+        return modified;
+    }
+
+    @Override
+    public List<WorkStatusCounter> getWorkStatusCountByDomainId(String domainId) {
+        // the typed aggregation maps the work type id to the stored field name
+        var aggregation = Aggregation.newAggregation(
+                Work.class,
+                Aggregation.match(
+                        Criteria.where("domainId").is(domainId)
+                                .and("workType.id").exists(true)
+                                .and("currentStatus.status").exists(true)
+                ),
+                Aggregation.group(
+                        Fields.from(
+                                Fields.field("workTypeId", "workType.id"),
+                                Fields.field("status", "currentStatus.status")
+                        )
+                ).count().as("count"),
+                Aggregation.project("workTypeId", "status", "count").andExclude("_id")
+        );
+        List<WorkStatusCounter> counters = mongoTemplate.aggregate(aggregation, WorkStatusCounter.class).getMappedResults();
+        counters.forEach(counter -> counter.setDomainId(domainId));
+        return counters;
+    }
+
+    @Override
+    public List<WorkStatusCounter> getWorkStatusCount(String domainId, String workTypeId, String shopGroupId, WorkflowState status) {
+        // the match follows the domain, work type and status index
+        Criteria criteria = Criteria.where("domainId").is(domainId);
+        if (workTypeId != null) {
+            criteria.and("workType.id").is(workTypeId);
+        } else {
+            criteria.and("workType.id").exists(true);
+        }
+        criteria.and("currentStatus.status").is(status);
+        if (shopGroupId != null) criteria.and("shopGroup.id").is(shopGroupId);
+        var aggregation = Aggregation.newAggregation(
+                Work.class,
+                Aggregation.match(criteria),
+                Aggregation.group(Fields.from(Fields.field("workTypeId", "workType.id"))).count().as("count"),
+                Aggregation.project("workTypeId", "count").andExclude("_id")
+        );
+        List<WorkStatusCounter> counters = mongoTemplate.aggregate(aggregation, WorkStatusCounter.class).getMappedResults();
+        counters.forEach(
+                counter -> {
+                    counter.setDomainId(domainId);
+                    counter.setStatus(status);
+                }
+        );
+        return counters;
+    }
+
+    /**
+     * Return the query that match a work only if it has still the version read before the modification
+     *
+     * @param workUpdate the update of the work
+     * @return the query
+     */
+    private Query getVersionQuery(WorkPartialUpdate workUpdate) {
+        return new Query(Criteria.where("id").is(workUpdate.getId()).and("version").is(workUpdate.getVersion()));
+    }
+
     /**
      * Get the query to search the work
      * @param anchorId the query parameter
@@ -117,36 +251,99 @@ public class WorkRepositoryImpl implements WorkRepositoryCustom {
         } else {
             query = new Query();
         }
+        applyFields(query, queryParameter.getFields());
+        return query;
+    }
+
+    /**
+     * Restrict the loaded document to the requested path
+     * a path contained into another requested one is skipped to avoid path collision
+     * @param query the query to update
+     * @param fields the path to load, nothing is done if null or empty
+     */
+    private static void applyFields(Query query, Collection<String> fields) {
+        if (fields == null || fields.isEmpty()) return;
+        fields.stream()
+                .filter(
+                        field -> fields.stream().noneMatch(
+                                other -> !other.equals(field) && field.startsWith(other + ".")
+                        )
+                )
+                .distinct()
+                .forEach(field -> query.fields().include(field));
+    }
+
+    /**
+     * Create the criteria for the filters of the query parameter
+     * @param queryParameter the query parameter
+     * @return the list of criteria, one for each used filter
+     */
+    private static List<Criteria> getFilterCriteria(WorkQueryParameter queryParameter) {
+        List<Criteria> filterCriteria = new ArrayList<>();
+        addInCriteria(filterCriteria, "domainId", queryParameter.getDomainIds());
+        addInCriteria(filterCriteria, "currentStatus.status", queryParameter.getStatuses());
+        addInCriteria(filterCriteria, "workType.id", queryParameter.getWorkTypeIds());
+        addInCriteria(filterCriteria, "shopGroup.id", queryParameter.getShopGroupIds());
+        addInCriteria(filterCriteria, "location.id", queryParameter.getLocationIds());
+        addInCriteria(filterCriteria, "assignedTo", queryParameter.getAssignedTo());
+        addInCriteria(filterCriteria, "ancestorIds", queryParameter.getAncestorIds());
+        return filterCriteria;
+    }
+
+    /**
+     * Add an in criteria for the field if there are values
+     * @param criteria the list of criteria to update
+     * @param field the field to filter
+     * @param values the values to match, nothing is done if null or empty
+     */
+    private static void addInCriteria(List<Criteria> criteria, String field, Collection<?> values) {
+        if (values == null || values.isEmpty()) return;
+        criteria.add(Criteria.where(field).in(values));
+    }
+
+    /**
+     * Create the query with the filters and the position criteria
+     * @param queryParameter the query parameter
+     * @param positionCriteria the criteria on the position, can be null
+     * @return the query
+     */
+    private static Query getFilteredQuery(WorkQueryParameter queryParameter, Criteria positionCriteria) {
+        Query query = getQuery(queryParameter);
+        List<Criteria> allCriteria = getFilterCriteria(queryParameter);
+        if (positionCriteria != null) {
+            allCriteria.add(positionCriteria);
+        }
+        if(!allCriteria.isEmpty()) {
+            query.addCriteria(
+                    new Criteria().andOperator(
+                            allCriteria
+                    )
+            );
+        }
         return query;
     }
 
     /**
      * Limit the search
      * @param queryParameter the query parameter
-     * @param anchorCreatedDate the anchor created date
-     * @param allCriteria the criteria
-     * @return the list of work
+     * @param positionCreatedDate the created date of the position
+     * @param positionId the id of the work at the position
+     * @return the list of work after the position
      */
-    private List<Work> limitSearch(WorkQueryParameter queryParameter, LocalDateTime anchorCreatedDate, List<Criteria> allCriteria) {
+    private List<Work> limitSearch(WorkQueryParameter queryParameter, LocalDateTime positionCreatedDate, String positionId) {
         List<Work> elementsAfterAnchor = new ArrayList<>();
         if (queryParameter.getLimit() != null && queryParameter.getLimit() > 0) {
-            Query query = getQuery(queryParameter);
-            if (anchorCreatedDate != null) {
-                allCriteria.add(
-                        Criteria.where("createdDate").gt(anchorCreatedDate)
-                );
-            }
-            if(!allCriteria.isEmpty()) {
-                query.addCriteria(
-                        new Criteria().andOperator(
-                                allCriteria
-                        )
+            Criteria positionCriteria = null;
+            if (positionCreatedDate != null) {
+                positionCriteria = new Criteria().orOperator(
+                        Criteria.where("createdDate").gt(positionCreatedDate),
+                        Criteria.where("createdDate").is(positionCreatedDate).and("id").gt(positionId)
                 );
             }
-
+            Query query = getFilteredQuery(queryParameter, positionCriteria);
             query.with(
                     Sort.by(
-                            Sort.Direction.ASC, "createdDate")
+                            Sort.Direction.ASC, "createdDate", "id")
             ).limit(queryParameter.getLimit());
             elementsAfterAnchor.addAll(
                     mongoTemplate.find(
@@ -161,33 +358,28 @@ public class WorkRepositoryImpl implements WorkRepositoryCustom {
     /**
      * Search the context
      * @param queryParameter the query parameter
-     * @param anchorCreatedDate the anchor created date
-     * @param allCriteria the criteria
-     * @return the list of work
+     * @param positionCreatedDate the created date of the position
+     * @param positionId the id of the work at the position
+     * @return the list of work before the position, position included
      */
-    private List<Work> contextSearch(WorkQueryParameter queryParameter, LocalDateTime anchorCreatedDate, List<Criteria> allCriteria) {
+    private List<Work> contextSearch(WorkQueryParameter queryParameter, LocalDateTime positionCreatedDate, String positionId) {
         List<Work> elementsBeforeAnchor = new ArrayList<>();
         if (
                 queryParameter.getContextSize() != null
                         && queryParameter.getContextSize() > 0
-                        && anchorCreatedDate != null
+                        && positionCreatedDate != null
         ) {
-            allCriteria.add(
-                    Criteria.where("createdDate").lte(anchorCreatedDate)
+            // at this point the position is not null
+            Query query = getFilteredQuery(
+                    queryParameter,
+                    new Criteria().orOperator(
+                            Criteria.where("createdDate").lt(positionCreatedDate),
+                            Criteria.where("createdDate").is(positionCreatedDate).and("id").lte(positionId)
+                    )
             );
-
-            // at this point the anchor id is not null
-            Query query = getQuery(queryParameter);
-            if(!allCriteria.isEmpty()) {
-                query.addCriteria(
-                        new Criteria().andOperator(
-                                allCriteria
-                        )
-                );
-            }
             query.with(
                     Sort.by(
-                            Sort.Direction.DESC, "createdDate")
+                            Sort.Direction.DESC, "createdDate", "id")
             ).limit(queryParameter.getContextSize());
             elementsBeforeAnchor.addAll(
                     mongoTemplate.find(
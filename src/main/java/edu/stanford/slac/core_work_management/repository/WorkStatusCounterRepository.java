@@ -0,0 +1,16 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.WorkStatusCounter;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface WorkStatusCounterRepository extends MongoRepository<WorkStatusCounter, String>, WorkStatusCounterRepositoryCustom {
+    /**
+     * Find all the counters of a domain
+     *
+     * @param domainId the id of the domain
+     * @return the counters of the domain
+     */
+    List<WorkStatusCounter> findAllByDomainId(String domainId);
+}
@@ -0,0 +1,14 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.WorkStatusCounter;
+
+import java.util.Collection;
+
+public interface WorkStatusCounterRepositoryCustom {
+    /**
+     * Add the deltas to the counters with a single write, the missing counters are created
+     *
+     * @param deltas the counters where the count is the value to add
+     */
+    void increment(Collection<WorkStatusCounter> deltas);
+}
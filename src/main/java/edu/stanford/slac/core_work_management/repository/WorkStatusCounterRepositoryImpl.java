@@ -0,0 +1,39 @@
+package edu.stanford.slac.core_work_management.repository;
+
+import edu.stanford.slac.core_work_management.model.WorkStatusCounter;
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+@AllArgsConstructor
+public class WorkStatusCounterRepositoryImpl implements WorkStatusCounterRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void increment(Collection<WorkStatusCounter> deltas) {
+        if (deltas == null || deltas.isEmpty()) return;
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WorkStatusCounter.class);
+        deltas.forEach(
+                delta -> bulkOperations.upsert(
+                        getCounterQuery(delta),
+                        new Update()
+                                .setOnInsert("domainId", delta.getDomainId())
+                                .setOnInsert("workTypeId", delta.getWorkTypeId())
+                                .setOnInsert("status", delta.getStatus())
+                                .inc("count", delta.getCount())
+                )
+        );
+        bulkOperations.execute();
+    }
+
+    private Query getCounterQuery(WorkStatusCounter counter) {
+        return new Query(Criteria.where("id").is(WorkStatusCounter.idOf(counter.getDomainId(), counter.getWorkTypeId(), counter.getStatus())));
+    }
+}
@@ -76,6 +76,8 @@ public class WorkTypeRepositoryImpl implements WorkTypeRepositoryCustom {
         Query query = new Query(
                 Criteria.where("_id").is(workTypeId).and("customFields.id").is(customFieldId)
         );
+        // return only the matched custom field
+        query.fields().position("customFields", 1);
         // Execute the query
         WorkType activityType = mongoTemplate.findOne(query, WorkType.class);
         if (activityType != null && activityType.getCustomFields() != null) {
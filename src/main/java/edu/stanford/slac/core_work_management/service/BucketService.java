@@ -21,6 +21,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
@@ -154,6 +156,23 @@ public class BucketService {
         );
     }
 
+    /**
+     * This method is used to find all the bucket slots identified by the ids using a single query
+     *
+     * @param ids the ids of the bucket slots
+     * @return the list of the found bucket slot DTO, the missing one are not reported
+     */
+    public List<BucketSlotDTO> findAllByIds(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) return Collections.emptyList();
+        return wrapCatch(
+                () -> bucketSlotRepository.findAllById(ids),
+                -1
+        )
+                .stream()
+                .map(bucketSlotMapper::toDTO)
+                .toList();
+    }
+
     /**
      * This method is used to update a bucket slot
      *
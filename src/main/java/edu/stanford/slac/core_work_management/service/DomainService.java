@@ -8,28 +8,27 @@ import edu.stanford.slac.core_work_management.exception.LOVGroupNameNotFound;
 import edu.stanford.slac.core_work_management.exception.WorkTypeNotFound;
 import edu.stanford.slac.core_work_management.exception.WorkflowNotFound;
 import edu.stanford.slac.core_work_management.model.Domain;
+import edu.stanford.slac.core_work_management.model.DomainStatistics;
 import edu.stanford.slac.core_work_management.model.WorkStatusCountStatistics;
 import edu.stanford.slac.core_work_management.model.WorkType;
-import edu.stanford.slac.core_work_management.model.WorkTypeStatusStatistics;
 import edu.stanford.slac.core_work_management.model.value.ValueType;
 import edu.stanford.slac.core_work_management.repository.DomainRepository;
+import edu.stanford.slac.core_work_management.repository.DomainStatisticsRepository;
 import edu.stanford.slac.core_work_management.repository.WorkRepository;
 import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
 import edu.stanford.slac.core_work_management.service.workflow.BaseWorkflow;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowRegistry;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.context.ApplicationContext;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Clock;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
@@ -39,7 +38,7 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 @Validated
 @AllArgsConstructor
 public class DomainService {
-    private final ApplicationContext applicationContext;
+    private final WorkflowRegistry workflowRegistry;
 
     private final DomainMapper domainMapper;
 
@@ -47,8 +46,9 @@ public class DomainService {
     private final WorkRepository workRepository;
     private final DomainRepository domainRepository;
     private final WorkTypeRepository workTypeRepository;
-
-    private final ConcurrentHashMap<String, Lock> locks = new ConcurrentHashMap<>();
+    private final WorkStatusCounterService workStatusCounterService;
+    private final DomainStatisticsRepository domainStatisticsRepository;
+    private final Clock clock;
 
     /**
      * Create a new domain
@@ -90,6 +90,61 @@ public class DomainService {
         );
     }
 
+    /**
+     * Find a domain by its id
+     *
+     * @param id             the id of the domain
+     * @param withStatistics if true the statistics of the domain are returned too
+     * @return the domain
+     */
+    public DomainDTO findById(String id, boolean withStatistics) {
+        DomainDTO domain = findById(id);
+        if (!withStatistics) return domain;
+        return domain.toBuilder().workTypeStatusStatistics(getDomainStatistics(id)).build();
+    }
+
+    /**
+     * Return the statistics of a domain
+     * the last refreshed statistics are returned, if the domain has not been refreshed yet they are read from the counters
+     *
+     * @param domainId the id of the domain
+     * @return the count of the works for each work type and status
+     */
+    public List<WorkTypeStatusStatisticsDTO> getDomainStatistics(String domainId) {
+        assertion(
+                DomainNotFound
+                        .notFoundById()
+                        .errorCode(-1)
+                        .id(domainId)
+                        .build(),
+                () -> domainRepository.existsById(domainId)
+        );
+        Map<String, List<WorkStatusCountStatistics>> statistics = wrapCatch(
+                () -> domainStatisticsRepository.findById(domainId)
+                        .map(DomainStatistics::getWorkTypeStatusStatistics)
+                        .orElseGet(() -> workStatusCounterService.getStatisticsByDomainId(domainId)),
+                -2
+        );
+        return domainMapper.map(statistics);
+    }
+
+    /**
+     * Find all the domains identified by the ids using a single query
+     *
+     * @param ids the ids of the domains
+     * @return the list of the found domains, the missing one are not reported
+     */
+    public List<DomainDTO> findAllByIds(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) return Collections.emptyList();
+        return wrapCatch(
+                () -> domainRepository.findAllById(ids)
+                        .stream()
+                        .map(domainMapper::toDTO)
+                        .toList(),
+                -1
+        );
+    }
+
     /**
      * Find all domains
      *
@@ -329,59 +384,37 @@ public class DomainService {
                                 .workflowId(workType.workflow().id())
                                 .build()
                 );
-        return (BaseWorkflow) applicationContext.getBean(workflow.implementation());
+        return workflowRegistry.getWorkflow(workflow.implementation());
     }
 
     /**
      * Update the domain statistics
+     * the works don't call it directly but mark the domain on the {@link DomainStatisticRefreshQueue}
+     * that serializes and coalesces the refreshes of each domain, the errors are thrown so the queue can retry the refresh
      *
      * @param domainId the id of the domain
      */
-    @Async("taskExecutor")
     public void updateDomainStatistics(@NotEmpty String domainId) {
         log.info("[statistic domainId {}] Updating domain statistics", domainId);
-        Optional<Domain> domain = domainRepository.findById(domainId);
-        if (domain.isEmpty()) {
+        if (!domainRepository.existsById(domainId)) {
             log.error("[statistic domainId {}] Domain with id not found", domainId);
             return;
         }
-        log.info("[statistic domainId {}] Acquiring lock for domain", domainId);
-        Lock lock = locks.computeIfAbsent(domainId, k -> new ReentrantLock());
-        lock.lock();
-        try {
-            log.info("[statistic domainId {}] Fetch statistic for domain", domainId);
-            var workStatistics = wrapCatch(
-                    () -> workRepository.getWorkStatisticsByDomainId(domainId),
-                    -1
-            );
-
-            log.info("[statistic domainId {}] Fetch work types", domainId);
-            List<String> workTypeIds = workTypeRepository.findAll().stream().map(WorkType::getId).toList();
-
-
-            // Check if the statistics are correct for each work type ID
-            Map<String, List<WorkStatusCountStatistics>> statMap = new ConcurrentHashMap<>();
-            log.info("[statistic domainId {}] Updating statistics for domain", domainId);
-            for (String workTypeId : workTypeIds) {
-                WorkTypeStatusStatistics stats = workStatistics.stream()
-                        .filter(stat -> stat.getWorkTypeId().equals(workTypeId))
-                        .findFirst()
-                        .orElse(null);
-                if (stats == null) {
-                    continue;
-                }
-
-                statMap.put(workTypeId, stats.getStatus());
-            }
-            domain.get().setWorkTypeStatusStatistics(statMap);
-            log.info("[statistic domainId {}] Saving domain statistics", domainId);
-            domainRepository.save(domain.get());
-        } catch (Throwable e) {
-            log.error("[statistic domainId {}] Error updating domain statistics for domain {}", domainId, e.getMessage());
-        } finally {
-            lock.unlock();
-            locks.remove(domainId);
-        }
+        log.info("[statistic domainId {}] Fetch statistic for domain", domainId);
+        // the counters are maintained on each work status change
+        Map<String, List<WorkStatusCountStatistics>> statMap = workStatusCounterService.getStatisticsByDomainId(domainId);
+        log.info("[statistic domainId {}] Saving domain statistics", domainId);
+        // the statistics are stored apart so the domain is not rewritten
+        wrapCatch(
+                () -> domainStatisticsRepository.save(
+                        DomainStatistics.builder()
+                                .id(domainId)
+                                .workTypeStatusStatistics(statMap)
+                                .refreshedDate(LocalDateTime.now(clock))
+                                .build()
+                ),
+                -1
+        );
         log.info("[statistic domainId {}] Domain statistics updated", domainId);
     }
 }
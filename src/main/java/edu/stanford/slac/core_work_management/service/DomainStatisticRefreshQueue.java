@@ -0,0 +1,99 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : DomainStatisticRefreshQueue
+ * ----------------------------------------------------------------------------
+ * File       : DomainStatisticRefreshQueue.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+
+/**
+ * Coalesce the refresh of the domain statistics.
+ * <p>
+ * The works only mark their domain as dirty in a cluster wide map, so a burst of creations or updates, as a bulk
+ * import is, leaves a single entry for the domain. The dirty domains are refreshed periodically, each one at most once
+ * per refresh window across the whole cluster: the node that processes a domain holds the lock of its entry, so the
+ * other nodes skip it, and the time of the last refresh is shared with the other nodes.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class DomainStatisticRefreshQueue {
+    public static final String DIRTY_DOMAIN_MAP = "cwm-domain-statistic-dirty";
+    public static final String LAST_REFRESH_MAP = "cwm-domain-statistic-last-refresh";
+    private final Clock clock;
+    private final HazelcastInstance hazelcastInstance;
+    private final CWMAppProperties cwmAppProperties;
+    private final DomainService domainService;
+
+    /**
+     * Mark the statistics of a domain as to refresh
+     *
+     * @param domainId the id of the domain
+     */
+    public void markDirty(String domainId) {
+        // keep the time of the first mark, the following ones are coalesced
+        getDirtyDomains().putIfAbsent(domainId, clock.millis());
+    }
+
+    /**
+     * Refresh the statistics of the dirty domains not refreshed during the last window
+     *
+     * @return the number of the refreshed domains
+     */
+    public int refreshDirtyDomains() {
+        IMap<String, Long> dirtyDomains = getDirtyDomains();
+        IMap<String, Long> lastRefresh = getLastRefresh();
+        long windowMillis = cwmAppProperties.getDomainStatisticRefreshWindow().toMillis();
+        int refreshed = 0;
+        for (String domainId : new ArrayList<>(dirtyDomains.keySet())) {
+            // another node is refreshing the domain, the lock is on the last refresh entry so the marks are not blocked
+            if (!lastRefresh.tryLock(domainId)) continue;
+            try {
+                long now = clock.millis();
+                Long lastRefreshMillis = lastRefresh.get(domainId);
+                if (lastRefreshMillis != null && now - lastRefreshMillis < windowMillis) continue;
+                // removed before the refresh so the changes made during it mark the domain again
+                if (dirtyDomains.remove(domainId) == null) continue;
+                lastRefresh.set(domainId, now);
+                domainService.updateDomainStatistics(domainId);
+                refreshed++;
+            } catch (Throwable e) {
+                // the mark has been removed, it is added again so the refresh is retried
+                markDirty(domainId);
+                log.error("[statistic domainId {}] Error refreshing the domain statistics", domainId, e);
+            } finally {
+                lastRefresh.unlock(domainId);
+            }
+        }
+        return refreshed;
+    }
+
+    private IMap<String, Long> getDirtyDomains() {
+        return hazelcastInstance.getMap(DIRTY_DOMAIN_MAP);
+    }
+
+    private IMap<String, Long> getLastRefresh() {
+        return hazelcastInstance.getMap(LAST_REFRESH_MAP);
+    }
+}
@@ -25,6 +25,7 @@ import edu.stanford.slac.core_work_management.model.LOVElement;
 import edu.stanford.slac.core_work_management.model.value.LOVField;
 import edu.stanford.slac.core_work_management.exception.LOVFieldReferenceNotFound;
 import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkType;
 import edu.stanford.slac.core_work_management.repository.LOVElementRepository;
 import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
 import jakarta.validation.Valid;
@@ -218,6 +219,47 @@ public class LOVService {
         ).map(lovMapper::toDTO);
     }
 
+    /**
+     * Find all the LOV elements identified by the ids
+     *
+     * @param ids the ids of the LOV elements
+     * @return the list of the found LOV elements, the missing one are not reported
+     */
+    public List<LOVElementDTO> findAllLovValueByIds(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) return Collections.emptyList();
+        return wrapCatch(
+                () -> lovElementRepository.findAllById(ids)
+                        .stream()
+                        .map(lovMapper::toDTO)
+                        .toList(),
+                -1
+        );
+    }
+
+    /**
+     * Find all the LOV elements for a set of field reference using a single query
+     *
+     * @param fieldReferences the field references
+     * @return the LOV elements grouped by each requested field reference
+     */
+    public Map<String, List<LOVElementDTO>> findAllByFieldReferences(Collection<String> fieldReferences) {
+        Map<String, List<LOVElementDTO>> result = new HashMap<>();
+        if (fieldReferences == null || fieldReferences.isEmpty()) return result;
+        fieldReferences.forEach(fieldReference -> result.put(fieldReference, new ArrayList<>()));
+        wrapCatch(
+                () -> lovElementRepository.findAllByFieldReferenceIn(fieldReferences),
+                -1
+        ).forEach(
+                lovElement -> {
+                    var lovElementDTO = lovMapper.toDTO(lovElement);
+                    lovElement.getFieldReference().stream()
+                            .filter(result::containsKey)
+                            .forEach(fieldReference -> result.get(fieldReference).add(lovElementDTO));
+                }
+        );
+        return result;
+    }
+
     /**
      * Find all the field that are LOV for a specific domain
      *
@@ -281,6 +323,18 @@ public class LOVService {
         };
     }
 
+    /**
+     * Return a full list of field/lov reference for a work of an already loaded work type
+     *
+     * @param workType the work type of the work
+     * @return the field reference of the LOV element
+     */
+    public HashMap<String, String> getLOVFieldReference(WorkType workType) {
+        var resultHash = getLOVFieldReference(LOVDomainTypeDTO.Work, null, null);
+        resultHash.putAll(getLOVFieldReferenceFromWorkType(workType));
+        return resultHash;
+    }
+
     /**
      * Return a full list of field/lov reference from work type
      *
@@ -288,23 +342,30 @@ public class LOVService {
      * @return the field reference of the LOV element
      */
     private Map<String, String> getLOVFieldReferenceFromWorkType(String domainId, String workTypeId) {
-        HashMap<String, String> result = new HashMap<>();
-        if (workTypeId == null) return result;
-        workTypeRepository
+        if (workTypeId == null) return new HashMap<>();
+        return workTypeRepository
                 .findByDomainIdAndId(domainId, workTypeId)
-                .ifPresent(
-                        wt -> {
-                            if (wt.getCustomFields() != null) {
-                                wt.getCustomFields().forEach(
-                                        customField -> {
-                                            if (customField.getLovFieldReference() != null) {
-                                                result.put(customField.getName(), customField.getLovFieldReference());
-                                            }
-                                        }
-                                );
-                            }
+                .map(this::getLOVFieldReferenceFromWorkType)
+                .orElseGet(HashMap::new);
+    }
+
+    /**
+     * Return a full list of field/lov reference from work type
+     *
+     * @param workType the work type
+     * @return the field reference of the LOV element
+     */
+    private Map<String, String> getLOVFieldReferenceFromWorkType(WorkType workType) {
+        HashMap<String, String> result = new HashMap<>();
+        if (workType.getCustomFields() != null) {
+            workType.getCustomFields().forEach(
+                    customField -> {
+                        if (customField.getLovFieldReference() != null) {
+                            result.put(customField.getName(), customField.getLovFieldReference());
                         }
-                );
+                    }
+            );
+        }
         return result;
     }
 
@@ -1,35 +1,136 @@
 package edu.stanford.slac.core_work_management.service;
 
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
-import edu.stanford.slac.core_work_management.utility.ResourceUtility;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
 import groovy.lang.GroovyClassLoader;
+import groovy.transform.CompileStatic;
+import groovy.transform.ThreadInterrupt;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.context.ApplicationContext;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Compile and execute groovy scripts.
+ * <p>
+ * Each script content is compiled in its own class loader and the compiled classes are kept in a
+ * bounded LRU cache. The class loaders are reference counted: the cache, each running execution and each
+ * returned instance hold a reference, so a class loader is closed, and its classes can be unloaded, only when
+ * the class has been evicted and no execution or instance is still using it.
+ * <p>
+ * The script contents are executed in a dedicated bounded pool, so a slow or looping script never blocks the caller
+ * thread; each execution has a timeout after which, as on cancellation, the script thread is interrupted.
+ * The scripts are compiled with the interrupt checks in the loops so they can be stopped.
+ */
+@Log4j2
 @Service
 @RequiredArgsConstructor
 public class ScriptService {
+    public static final int DEFAULT_SCRIPT_CACHE_SIZE = 128;
+    public static final int DEFAULT_SCRIPT_EXECUTOR_POOL_SIZE = 4;
+    public static final int DEFAULT_SCRIPT_EXECUTOR_QUEUE_CAPACITY = 100;
+    public static final Duration DEFAULT_SCRIPT_EXECUTION_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The compilation mode of a script
+     */
+    public enum CompilationMode {
+        /**
+         * Dynamic groovy, the method calls are dispatched at runtime
+         */
+        Dynamic,
+        /**
+         * The script is type checked and statically compiled as {@link CompileStatic}
+         */
+        Static
+    }
+
     private final ApplicationContext applicationContext;
-    private final GroovyClassLoader classLoader = new GroovyClassLoader();
-    private final Map<String, Class<?>> scriptCache = new ConcurrentHashMap<>();
+    private final CWMAppProperties cwmAppProperties;
+    private final MeterRegistry meterRegistry;
+    private Map<String, Class<?>> scriptCache;
+    private ThreadPoolExecutor scriptExecutor;
+    // the counters don't reference the class loaders, so a not released class loader can still be collected
+    private final Map<ClassLoader, AtomicInteger> classLoaderReferences = new WeakHashMap<>();
+    private final ClassValue<Map<String, MethodHandle>> methodHandles = new ClassValue<>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    @PostConstruct
+    public void init() {
+        int maxSize = cwmAppProperties.getScriptCacheSize() != null && cwmAppProperties.getScriptCacheSize() > 0 ?
+                cwmAppProperties.getScriptCacheSize() :
+                DEFAULT_SCRIPT_CACHE_SIZE;
+        scriptCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Class<?>> eldest) {
+                if (size() <= maxSize) return false;
+                // release only the reference of the cache, the running executions and the instances keep theirs
+                releaseClass(eldest.getValue());
+                return true;
+            }
+        };
+        meterRegistry.gauge("cwm_script_cache_size", scriptCache, m -> {
+            synchronized (m) {
+                return m.size();
+            }
+        });
+
+        int poolSize = positiveOrDefault(cwmAppProperties.getScriptExecutorPoolSize(), DEFAULT_SCRIPT_EXECUTOR_POOL_SIZE);
+        scriptExecutor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(positiveOrDefault(cwmAppProperties.getScriptExecutorQueueCapacity(), DEFAULT_SCRIPT_EXECUTOR_QUEUE_CAPACITY)),
+                Thread.ofPlatform().name("cwm-script-", 0).daemon().factory()
+        );
+        scriptExecutor.allowCoreThreadTimeOut(true);
+        meterRegistry.gauge("cwm_script_executor_queue_depth", scriptExecutor, e -> e.getQueue().size());
+        meterRegistry.gauge("cwm_script_executor_active", scriptExecutor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scriptExecutor.shutdownNow();
+    }
 
     /**
      * Execute a script content
+     * the script is executed in the script executor within the configured timeout
      * @param scriptContent the content of the script
      * @param interfaceClass the interface class
      * @param methodName method name
@@ -38,53 +139,71 @@ public class ScriptService {
      * @param <T> the type of the interface
      * @param <R> the type of the return value
      */
-    @Async("taskExecutor")
     public <T, R> CompletableFuture<R> executeScriptContent(String scriptContent, Class<T> interfaceClass, String methodName, Object... args){
-        try {
-            // Generate a unique key for the script using a hash of the script content
-            String scriptKey = hashScript(scriptContent);
-
-            // Check if the script has already been compiled and cached
-            Class<?> groovyClass = scriptCache.computeIfAbsent(scriptKey, key -> compileScript(scriptContent));
-
-            // Ensure the loaded class implements the provided interface
-            if (!interfaceClass.isAssignableFrom(groovyClass)) {
-                throw new IllegalArgumentException("The script does not implement the required interface: " + interfaceClass.getName());
-            }
-
-            // Create an instance of the Groovy class
-            T instance = (T) groovyClass.getDeclaredConstructor().newInstance();
-            // Autowire dependencies into the instance using Spring's AutowireCapableBeanFactory
-            AutowireCapableBeanFactory factory = applicationContext.getAutowireCapableBeanFactory();
-            factory.autowireBean(instance);  // Injects @Autowired dependencies into the script
-
-            // Use reflection to invoke the method dynamically
-            Method method = groovyClass.getMethod(methodName, getParameterTypes(args));
-            Object result = method.invoke(instance, args);
+        return executeScriptContent(scriptContent, getExecutionTimeout(), interfaceClass, methodName, args);
+    }
 
-            // Return the result as a CompletableFuture of the actual type
-            if (method.getReturnType() == Void.TYPE) {
-                return CompletableFuture.completedFuture(null);  // For void methods
-            } else {
-                return CompletableFuture.completedFuture((R) result);  // Return result for non-void methods
-            }
-        } catch (InvocationTargetException e) {
-            if (e.getTargetException() instanceof ControllerLogicException) {
-                throw (ControllerLogicException)e.getCause();// Throw the actual exception thrown by the script
-            } else {
-                throw ControllerLogicException.builder()
-                        .errorMessage("Failed to execute script: " + e.getTargetException().getMessage())
-                        .errorCode(-1)
-                        .errorDomain("ScriptService::executeScriptContent")
-                        .build();
-            }
-        } catch (Exception e) {
-            throw ControllerLogicException.builder()
-                    .errorMessage("Failed to execute script: " + e.getMessage())
-                    .errorCode(-2)
-                    .errorDomain("ScriptService::executeScriptContent")
-                    .build();
+    /**
+     * Execute a script content
+     * the script is executed in the script executor, when the timeout expires or the returned future is cancelled
+     * the execution is interrupted and the future fails
+     * @param scriptContent the content of the script
+     * @param timeout the maximum execution time
+     * @param interfaceClass the interface class
+     * @param methodName method name
+     * @param args method arguments
+     * @return the result of the script
+     * @param <T> the type of the interface
+     * @param <R> the type of the return value
+     */
+    public <T, R> CompletableFuture<R> executeScriptContent(String scriptContent, Duration timeout, Class<T> interfaceClass, String methodName, Object... args){
+        CompletableFuture<R> result = new CompletableFuture<>();
+        Future<?> execution;
+        try {
+            execution = scriptExecutor.submit(
+                    () -> {
+                        try {
+                            result.complete(invokeScript(scriptContent, interfaceClass, methodName, args));
+                        } catch (Throwable e) {
+                            result.completeExceptionally(e);
+                        }
+                    }
+            );
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(
+                    ControllerLogicException.builder()
+                            .errorMessage("Too many scripts in execution, retry later")
+                            .errorCode(-3)
+                            .errorDomain("ScriptService::executeScriptContent")
+                            .build()
+            );
+            return result;
         }
+        // on timeout the future fails, the timer is cancelled as soon as the execution completes so no task is left
+        // in the scheduler, the thread of a cancelled or timed out script is interrupted
+        CompletableFuture<Void> timer = new CompletableFuture<Void>().orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        timer.whenComplete(
+                (r, e) -> {
+                    if (e instanceof TimeoutException) {
+                        result.completeExceptionally(
+                                ControllerLogicException.builder()
+                                        .errorMessage("Script execution timed out after %s".formatted(timeout))
+                                        .errorCode(-4)
+                                        .errorDomain("ScriptService::executeScriptContent")
+                                        .build()
+                        );
+                    }
+                }
+        );
+        result.whenComplete(
+                (r, e) -> {
+                    timer.cancel(false);
+                    if (e != null && !execution.isDone()) {
+                        execution.cancel(true);
+                    }
+                }
+        );
+        return result;
     }
 
     /**
@@ -97,7 +216,6 @@ public class ScriptService {
      * @param <R> the type of the return value
      * @return the result of the script
      */
-    @Async("taskExecutor")
     public <T, R> CompletableFuture<R> executeScriptFile(String scriptFileName, Class<T> interfaceClass, String methodName, Object... args) {
         try {
             InputStream inputStream = getClass().getClassLoader().getResourceAsStream(scriptFileName);
@@ -113,19 +231,22 @@ public class ScriptService {
 
     /**
      * Get an interface implementation from a script content
+     * the returned instance holds a reference to its class, that has to be released with {@link #releaseClass(Class)}
+     * when the instance is no more used
      * @param scriptContent the content of the script
      * @return the interface implementation
      * @param <T> the type of the interface
      */
     public <T> T getInterfaceImplementation(String scriptContent, Class<T> expectedType) {
         T instance = null;
+        Class<?> groovyClass = null;
         try {
             AutowireCapableBeanFactory factory = applicationContext.getAutowireCapableBeanFactory();
             // Generate a unique key for the script using a hash of the script content
             String scriptKey = hashScript(scriptContent);
 
             // Check if the script has already been compiled and cached
-            Class<?> groovyClass = scriptCache.computeIfAbsent(scriptKey, key -> compileScript(scriptContent));
+            groovyClass = getOrCompile(scriptKey, scriptContent);
             if (!expectedType.isAssignableFrom(groovyClass)) {
                 throw ControllerLogicException
                         .builder()
@@ -138,6 +259,7 @@ public class ScriptService {
             // noinspection unchecked
             instance = (T) factory.createBean(groovyClass);  // Create a new instance of the script
         } catch (Exception e) {
+            releaseClass(groovyClass);
             throw ControllerLogicException.builder()
                     .errorMessage("Failed to create script instances: " + e.getMessage())
                     .errorCode(-2)
@@ -180,12 +302,218 @@ public class ScriptService {
         }
     }
 
-    // Helper method to compile the script
-    private Class<?> compileScript(String scriptText) {
+    /**
+     * Create the script instance and invoke the method
+     * the method handle is resolved only the first time for each script class, method and argument types
+     * @param scriptContent the content of the script
+     * @param interfaceClass the interface class
+     * @param methodName method name
+     * @param args method arguments
+     * @return the result of the method, null for void methods
+     * @param <T> the type of the interface
+     * @param <R> the type of the return value
+     */
+    private <T, R> R invokeScript(String scriptContent, Class<T> interfaceClass, String methodName, Object... args) {
+        Class<?> groovyClass = null;
         try {
-            return classLoader.parseClass(scriptText);
+            // Check if the script has already been compiled and cached
+            groovyClass = getOrCompile(hashScript(scriptContent), scriptContent);
+            Class<?> scriptClass = groovyClass;
+
+            // Ensure the loaded class implements the provided interface
+            if (!interfaceClass.isAssignableFrom(groovyClass)) {
+                throw new IllegalArgumentException("The script does not implement the required interface: " + interfaceClass.getName());
+            }
+
+            // Create an instance of the Groovy class
+            Object instance = groovyClass.getDeclaredConstructor().newInstance();
+            // Autowire dependencies into the instance using Spring's AutowireCapableBeanFactory
+            AutowireCapableBeanFactory factory = applicationContext.getAutowireCapableBeanFactory();
+            factory.autowireBean(instance);  // Injects @Autowired dependencies into the script
+
+            Class<?>[] parameterTypes = getParameterTypes(args);
+            MethodHandle methodHandle = methodHandles.get(groovyClass).computeIfAbsent(
+                    getMethodKey(methodName, parameterTypes),
+                    key -> lookupMethod(scriptClass, methodName, parameterTypes)
+            );
+            //noinspection unchecked
+            return (R) (Object) methodHandle.invokeExact(instance, args != null ? args : new Object[0]);
+        } catch (ControllerLogicException e) {
+            // Throw the actual exception thrown by the script
+            throw e;
+        } catch (Throwable e) {
+            throw ControllerLogicException.builder()
+                    .errorMessage("Failed to execute script: " + e.getMessage())
+                    .errorCode(-1)
+                    .errorDomain("ScriptService::executeScriptContent")
+                    .build();
+        } finally {
+            releaseClass(groovyClass);
+        }
+    }
+
+    /**
+     * Find a public method of the script and adapt it to receive the instance and the arguments array
+     * @param groovyClass the script class
+     * @param methodName the method name
+     * @param parameterTypes the types of the arguments
+     * @return the method handle
+     */
+    private MethodHandle lookupMethod(Class<?> groovyClass, String methodName, Class<?>[] parameterTypes) {
+        try {
+            MethodHandle methodHandle = MethodHandles.publicLookup().unreflect(groovyClass.getMethod(methodName, parameterTypes));
+            return methodHandle
+                    .asSpreader(1, Object[].class, parameterTypes.length)
+                    .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Method %s not found in the script: %s".formatted(methodName, e.getMessage()), e);
+        }
+    }
+
+    // Helper method to generate the key of a method handle
+    private static String getMethodKey(String methodName, Class<?>[] parameterTypes) {
+        StringBuilder key = new StringBuilder(methodName).append('(');
+        for (Class<?> parameterType : parameterTypes) {
+            key.append(parameterType.getName()).append(';');
+        }
+        return key.append(')').toString();
+    }
+
+    /**
+     * Compile a script in a new class loader child of the application class loader
+     * the returned class holds a reference to its class loader, that has to be released with {@link #releaseClass(Class)}
+     *
+     * @param scriptText the content of the script
+     * @param scriptName the name of the script
+     * @return the compiled class
+     */
+    public Class<?> compileScript(String scriptText, String scriptName) {
+        return compileScript(scriptText, scriptName, CompilationMode.Dynamic);
+    }
+
+    /**
+     * Compile a script in a new class loader child of the application class loader
+     * the returned class holds a reference to its class loader, that has to be released with {@link #releaseClass(Class)}
+     *
+     * @param scriptText      the content of the script
+     * @param scriptName      the name of the script
+     * @param compilationMode the compilation mode
+     * @return the compiled class
+     */
+    public Class<?> compileScript(String scriptText, String scriptName, CompilationMode compilationMode) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "success";
+        GroovyClassLoader scriptClassLoader = new GroovyClassLoader(getClass().getClassLoader(), getCompilerConfiguration(compilationMode));
+        try {
+            Class<?> compiled = scriptName != null ? scriptClassLoader.parseClass(scriptText, scriptName) : scriptClassLoader.parseClass(scriptText);
+            synchronized (classLoaderReferences) {
+                classLoaderReferences.put(scriptClassLoader, new AtomicInteger(1));
+            }
+            return compiled;
         } catch (Exception e) {
+            result = "failed";
+            releaseClassLoader(scriptClassLoader);
             throw new RuntimeException("Failed to compile script: " + e.getMessage(), e);
+        } finally {
+            sample.stop(meterRegistry.timer("cwm_script_compile", "result", result, "mode", compilationMode.name()));
+        }
+    }
+
+    /**
+     * Return the compiler configuration for a compilation mode
+     *
+     * @param compilationMode the compilation mode
+     * @return the compiler configuration
+     */
+    public static CompilerConfiguration getCompilerConfiguration(CompilationMode compilationMode) {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        // check the interruption of the thread in the loops and in the method calls
+        configuration.addCompilationCustomizers(new ASTTransformationCustomizer(ThreadInterrupt.class));
+        if (compilationMode == CompilationMode.Static) {
+            // static compilation implies the static type checking
+            configuration.addCompilationCustomizers(new ASTTransformationCustomizer(CompileStatic.class));
+        }
+        return configuration;
+    }
+
+    /**
+     * Add a reference to the class loader of a compiled script
+     * the class loader is kept open until all its references are released
+     *
+     * @param scriptClass the compiled class
+     */
+    public void retainClass(Class<?> scriptClass) {
+        if (scriptClass == null) return;
+        synchronized (classLoaderReferences) {
+            AtomicInteger references = classLoaderReferences.get(scriptClass.getClassLoader());
+            if (references == null || references.get() <= 0) {
+                throw new IllegalStateException("The class loader of %s has already been released".formatted(scriptClass.getName()));
+            }
+            references.incrementAndGet();
+        }
+    }
+
+    /**
+     * Release a reference to the class loader of a compiled script
+     * the class loader is closed when its last reference is released
+     *
+     * @param scriptClass the compiled class
+     */
+    public void releaseClass(Class<?> scriptClass) {
+        if (scriptClass == null || !(scriptClass.getClassLoader() instanceof GroovyClassLoader gcl)) return;
+        synchronized (classLoaderReferences) {
+            AtomicInteger references = classLoaderReferences.get(gcl);
+            if (references == null || references.decrementAndGet() > 0) return;
+            classLoaderReferences.remove(gcl);
+        }
+        releaseClassLoader(gcl);
+    }
+
+    /**
+     * Return the number of the references to the class loader of a compiled script
+     *
+     * @param scriptClass the compiled class
+     * @return the number of the references, zero if the class loader has been released
+     */
+    int getClassReferences(Class<?> scriptClass) {
+        synchronized (classLoaderReferences) {
+            AtomicInteger references = classLoaderReferences.get(scriptClass.getClassLoader());
+            return references != null ? references.get() : 0;
+        }
+    }
+
+    // Helper method to return the cached class, or compile it, with a reference for the caller
+    private Class<?> getOrCompile(String scriptKey, String scriptText) {
+        synchronized (scriptCache) {
+            Class<?> groovyClass = scriptCache.get(scriptKey);
+            if (groovyClass != null) {
+                // retained under the cache lock so an eviction can't close the class loader in the meantime
+                retainClass(groovyClass);
+                return groovyClass;
+            }
+        }
+        Class<?> compiled = compileScript(scriptText, null);
+        synchronized (scriptCache) {
+            // another thread can have compiled the same script in the meantime
+            Class<?> groovyClass = scriptCache.putIfAbsent(scriptKey, compiled);
+            if (groovyClass == null) {
+                // the reference of the cache, the one from the compilation is of the caller
+                retainClass(compiled);
+                return compiled;
+            }
+            retainClass(groovyClass);
+            releaseClass(compiled);
+            return groovyClass;
+        }
+    }
+
+    // Helper method to drop the groovy meta classes and close the class loader
+    private void releaseClassLoader(GroovyClassLoader scriptClassLoader) {
+        try {
+            scriptClassLoader.clearCache();
+            scriptClassLoader.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the script class loader: {}", e.getMessage());
         }
     }
 
@@ -204,6 +532,15 @@ public class ScriptService {
         }
     }
 
+    private Duration getExecutionTimeout() {
+        Duration timeout = cwmAppProperties.getScriptExecutionTimeout();
+        return timeout == null || timeout.isNegative() || timeout.isZero() ? DEFAULT_SCRIPT_EXECUTION_TIMEOUT : timeout;
+    }
+
+    private static int positiveOrDefault(Integer value, int defaultValue) {
+        return value != null && value > 0 ? value : defaultValue;
+    }
+
     // Helper method to extract parameter types
     private Class<?>[] getParameterTypes(Object[] args) {
         return args != null ?
@@ -0,0 +1,298 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : ShopGroupMembershipIndex
+ * ----------------------------------------------------------------------------
+ * File       : ShopGroupMembershipIndex.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import edu.stanford.slac.core_work_management.model.ShopGroupMembership;
+import edu.stanford.slac.core_work_management.repository.ShopGroupMembershipRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * In memory index of the shop group members.
+ * <p>
+ * The memberships are persisted in their own collection, with an unique index on shop group and normalized email,
+ * and kept in memory as a map from the normalized email to the ids of the shop groups, so each membership check
+ * is a map lookup. The index is loaded at the first use and is updated each time the members of a shop group are
+ * replaced, the change is published to the other nodes that reload the members of the changed shop group.
+ * The topic doesn't guarantee the delivery, so the whole index is also reloaded periodically and a lost change
+ * is applied at the latest on the next reload.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class ShopGroupMembershipIndex {
+    public static final String MEMBERSHIP_CHANGE_TOPIC = "cwm-shop-group-membership-change";
+    private final ShopGroupMembershipRepository shopGroupMembershipRepository;
+    private final HazelcastInstance hazelcastInstance;
+    private volatile Index index = null;
+    private UUID listenerId;
+
+    @PostConstruct
+    public void init() {
+        listenerId = getTopic().addMessageListener(
+                message -> {
+                    if (message.getPublishingMember() != null && message.getPublishingMember().localMember()) return;
+                    reloadShopGroup(message.getMessageObject());
+                }
+        );
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (listenerId != null) {
+            getTopic().removeMessageListener(listenerId);
+        }
+    }
+
+    /**
+     * Normalize an email for the membership lookup
+     *
+     * @param email the email
+     * @return the normalized email
+     */
+    public static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) return null;
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Check if a user is a member of a shop group
+     *
+     * @param domainId    the id of the domain of the shop group
+     * @param shopGroupId the id of the shop group
+     * @param userEmail   the email of the user
+     * @return true if the user is a member of the shop group
+     */
+    public boolean isMember(String domainId, String shopGroupId, String userEmail) {
+        Index current = getIndex();
+        String email = normalizeEmail(userEmail);
+        if (email == null || shopGroupId == null) return false;
+        return Objects.equals(current.domainByShopGroup.get(shopGroupId), domainId) &&
+                current.shopGroupsByEmail.getOrDefault(email, Set.of()).contains(shopGroupId);
+    }
+
+    /**
+     * Return the ids of the shop groups of a domain, within a set of ids, that contain a user
+     *
+     * @param domainId     the id of the domain of the shop groups
+     * @param shopGroupIds the ids of the shop groups
+     * @param userEmail    the email of the user
+     * @return the ids of the shop groups that contain the user
+     */
+    public Set<String> findMemberOf(String domainId, Collection<String> shopGroupIds, String userEmail) {
+        Index current = getIndex();
+        String email = normalizeEmail(userEmail);
+        if (email == null || shopGroupIds == null || shopGroupIds.isEmpty()) return Set.of();
+        Set<String> memberOf = current.shopGroupsByEmail.getOrDefault(email, Set.of());
+        return shopGroupIds.stream()
+                .filter(shopGroupId -> memberOf.contains(shopGroupId) && Objects.equals(current.domainByShopGroup.get(shopGroupId), domainId))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Replace the members of a shop group, the change is persisted and published to the other nodes
+     * <p>
+     * only the difference with the stored members is written, the new members are inserted before the removed ones
+     * are deleted, so a failure never leaves the shop group without its persisted members
+     *
+     * @param domainId    the id of the domain of the shop group
+     * @param shopGroupId the id of the shop group
+     * @param userEmails  the emails of the members
+     */
+    public void replaceMembers(String domainId, String shopGroupId, Collection<String> userEmails) {
+        Set<String> emails = userEmails == null ? Set.of() : userEmails.stream()
+                .map(ShopGroupMembershipIndex::normalizeEmail)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        List<ShopGroupMembership> stored = wrapCatch(
+                () -> shopGroupMembershipRepository.findAllByShopGroupId(shopGroupId),
+                -1
+        );
+        Set<String> storedEmails = stored.stream().map(ShopGroupMembership::getUserEmail).collect(Collectors.toSet());
+        List<ShopGroupMembership> added = emails.stream()
+                .filter(email -> !storedEmails.contains(email))
+                .map(
+                        email -> ShopGroupMembership.builder()
+                                .domainId(domainId)
+                                .shopGroupId(shopGroupId)
+                                .userEmail(email)
+                                .build()
+                )
+                .toList();
+        List<String> removedIds = stored.stream()
+                .filter(membership -> !emails.contains(membership.getUserEmail()))
+                .map(ShopGroupMembership::getId)
+                .toList();
+        if (added.isEmpty() && removedIds.isEmpty()) return;
+
+        if (!added.isEmpty()) {
+            wrapCatch(
+                    () -> shopGroupMembershipRepository.saveAll(added),
+                    -2
+            );
+        }
+        if (!removedIds.isEmpty()) {
+            wrapCatch(
+                    () -> {
+                        shopGroupMembershipRepository.deleteAllById(removedIds);
+                        return null;
+                    },
+                    -3
+            );
+        }
+        // the local index is updated only when already loaded, the other nodes reload the shop group from the database
+        updateIndex(shopGroupId, domainId, emails);
+        getTopic().publish(shopGroupId);
+    }
+
+    /**
+     * Reload the whole index from the database, if it has already been loaded
+     * the reload is done under the lock of the updates, so a local update is not overwritten by older data
+     */
+    public synchronized void reloadAll() {
+        if (index == null) return;
+        index = loadIndex();
+        log.info("Shop group membership index reloaded with {} users", index.shopGroupsByEmail.size());
+    }
+
+    /**
+     * Reload the members of a shop group from the database
+     *
+     * @param shopGroupId the id of the shop group
+     */
+    private void reloadShopGroup(String shopGroupId) {
+        List<ShopGroupMembership> memberships = wrapCatch(
+                () -> shopGroupMembershipRepository.findAllByShopGroupId(shopGroupId),
+                -1
+        );
+        updateIndex(
+                shopGroupId,
+                memberships.isEmpty() ? null : memberships.getFirst().getDomainId(),
+                memberships.stream().map(ShopGroupMembership::getUserEmail).collect(Collectors.toSet())
+        );
+        log.debug("Reloaded {} members for shop group {}", memberships.size(), shopGroupId);
+    }
+
+    /**
+     * Replace the members of a shop group in the in memory index
+     * the index is copied on write, so the readers never see a partial update
+     *
+     * @param shopGroupId the id of the shop group
+     * @param domainId    the id of the domain of the shop group
+     * @param emails      the normalized emails of the members
+     */
+    private synchronized void updateIndex(String shopGroupId, String domainId, Set<String> emails) {
+        if (index == null) return;
+        Map<String, Set<String>> shopGroupsByEmail = new HashMap<>(index.shopGroupsByEmail);
+        Map<String, String> domainByShopGroup = new HashMap<>(index.domainByShopGroup);
+        // remove the old members
+        shopGroupsByEmail.replaceAll(
+                (email, shopGroupIds) -> {
+                    if (!shopGroupIds.contains(shopGroupId) || emails.contains(email)) return shopGroupIds;
+                    Set<String> updated = new HashSet<>(shopGroupIds);
+                    updated.remove(shopGroupId);
+                    return Set.copyOf(updated);
+                }
+        );
+        shopGroupsByEmail.values().removeIf(Set::isEmpty);
+        // add the new ones
+        emails.forEach(
+                email -> shopGroupsByEmail.compute(
+                        email,
+                        (key, shopGroupIds) -> {
+                            Set<String> updated = shopGroupIds == null ? new HashSet<>() : new HashSet<>(shopGroupIds);
+                            updated.add(shopGroupId);
+                            return Set.copyOf(updated);
+                        }
+                )
+        );
+        if (domainId != null) {
+            domainByShopGroup.put(shopGroupId, domainId);
+        }
+        index = new Index(shopGroupsByEmail, domainByShopGroup);
+    }
+
+    /**
+     * Return the index loading it at the first use
+     *
+     * @return the index
+     */
+    private Index getIndex() {
+        Index current = index;
+        if (current != null) return current;
+        synchronized (this) {
+            if (index == null) {
+                index = loadIndex();
+                log.info("Shop group membership index loaded with {} users", index.shopGroupsByEmail.size());
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Load all the memberships from the database
+     *
+     * @return the loaded index
+     */
+    private Index loadIndex() {
+        Map<String, Set<String>> shopGroupsByEmail = new HashMap<>();
+        Map<String, String> domainByShopGroup = new HashMap<>();
+        wrapCatch(
+                shopGroupMembershipRepository::findAll,
+                -1
+        ).forEach(
+                membership -> {
+                    shopGroupsByEmail.computeIfAbsent(membership.getUserEmail(), k -> new HashSet<>()).add(membership.getShopGroupId());
+                    domainByShopGroup.put(membership.getShopGroupId(), membership.getDomainId());
+                }
+        );
+        shopGroupsByEmail.replaceAll((email, shopGroupIds) -> Set.copyOf(shopGroupIds));
+        return new Index(shopGroupsByEmail, domainByShopGroup);
+    }
+
+    private ITopic<String> getTopic() {
+        return hazelcastInstance.getTopic(MEMBERSHIP_CHANGE_TOPIC);
+    }
+
+    /**
+     * Immutable snapshot of the memberships
+     *
+     * @param shopGroupsByEmail the ids of the shop groups for each normalized email
+     * @param domainByShopGroup the domain id of each shop group
+     */
+    private record Index(Map<String, Set<String>> shopGroupsByEmail, Map<String, String> domainByShopGroup) {
+    }
+}
@@ -13,6 +13,7 @@ import edu.stanford.slac.core_work_management.api.v1.mapper.ShopGroupMapper;
 import edu.stanford.slac.core_work_management.exception.ShopGroupNotFound;
 import edu.stanford.slac.core_work_management.model.ShopGroup;
 import edu.stanford.slac.core_work_management.repository.ShopGroupRepository;
+import edu.stanford.slac.core_work_management.service.authorization.AuthorizationVersionService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
@@ -20,6 +21,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -31,9 +33,11 @@ import static edu.stanford.slac.core_work_management.config.AuthorizationStringC
 @AllArgsConstructor
 public class ShopGroupService {
     AuthService authService;
+    AuthorizationVersionService authorizationVersionService;
     ShopGroupMapper shopGroupMapper;
     PeopleGroupService peopleGroupService;
     ShopGroupRepository shopGroupRepository;
+    ShopGroupMembershipIndex shopGroupMembershipIndex;
 
     /**
      * Create a new shop group
@@ -50,6 +54,8 @@ public class ShopGroupService {
                 -1
         );
 
+        // index the members of the shop group
+        updateShopGroupMembership(savedShopGroup);
         // generate authorization for admin user
         updateShopGroupAuthorization(savedShopGroup.getId(), newShopGroupDTO.users());
         return savedShopGroup.getId();
@@ -71,15 +77,35 @@ public class ShopGroupService {
                         .shopGroupId(shopGroupId)
                         .build()
         );
-        wrapCatch(
+        ShopGroup savedShopGroup = wrapCatch(
                 () -> shopGroupRepository.save(shopGroupMapper.updateModel(updateShopGroupDTO, storedShopGroup)),
                 -3
         );
 
+        // index the members only when they are updated
+        if (updateShopGroupDTO.users() != null) {
+            updateShopGroupMembership(savedShopGroup);
+        }
         // update authorization for the shop-group
         updateShopGroupAuthorization(shopGroupId, updateShopGroupDTO.users());
     }
 
+    /**
+     * Replace the indexed members of a shop group with the users of the saved shop group
+     *
+     * @param shopGroup the saved shop group
+     */
+    private void updateShopGroupMembership(ShopGroup shopGroup) {
+        shopGroupMembershipIndex.replaceMembers(
+                shopGroup.getDomainId(),
+                shopGroup.getId(),
+                shopGroup.getUsers() == null ? List.of() : shopGroup.getUsers().stream()
+                        .filter(u -> u.getUser() != null)
+                        .map(u -> u.getUser().mail())
+                        .toList()
+        );
+    }
+
     /**
      * Delete a shop group
      *
@@ -110,6 +136,8 @@ public class ShopGroupService {
                     }
                 }
         );
+        // the grants and the members are changed
+        authorizationVersionService.shopGroupAuthorizationChanged(shopGroupId);
     }
 
     /**
@@ -159,6 +187,7 @@ public class ShopGroupService {
 
     /**
      * Check if a specific shop group contains a user email
+     * the email is compared case-insensitively using the membership index
      *
      * @param domainId    the id of the domain
      * @param shopGroupId the id of the shop group
@@ -166,10 +195,19 @@ public class ShopGroupService {
      * @return true if the shop group exists
      */
     public Boolean checkContainsAUserEmail(String domainId, String shopGroupId, String userEmail) {
-        return wrapCatch(
-                () -> shopGroupRepository.existsByDomainIdAndIdAndUsers_User_mail_ContainingIgnoreCase(domainId, shopGroupId, userEmail),
-                -1
-        );
+        return shopGroupMembershipIndex.isMember(domainId, shopGroupId, userEmail);
+    }
+
+    /**
+     * Return the ids of the shop groups of a domain, within a set of ids, that contain a user email
+     *
+     * @param domainId     the id of the domain of the shop groups
+     * @param shopGroupIds the ids of the shop groups to check
+     * @param userEmail    the email of the user
+     * @return the ids of the shop groups that contain the user
+     */
+    public Set<String> findIdsContainingAUserEmail(String domainId, Collection<String> shopGroupIds, String userEmail) {
+        return shopGroupMembershipIndex.findMemberOf(domainId, shopGroupIds, userEmail);
     }
 
 }
@@ -0,0 +1,419 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkChangeTracker
+ * ----------------------------------------------------------------------------
+ * File       : WorkChangeTracker.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.model.Notification;
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkBucketAssociation;
+import edu.stanford.slac.core_work_management.model.WorkHistoryEntry;
+import edu.stanford.slac.core_work_management.model.WorkHistoryType;
+import edu.stanford.slac.core_work_management.model.WorkPartialUpdate;
+import edu.stanford.slac.core_work_management.model.WorkStatusLog;
+import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Track the modifications of the works and store only the modified fields.
+ * <p>
+ * When a work is tracked its stored form is kept aside, when the modifications are saved the stored form is computed
+ * again and compared field by field: the changed fields are sent with {@code $set}, the element added in front or at the
+ * end of the list fields, as the history lists are, with {@code $push}. The update is applied only if the stored work
+ * has still the tracked version so the concurrent modifications are detected as the save of the repository does.
+ * The size of the write does not depend anymore on the size of the history of the work.
+ * <p>
+ * The history lists keep embedded only the most recent entries, the push is sliced to the configured window and each
+ * added entry is appended to the work history collection where the full history is kept. In this way also the size of
+ * the work document, that is read and snapshotted at each modification, stays constant.
+ * <p>
+ * The effects that follow the save, the history entries, the status counters, the flow rollups and the audit, are
+ * published as a single {@link WorkSaved} event once the works are stored. The save runs in a transaction and the
+ * listener is called synchronously within it, so a failed effect rolls back also the update of the works and the
+ * caller can retry the whole save without counting the same modifications twice.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class WorkChangeTracker {
+    // fields managed by the tracker itself
+    private static final Set<String> NOT_TRACKED_FIELDS = Set.of("_id", "_class", "version", "lastModifiedDate", "lastModifiedBy");
+    // the history lists of the work, the status history has the most recent entry in front the others at the end
+    private static final Map<String, HistoryField> HISTORY_FIELDS = Map.of(
+            "statusHistory", new HistoryField(WorkHistoryType.Status, true),
+            "bucketAssociationsHistory", new HistoryField(WorkHistoryType.BucketAssociation, false),
+            "notificationsHistory", new HistoryField(WorkHistoryType.Notification, false)
+    );
+    private final Clock clock;
+    private final MongoTemplate mongoTemplate;
+    private final WorkRepository workRepository;
+    private final AuditorAware<String> auditorAware;
+    private final CWMAppProperties cwmAppProperties;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * Describe an history list of the work
+     *
+     * @param type        the type of the history entry
+     * @param newestFirst true if the most recent entries are in front of the list
+     */
+    private record HistoryField(WorkHistoryType type, boolean newestFirst) {
+    }
+
+    /**
+     * The tracked work with the stored form read before the modifications
+     *
+     * @param work     the work that is modified
+     * @param version  the version of the work before the modifications
+     * @param original the stored form of the work before the modifications
+     * @param status   the status of the work before the modifications
+     */
+    public record TrackedWork(Work work, Long version, Document original, WorkflowState status) {
+    }
+
+    /**
+     * The event published when the modifications of the works have been stored
+     *
+     * @param works          the saved works, aligned with the stored ones
+     * @param historyEntries the entries added to the history lists of the works
+     * @param statusChanges  the status changes of the works
+     * @param transitions    the workflow transitions done by the works
+     */
+    public record WorkSaved(
+            List<Work> works,
+            List<WorkHistoryEntry> historyEntries,
+            List<WorkStatusCounterService.StatusChange> statusChanges,
+            List<WorkFlowAnalyticsService.Transition> transitions
+    ) {
+    }
+
+    /**
+     * Start to track the modification of a work
+     *
+     * @param work the work read from the repository
+     * @return the tracked work
+     */
+    public TrackedWork track(Work work) {
+        return new TrackedWork(
+                work,
+                work.getVersion(),
+                toDocument(work),
+                work.getCurrentStatus() != null ? work.getCurrentStatus().getStatus() : null
+        );
+    }
+
+    /**
+     * Save the modifications of a tracked work
+     *
+     * @param trackedWork the tracked work
+     * @return true if there were modifications to save
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the work has been updated concurrently
+     */
+    @Transactional
+    public boolean save(TrackedWork trackedWork) {
+        return saveAll(List.of(trackedWork)) == 1;
+    }
+
+    /**
+     * Save the modifications of all the tracked works with a single write
+     *
+     * @param trackedWorks the tracked works
+     * @return the number of the works that had modifications to save
+     * @throws org.springframework.dao.OptimisticLockingFailureException if some work has been updated concurrently
+     */
+    @Transactional
+    public int saveAll(Collection<TrackedWork> trackedWorks) {
+        List<TrackedWork> changedWorks = new ArrayList<>();
+        List<WorkPartialUpdate> updates = new ArrayList<>();
+        List<WorkHistoryEntry> historyEntries = new ArrayList<>();
+        List<WorkFlowAnalyticsService.Transition> transitions = new ArrayList<>();
+        Integer windowSize = cwmAppProperties.getWorkHistoryWindowSize();
+        LocalDateTime now = LocalDateTime.now(clock);
+        String auditor = auditorAware.getCurrentAuditor().orElse(null);
+        for (TrackedWork trackedWork : trackedWorks) {
+            List<WorkflowState> entered = getEnteredStates(trackedWork);
+            // the work is started when it moves to in progress the first time, the date is stored with the other fields
+            boolean started = entered.contains(WorkflowState.InProgress) && trackedWork.work().getStartedDate() == null;
+            if (started) {
+                trackedWork.work().setStartedDate(now);
+            }
+            List<WorkFlowAnalyticsService.Transition> workTransitions = getTransitions(trackedWork, entered, started, now);
+            Map<String, List<Object>> addedHistory = new HashMap<>();
+            Optional<Update> update = getUpdate(trackedWork.original(), toDocument(trackedWork.work()), windowSize, addedHistory);
+            if (update.isEmpty()) continue;
+            transitions.addAll(workTransitions);
+            addedHistory.forEach(
+                    (field, added) -> added.forEach(
+                            element -> historyEntries.add(toHistoryEntry(trackedWork.work(), HISTORY_FIELDS.get(field).type(), element, now))
+                    )
+            );
+            updates.add(
+                    WorkPartialUpdate.builder()
+                            .id(trackedWork.work().getId())
+                            .version(trackedWork.version())
+                            .update(
+                                    update.get()
+                                            .set("lastModifiedDate", now)
+                                            .set("lastModifiedBy", auditor)
+                                            .inc("version", 1)
+                            )
+                            .build()
+            );
+            changedWorks.add(trackedWork);
+        }
+        if (updates.isEmpty()) return 0;
+        workRepository.updateWithVersionCheck(updates);
+
+        // align the models with the stored works
+        changedWorks.forEach(
+                trackedWork -> {
+                    Work work = trackedWork.work();
+                    if (windowSize != null) {
+                        trimToWindow(work.getStatusHistory(), windowSize, true);
+                        trimToWindow(work.getBucketAssociationsHistory(), windowSize, false);
+                        trimToWindow(work.getNotificationsHistory(), windowSize, false);
+                    }
+                    work.setVersion(trackedWork.version() == null ? 1 : trackedWork.version() + 1);
+                    work.setLastModifiedDate(now);
+                    work.setLastModifiedBy(auditor);
+                }
+        );
+        applicationEventPublisher.publishEvent(
+                new WorkSaved(
+                        changedWorks.stream().map(TrackedWork::work).toList(),
+                        historyEntries,
+                        changedWorks.stream()
+                                .map(
+                                        trackedWork -> new WorkStatusCounterService.StatusChange(
+                                                trackedWork.work().getDomainId(),
+                                                trackedWork.work().getWorkType() != null ? trackedWork.work().getWorkType().getId() : null,
+                                                trackedWork.status(),
+                                                trackedWork.work().getCurrentStatus() != null ? trackedWork.work().getCurrentStatus().getStatus() : null
+                                        )
+                                )
+                                .toList(),
+                        transitions
+                )
+        );
+        return changedWorks.size();
+    }
+
+    /**
+     * Compute the update from the stored form of the work before and after the modifications
+     *
+     * @param before the stored form before the modifications
+     * @param after  the stored form after the modifications
+     * @return the update, empty if nothing is changed
+     */
+    static Optional<Update> getUpdate(Document before, Document after) {
+        return getUpdate(before, after, null, new HashMap<>());
+    }
+
+    /**
+     * Compute the update from the stored form of the work before and after the modifications
+     * the pushes on the history lists are sliced to the window size
+     *
+     * @param before       the stored form before the modifications
+     * @param after        the stored form after the modifications
+     * @param windowSize   the number of entries to keep on the history lists, null to keep all of them
+     * @param addedHistory filled with the entries added to each history list, from the oldest to the newest
+     * @return the update, empty if nothing is changed
+     */
+    static Optional<Update> getUpdate(Document before, Document after, Integer windowSize, Map<String, List<Object>> addedHistory) {
+        Update update = new Update();
+        Set<String> fields = new LinkedHashSet<>(before.keySet());
+        fields.addAll(after.keySet());
+        boolean changed = false;
+        for (String field : fields) {
+            if (NOT_TRACKED_FIELDS.contains(field)) continue;
+            Object beforeValue = before.get(field);
+            Object afterValue = after.get(field);
+            if (Objects.equals(beforeValue, afterValue)) continue;
+            changed = true;
+            HistoryField historyField = windowSize != null ? HISTORY_FIELDS.get(field) : null;
+            if (afterValue == null) {
+                update.unset(field);
+            } else if (beforeValue instanceof List<?> beforeList && afterValue instanceof List<?> afterList && afterList.size() > beforeList.size()) {
+                int added = afterList.size() - beforeList.size();
+                if (afterList.subList(added, afterList.size()).equals(beforeList)) {
+                    // elements added in front of the list
+                    List<?> addedElements = afterList.subList(0, added);
+                    Update.PushOperatorBuilder push = update.push(field).atPosition(Update.Position.FIRST);
+                    if (historyField != null) {
+                        push.slice(windowSize);
+                        List<Object> chronological = new ArrayList<>(addedElements);
+                        if (historyField.newestFirst()) Collections.reverse(chronological);
+                        addedHistory.put(field, chronological);
+                    }
+                    push.each(addedElements.toArray());
+                } else if (afterList.subList(0, beforeList.size()).equals(beforeList)) {
+                    // elements added at the end of the list
+                    List<?> addedElements = afterList.subList(beforeList.size(), afterList.size());
+                    Update.PushOperatorBuilder push = update.push(field);
+                    if (historyField != null) {
+                        push.slice(-windowSize);
+                        List<Object> chronological = new ArrayList<>(addedElements);
+                        if (historyField.newestFirst()) Collections.reverse(chronological);
+                        addedHistory.put(field, chronological);
+                    }
+                    push.each(addedElements.toArray());
+                } else {
+                    update.set(field, historyField != null ? trimToWindow(new ArrayList<Object>(afterList), windowSize, historyField.newestFirst()) : afterValue);
+                }
+            } else if (historyField != null && afterValue instanceof List<?> afterList) {
+                update.set(field, trimToWindow(new ArrayList<Object>(afterList), windowSize, historyField.newestFirst()));
+            } else {
+                update.set(field, afterValue);
+            }
+        }
+        return changed ? Optional.of(update) : Optional.empty();
+    }
+
+    /**
+     * Return the workflow states entered by a tracked work
+     * the workflow pushes the left status in front of the status history, so the states entered are the ones pushed
+     * after the first one and the current status
+     *
+     * @param trackedWork the tracked work
+     * @return the entered states ordered from the oldest, empty if the status is not changed
+     */
+    private static List<WorkflowState> getEnteredStates(TrackedWork trackedWork) {
+        Work work = trackedWork.work();
+        if (work.getCurrentStatus() == null || work.getCurrentStatus().getStatus() == null) return Collections.emptyList();
+        List<?> originalStatusHistory = trackedWork.original().getList("statusHistory", Object.class);
+        int originalSize = originalStatusHistory != null ? originalStatusHistory.size() : 0;
+        int pushed = work.getStatusHistory() != null ? work.getStatusHistory().size() - originalSize : 0;
+        if (pushed <= 0 && Objects.equals(trackedWork.status(), work.getCurrentStatus().getStatus())) return Collections.emptyList();
+        List<WorkflowState> entered = new ArrayList<>();
+        for (int idx = pushed - 2; idx >= 0; idx--) {
+            entered.add(work.getStatusHistory().get(idx).getStatus());
+        }
+        entered.add(work.getCurrentStatus().getStatus());
+        return entered;
+    }
+
+    /**
+     * Return the workflow transitions done on a tracked work
+     *
+     * @param trackedWork the tracked work
+     * @param entered     the states entered by the work, ordered from the oldest
+     * @param started     true if the work moved to in progress for the first time
+     * @param now         the date of the modification
+     * @return the transitions ordered from the oldest
+     */
+    private static List<WorkFlowAnalyticsService.Transition> getTransitions(TrackedWork trackedWork, List<WorkflowState> entered, boolean started, LocalDateTime now) {
+        Work work = trackedWork.work();
+        boolean firstStart = started;
+        List<WorkFlowAnalyticsService.Transition> transitions = new ArrayList<>(entered.size());
+        WorkflowState from = trackedWork.status();
+        for (WorkflowState to : entered) {
+            transitions.add(
+                    new WorkFlowAnalyticsService.Transition(
+                            work.getDomainId(),
+                            work.getWorkType() != null ? work.getWorkType().getId() : null,
+                            work.getShopGroup() != null ? work.getShopGroup().getId() : null,
+                            from,
+                            to,
+                            firstStart && to == WorkflowState.InProgress,
+                            now,
+                            work.getCreatedDate(),
+                            work.getStartedDate()
+                    )
+            );
+            if (to == WorkflowState.InProgress) firstStart = false;
+            from = to;
+        }
+        return transitions;
+    }
+
+    /**
+     * Keep only the most recent entries of an history list
+     *
+     * @param history     the history list, it is modified in place
+     * @param windowSize  the number of entries to keep
+     * @param newestFirst true if the most recent entries are in front of the list
+     * @return the trimmed list
+     */
+    private static <T> List<T> trimToWindow(List<T> history, int windowSize, boolean newestFirst) {
+        if (history == null || history.size() <= windowSize) return history;
+        if (newestFirst) {
+            history.subList(windowSize, history.size()).clear();
+        } else {
+            history.subList(0, history.size() - windowSize).clear();
+        }
+        return history;
+    }
+
+    /**
+     * Create the history entry for an element added to an history list of the work
+     *
+     * @param work    the work
+     * @param type    the type of the history list
+     * @param element the stored form of the added element
+     * @param now     the date of the modification
+     * @return the history entry
+     */
+    private WorkHistoryEntry toHistoryEntry(Work work, WorkHistoryType type, Object element, LocalDateTime now) {
+        var converter = mongoTemplate.getConverter();
+        var entry = WorkHistoryEntry.builder()
+                .domainId(work.getDomainId())
+                .workId(work.getId())
+                .type(type)
+                .createdDate(now);
+        Document document = (Document) element;
+        switch (type) {
+            case Status -> entry.status(converter.read(WorkStatusLog.class, document));
+            case BucketAssociation -> entry.bucketAssociation(converter.read(WorkBucketAssociation.class, document));
+            case Notification -> entry.notification(converter.read(Notification.class, document));
+        }
+        return entry.build();
+    }
+
+    /**
+     * Convert the work in the form used to store it
+     *
+     * @param work the work
+     * @return the stored form of the work
+     */
+    private Document toDocument(Work work) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(work, document);
+        return document;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkDTOAssembler
+ * ----------------------------------------------------------------------------
+ * File       : WorkDTOAssembler.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkDetailsOptionDTO;
+import edu.stanford.slac.core_work_management.api.v1.mapper.LookupContext;
+import edu.stanford.slac.core_work_management.api.v1.mapper.LookupContext.Kind;
+import edu.stanford.slac.core_work_management.api.v1.mapper.WorkMapper;
+import edu.stanford.slac.core_work_management.model.CustomField;
+import edu.stanford.slac.core_work_management.model.WATypeCustomField;
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkBucketAssociation;
+import edu.stanford.slac.core_work_management.model.value.BucketValue;
+import edu.stanford.slac.core_work_management.model.value.LOVValue;
+import edu.stanford.slac.core_work_management.model.value.ValueType;
+import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Assemble a page of {@link WorkDTO} resolving all the referenced entities in bulk.
+ * <p>
+ * The ids of the domains, work types, LOV elements and bucket slots referenced by all the works
+ * of the page are collected first, then each collection is queried only once and the result
+ * is published in a {@link LookupContext} used by the mappers during the conversion of every single row.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class WorkDTOAssembler {
+    private final WorkMapper workMapper;
+    private final LOVService lovService;
+    private final DomainService domainService;
+    private final BucketService bucketService;
+    private final WorkTypeRepository workTypeRepository;
+
+    /**
+     * Convert a list of {@link Work} to a list of {@link WorkDTO}
+     *
+     * @param works                the works to convert
+     * @param workDetailsOptionDTO the option for the details of the work
+     * @return the converted DTOs in the same order of the works
+     */
+    public List<WorkDTO> toDTO(List<Work> works, WorkDetailsOptionDTO workDetailsOptionDTO) {
+        if (works == null || works.isEmpty()) return List.of();
+        try (LookupContext context = LookupContext.open()) {
+            prefetch(context, works, workDetailsOptionDTO);
+            return works.stream()
+                    .map(w -> workMapper.toDTO(w, workDetailsOptionDTO))
+                    .toList();
+        }
+    }
+
+    /**
+     * Load all the entities referenced by the works and publish them into the context
+     * only the entities needed by the requested fields are loaded
+     *
+     * @param context              the context to fill
+     * @param works                the works to scan for references
+     * @param workDetailsOptionDTO the option for the details of the work
+     */
+    private void prefetch(LookupContext context, List<Work> works, WorkDetailsOptionDTO workDetailsOptionDTO) {
+        boolean allFields = workDetailsOptionDTO == null;
+        Set<String> domainIds = new HashSet<>();
+        Set<String> workTypeIds = new HashSet<>();
+        Set<String> lovElementIds = new HashSet<>();
+        Set<String> lovFieldReferences = new HashSet<>();
+        Set<String> bucketIds = new HashSet<>();
+
+        works.forEach(
+                work -> {
+                    if (work.getDomainId() != null && (allFields || workDetailsOptionDTO.includes("domain"))) {
+                        domainIds.add(work.getDomainId());
+                    }
+                    if (work.getWorkType() != null) {
+                        if (work.getWorkType().getId() != null) workTypeIds.add(work.getWorkType().getId());
+                        if (work.getWorkType().getChildWorkTypeIds() != null) {
+                            workTypeIds.addAll(work.getWorkType().getChildWorkTypeIds());
+                        }
+                        if (work.getWorkType().getCustomFields() != null && (allFields || workDetailsOptionDTO.includes("workType"))) {
+                            work.getWorkType().getCustomFields().stream()
+                                    .filter(cf -> cf.getValueType() == ValueType.LOV)
+                                    .map(WATypeCustomField::getLovFieldReference)
+                                    .filter(Objects::nonNull)
+                                    .forEach(lovFieldReferences::add);
+                        }
+                    }
+                    if (work.getCustomFields() != null) {
+                        work.getCustomFields().stream()
+                                .map(CustomField::getValue)
+                                .filter(Objects::nonNull)
+                                .forEach(
+                                        value -> {
+                                            if (value instanceof LOVValue lovValue) lovElementIds.add(lovValue.getValue());
+                                            if (value instanceof BucketValue bucketValue) bucketIds.add(bucketValue.getValue());
+                                        }
+                                );
+                    }
+                    if (work.getCurrentBucketAssociation() != null) {
+                        bucketIds.add(work.getCurrentBucketAssociation().getBucketId());
+                    }
+                    if (work.getBucketAssociationsHistory() != null) {
+                        work.getBucketAssociationsHistory().stream()
+                                .map(WorkBucketAssociation::getBucketId)
+                                .forEach(bucketIds::add);
+                    }
+                }
+        );
+        bucketIds.remove(null);
+        lovElementIds.remove(null);
+        // skip what has been already resolved in the context
+        domainIds.removeIf(id -> context.contains(Kind.Domain, id));
+        workTypeIds.removeIf(id -> context.contains(Kind.WorkType, id));
+        lovElementIds.removeIf(id -> context.contains(Kind.LOVElement, id));
+        lovFieldReferences.removeIf(ref -> context.contains(Kind.LOVElementsByFieldReference, ref));
+        bucketIds.removeIf(id -> context.contains(Kind.Bucket, id));
+
+        // work type are needed by the domain statistic so they are loaded first
+        if (!workTypeIds.isEmpty()) {
+            wrapCatch(
+                    () -> workTypeRepository.findAllById(workTypeIds),
+                    -1
+            ).forEach(workType -> context.put(Kind.WorkType, workType.getId(), workType));
+        }
+        domainService.findAllByIds(domainIds).forEach(domain -> context.put(Kind.Domain, domain.id(), domain));
+        lovService.findAllLovValueByIds(lovElementIds).forEach(lovElement -> context.put(Kind.LOVElement, lovElement.id(), lovElement));
+        lovService.findAllByFieldReferences(lovFieldReferences).forEach((ref, lovElements) -> context.put(Kind.LOVElementsByFieldReference, ref, lovElements));
+        bucketService.findAllByIds(bucketIds).forEach(bucket -> context.put(Kind.Bucket, bucket.id(), bucket));
+        log.debug(
+                "Prefetched for {} works: {} domains, {} work types, {} lov elements, {} lov field references, {} buckets",
+                works.size(), domainIds.size(), workTypeIds.size(), lovElementIds.size(), lovFieldReferences.size(), bucketIds.size()
+        );
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkFlowAnalyticsService
+ * ----------------------------------------------------------------------------
+ * File       : WorkFlowAnalyticsService.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkFlowStatisticsDTO;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.exception.DomainNotFound;
+import edu.stanford.slac.core_work_management.model.WorkFlowRollup;
+import edu.stanford.slac.core_work_management.repository.DomainRepository;
+import edu.stanford.slac.core_work_management.repository.WorkFlowRollupRepository;
+import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Keep the time series of the flow of the works and compute the throughput, the lead and cycle time and the work in
+ * progress of each work type over time.
+ * <p>
+ * Each workflow transition is added to the rollup of the time bucket when it happened, for the domain, the work type
+ * and the shop group of the work, with a single bulk write of atomic increments. The analytics of a time window are
+ * computed merging the rollups of the buckets in the window, the read does not depend on the number of the works or on
+ * the length of their history. The lead and cycle time percentiles come from histograms with bins that grow by ten
+ * percent, so each percentile is the upper bound of its bin and is at most ten percent above the exact value. A work
+ * is counted as started only the first time it moves to in progress, while each close adds a lead and cycle time
+ * sample, so a reopened work that is closed again is sampled again, from its creation and first start. The
+ * work in progress at the end of each interval is the current number of the works in progress minus the net flow of
+ * the works that moved in or out of progress after the interval.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class WorkFlowAnalyticsService {
+    // the state that identify the work in progress and the one that complete the work
+    private static final WorkflowState WIP_STATE = WorkflowState.InProgress;
+    private static final WorkflowState COMPLETED_STATE = WorkflowState.Closed;
+    // the growth factor of the histogram bins
+    private static final double LOG_BIN_GROWTH = Math.log(1.1);
+    // the max number of the intervals returned by a query
+    private static final int MAX_INTERVALS = 1000;
+    private final Clock clock;
+    private final CWMAppProperties cwmAppProperties;
+    private final DomainRepository domainRepository;
+    private final WorkRepository workRepository;
+    private final WorkFlowRollupRepository workFlowRollupRepository;
+
+    /**
+     * A workflow transition of a work
+     *
+     * @param domainId    the domain of the work
+     * @param workTypeId  the work type of the work
+     * @param shopGroupId the shop group of the work
+     * @param from        the state left, null for a new work
+     * @param to          the state entered
+     * @param started     true if the work moved to in progress for the first time
+     * @param date        the date of the transition
+     * @param createdDate the creation date of the work
+     * @param startedDate the date when the work moved to in progress for the first time
+     */
+    public record Transition(
+            String domainId,
+            String workTypeId,
+            String shopGroupId,
+            WorkflowState from,
+            WorkflowState to,
+            boolean started,
+            LocalDateTime date,
+            LocalDateTime createdDate,
+            LocalDateTime startedDate
+    ) {
+    }
+
+    /**
+     * The flow accumulated for a work type in an interval
+     */
+    private static class IntervalFlow {
+        private long started;
+        private long completed;
+        private long wipNet;
+        private final Map<Integer, Long> leadTimeHistogram = new TreeMap<>();
+        private final Map<Integer, Long> cycleTimeHistogram = new TreeMap<>();
+    }
+
+    /**
+     * Add the transitions to the rollups of their time bucket
+     * all the transitions are applied with a single write
+     *
+     * @param transitions the workflow transitions
+     */
+    public void recordTransitions(Collection<Transition> transitions) {
+        Map<String, WorkFlowRollup> deltaById = new HashMap<>();
+        for (Transition transition : transitions) {
+            if (transition.workTypeId() == null || transition.to() == null || transition.date() == null) continue;
+            LocalDateTime bucketStart = bucketStartOf(transition.date());
+            WorkFlowRollup delta = deltaById.computeIfAbsent(
+                    WorkFlowRollup.idOf(transition.domainId(), transition.workTypeId(), transition.shopGroupId(), bucketStart),
+                    id -> WorkFlowRollup.builder()
+                            .domainId(transition.domainId())
+                            .workTypeId(transition.workTypeId())
+                            .shopGroupId(transition.shopGroupId())
+                            .bucketStart(bucketStart)
+                            .build()
+            );
+            delta.getEnteredCount().merge(transition.to().name(), 1L, Long::sum);
+            if (transition.from() != null) {
+                delta.getExitedCount().merge(transition.from().name(), 1L, Long::sum);
+            }
+            if (transition.started()) {
+                delta.setStartedCount(delta.getStartedCount() + 1);
+            }
+            if (transition.to() != COMPLETED_STATE) continue;
+            if (transition.createdDate() != null) {
+                delta.getLeadTimeHistogram().merge(binKeyOf(transition.createdDate(), transition.date()), 1L, Long::sum);
+            }
+            if (transition.startedDate() != null) {
+                delta.getCycleTimeHistogram().merge(binKeyOf(transition.startedDate(), transition.date()), 1L, Long::sum);
+            }
+        }
+        if (deltaById.isEmpty()) return;
+        wrapCatch(
+                () -> {
+                    workFlowRollupRepository.increment(deltaById.values());
+                    return null;
+                },
+                -1
+        );
+    }
+
+    /**
+     * Return the flow of the works of a domain for each work type and interval of a time window
+     *
+     * @param domainId    the id of the domain
+     * @param workTypeId  the id of the work type, null for all the work types
+     * @param shopGroupId the id of the shop group, null for all the shop groups
+     * @param from        the start of the window
+     * @param to          the end of the window, null for now
+     * @param interval    the length of each interval, it needs to be a multiple of the rollup bucket
+     * @param percentiles the percentiles of the lead and cycle time to compute
+     * @return the flow of each work type for each interval, ordered by work type and interval
+     */
+    public List<WorkFlowStatisticsDTO> getFlowStatistics(
+            String domainId,
+            String workTypeId,
+            String shopGroupId,
+            LocalDateTime from,
+            LocalDateTime to,
+            Duration interval,
+            List<Integer> percentiles
+    ) {
+        assertion(
+                DomainNotFound
+                        .notFoundById()
+                        .errorCode(-1)
+                        .id(domainId)
+                        .build(),
+                () -> domainRepository.existsById(domainId)
+        );
+        long bucketSeconds = cwmAppProperties.getWorkFlowRollupBucket().toSeconds();
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime windowEnd = to != null ? to : now;
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-2)
+                        .errorMessage("The start of the window needs to be before its end")
+                        .errorDomain("WorkFlowAnalyticsService::getFlowStatistics")
+                        .build(),
+                () -> from != null && from.isBefore(windowEnd)
+        );
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-3)
+                        .errorMessage("The interval needs to be a multiple of %d seconds".formatted(bucketSeconds))
+                        .errorDomain("WorkFlowAnalyticsService::getFlowStatistics")
+                        .build(),
+                () -> interval != null && interval.toSeconds() > 0 && interval.toSeconds() % bucketSeconds == 0
+        );
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-4)
+                        .errorMessage("The percentiles need to be between 1 and 100")
+                        .errorDomain("WorkFlowAnalyticsService::getFlowStatistics")
+                        .build(),
+                () -> percentiles != null && percentiles.stream().allMatch(p -> p != null && p >= 1 && p <= 100)
+        );
+        long intervalSeconds = interval.toSeconds();
+        LocalDateTime start = bucketStartOf(from);
+        long windowSeconds = Duration.between(start, windowEnd).toSeconds();
+        long intervalCount = (windowSeconds + intervalSeconds - 1) / intervalSeconds;
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-5)
+                        .errorMessage("The window cannot contain more than %d intervals".formatted(MAX_INTERVALS))
+                        .errorDomain("WorkFlowAnalyticsService::getFlowStatistics")
+                        .build(),
+                () -> intervalCount <= MAX_INTERVALS
+        );
+
+        // the rollups after the window are needed to go back from the current work in progress
+        LocalDateTime intervalsEnd = start.plusSeconds(intervalCount * intervalSeconds);
+        LocalDateTime nowBucketEnd = bucketStartOf(now).plusSeconds(bucketSeconds);
+        List<WorkFlowRollup> rollups = wrapCatch(
+                () -> workFlowRollupRepository.findAllInWindow(
+                        domainId,
+                        workTypeId,
+                        shopGroupId,
+                        start,
+                        intervalsEnd.isAfter(nowBucketEnd) ? intervalsEnd : nowBucketEnd
+                ),
+                -6
+        );
+        Map<String, Long> wipByWorkType = new HashMap<>();
+        wrapCatch(
+                () -> workRepository.getWorkStatusCount(domainId, workTypeId, shopGroupId, WIP_STATE),
+                -7
+        ).forEach(counter -> wipByWorkType.put(counter.getWorkTypeId(), counter.getCount()));
+
+        // merge the rollups in their interval
+        Map<String, IntervalFlow[]> flowByWorkType = new HashMap<>();
+        Map<String, Long> wipNetAfterWindow = new HashMap<>();
+        for (WorkFlowRollup rollup : rollups) {
+            long wipNet = countOf(rollup.getEnteredCount(), WIP_STATE) - countOf(rollup.getExitedCount(), WIP_STATE);
+            int index = (int) (Duration.between(start, rollup.getBucketStart()).toSeconds() / intervalSeconds);
+            if (index >= intervalCount) {
+                wipNetAfterWindow.merge(rollup.getWorkTypeId(), wipNet, Long::sum);
+                continue;
+            }
+            IntervalFlow flow = flowByWorkType.computeIfAbsent(rollup.getWorkTypeId(), k -> newIntervalFlows((int) intervalCount))[index];
+            flow.started += rollup.getStartedCount() != null ? rollup.getStartedCount() : 0;
+            flow.completed += countOf(rollup.getEnteredCount(), COMPLETED_STATE);
+            flow.wipNet += wipNet;
+            mergeHistogram(flow.leadTimeHistogram, rollup.getLeadTimeHistogram());
+            mergeHistogram(flow.cycleTimeHistogram, rollup.getCycleTimeHistogram());
+        }
+
+        List<WorkFlowStatisticsDTO> result = new ArrayList<>();
+        TreeSet<String> workTypeIds = new TreeSet<>(flowByWorkType.keySet());
+        workTypeIds.addAll(wipByWorkType.keySet());
+        for (String flowWorkTypeId : workTypeIds) {
+            IntervalFlow[] flows = flowByWorkType.computeIfAbsent(flowWorkTypeId, k -> newIntervalFlows((int) intervalCount));
+            // go back from the current work in progress
+            long[] wipAtEnd = new long[flows.length];
+            long wip = wipByWorkType.getOrDefault(flowWorkTypeId, 0L) - wipNetAfterWindow.getOrDefault(flowWorkTypeId, 0L);
+            for (int idx = flows.length - 1; idx >= 0; idx--) {
+                wipAtEnd[idx] = wip;
+                wip -= flows[idx].wipNet;
+            }
+            for (int idx = 0; idx < flows.length; idx++) {
+                IntervalFlow flow = flows[idx];
+                LocalDateTime intervalStart = start.plusSeconds(idx * intervalSeconds);
+                result.add(
+                        WorkFlowStatisticsDTO.builder()
+                                .workTypeId(flowWorkTypeId)
+                                .intervalStart(intervalStart)
+                                .intervalEnd(intervalStart.plusSeconds(intervalSeconds))
+                                .started(flow.started)
+                                .completed(flow.completed)
+                                // the works started before the rollups were kept can make it negative
+                                .wip(Math.max(0, wipAtEnd[idx]))
+                                .leadTime(getPercentiles(flow.leadTimeHistogram, percentiles))
+                                .cycleTime(getPercentiles(flow.cycleTimeHistogram, percentiles))
+                                .build()
+                );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the start of the rollup bucket of a date
+     *
+     * @param date the date
+     * @return the start of the bucket that contains the date
+     */
+    LocalDateTime bucketStartOf(LocalDateTime date) {
+        long bucketSeconds = cwmAppProperties.getWorkFlowRollupBucket().toSeconds();
+        long epochSecond = date.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochSecond, bucketSeconds) * bucketSeconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Return the histogram bin of a duration
+     *
+     * @param seconds the duration in seconds
+     * @return the smallest bin with the upper bound not less than the duration
+     */
+    static int histogramBin(long seconds) {
+        if (seconds <= 1) return 0;
+        int bin = (int) Math.ceil(Math.log(seconds) / LOG_BIN_GROWTH);
+        // correct the rounding of the logarithm
+        while (bin > 0 && histogramBinUpperBound(bin - 1) >= seconds) bin--;
+        while (histogramBinUpperBound(bin) < seconds) bin++;
+        return bin;
+    }
+
+    /**
+     * Return the upper bound of an histogram bin
+     *
+     * @param bin the bin
+     * @return the max duration, in seconds, of the bin
+     */
+    static long histogramBinUpperBound(int bin) {
+        return (long) Math.ceil(Math.exp(bin * LOG_BIN_GROWTH));
+    }
+
+    /**
+     * Return a percentile of an histogram
+     *
+     * @param histogram  the count for each bin, ordered by bin
+     * @param percentile the percentile between 1 and 100
+     * @return the upper bound of the bin that contains the percentile, null if the histogram is empty
+     */
+    static Long getPercentile(Map<Integer, Long> histogram, int percentile) {
+        long total = histogram.values().stream().mapToLong(Long::longValue).sum();
+        if (total == 0) return null;
+        long rank = (long) Math.ceil(percentile / 100.0 * total);
+        long cumulative = 0;
+        for (Map.Entry<Integer, Long> entry : histogram.entrySet()) {
+            cumulative += entry.getValue();
+            if (cumulative >= rank) return histogramBinUpperBound(entry.getKey());
+        }
+        return null;
+    }
+
+    /**
+     * Return the requested percentiles of an histogram
+     *
+     * @param histogram   the count for each bin, ordered by bin
+     * @param percentiles the percentiles
+     * @return the value of each percentile by name, null if the histogram is empty
+     */
+    private static Map<String, Long> getPercentiles(Map<Integer, Long> histogram, List<Integer> percentiles) {
+        if (histogram.isEmpty()) return null;
+        Map<String, Long> result = new LinkedHashMap<>();
+        percentiles.forEach(p -> result.put("p%d".formatted(p), getPercentile(histogram, p)));
+        return result;
+    }
+
+    /**
+     * Return the key of the histogram bin of the time elapsed between two dates
+     *
+     * @param from the start date
+     * @param to   the end date
+     * @return the key of the bin
+     */
+    private static String binKeyOf(LocalDateTime from, LocalDateTime to) {
+        return String.valueOf(histogramBin(Duration.between(from, to).toSeconds()));
+    }
+
+    /**
+     * Return the count of a state
+     *
+     * @param countByState the stored count for each state
+     * @param state        the state
+     * @return the count of the state, zero if it is not stored
+     */
+    private static long countOf(Map<String, Long> countByState, WorkflowState state) {
+        if (countByState == null) return 0;
+        return countByState.getOrDefault(state.name(), 0L);
+    }
+
+    /**
+     * Add a stored histogram to an histogram
+     *
+     * @param histogram the histogram by bin
+     * @param stored    the stored histogram by bin key
+     */
+    private static void mergeHistogram(Map<Integer, Long> histogram, Map<String, Long> stored) {
+        if (stored == null) return;
+        stored.forEach((key, count) -> histogram.merge(Integer.valueOf(key), count, Long::sum));
+    }
+
+    /**
+     * Create the empty flows of the intervals
+     *
+     * @param intervalCount the number of intervals
+     * @return the empty flow for each interval
+     */
+    private static IntervalFlow[] newIntervalFlows(int intervalCount) {
+        IntervalFlow[] flows = new IntervalFlow[intervalCount];
+        for (int idx = 0; idx < intervalCount; idx++) flows[idx] = new IntervalFlow();
+        return flows;
+    }
+}
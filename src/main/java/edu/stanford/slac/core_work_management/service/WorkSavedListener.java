@@ -0,0 +1,63 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkSavedListener
+ * ----------------------------------------------------------------------------
+ * File       : WorkSavedListener.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.repository.WorkHistoryEntryRepository;
+import lombok.RequiredArgsConstructor;
+import org.javers.core.Javers;
+import org.javers.spring.auditable.AuthorProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Apply the effects that follow the save of the works
+ * <p>
+ * The event is published within the transaction of the save, so the effects are written in the same transaction
+ * of the works and a failure is thrown to roll back the whole save. The audit is not transactional, it is done last
+ * so it is skipped when any other effect fails.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkSavedListener {
+    private final Javers javers;
+    private final AuthorProvider authorProvider;
+    private final WorkHistoryEntryRepository workHistoryEntryRepository;
+    private final WorkStatusCounterService workStatusCounterService;
+    private final WorkFlowAnalyticsService workFlowAnalyticsService;
+
+    /**
+     * Store the history entries, update the status counters and the flow rollups and audit the saved works
+     *
+     * @param workSaved the saved works
+     */
+    @EventListener
+    public void onWorkSaved(WorkChangeTracker.WorkSaved workSaved) {
+        if (!workSaved.historyEntries().isEmpty()) {
+            // the entries sliced out of the work are committed only together with the push that removes them
+            workHistoryEntryRepository.saveAll(workSaved.historyEntries());
+        }
+        // move the works that changed status to the counter of the new one, in the transaction of the works so the
+        // reconciliation reads the counters and the works of the same snapshot
+        workStatusCounterService.statusChanged(workSaved.statusChanges());
+        // add the workflow transitions to the flow rollups, a transition is recorded only if the work is saved
+        workFlowAnalyticsService.recordTransitions(workSaved.transitions());
+        // keep the audit as the save of the repository does
+        String author = authorProvider.provide();
+        workSaved.works().forEach(work -> javers.commit(author, work));
+    }
+}
@@ -10,8 +10,12 @@ import edu.stanford.slac.core_work_management.api.v1.dto.*;
 import edu.stanford.slac.core_work_management.api.v1.mapper.*;
 import edu.stanford.slac.core_work_management.exception.*;
 import edu.stanford.slac.core_work_management.model.*;
+import edu.stanford.slac.core_work_management.service.authorization.AuthorizationSnapshotService;
+import edu.stanford.slac.core_work_management.service.authorization.AuthorizationVersionService;
 import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidation;
+import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidatorRegistry;
 import edu.stanford.slac.core_work_management.service.workflow.*;
+import edu.stanford.slac.core_work_management.repository.WorkHistoryEntryRepository;
 import edu.stanford.slac.core_work_management.repository.WorkRepository;
 import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
 import edu.stanford.slac.core_work_management.service.validation.ModelFieldValidationService;
@@ -31,6 +35,10 @@ import org.springframework.validation.annotation.Validated;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO.User;
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Admin;
@@ -44,17 +52,30 @@ import static java.util.Collections.emptyList;
 @Validated
 @RequiredArgsConstructor
 public class WorkService {
+    /**
+     * The max number of elements returned by a page
+     */
+    public static final int MAX_PAGE_SIZE = 100;
     private final WorkMapper workMapper;
     private final DomainMapper domainMapper;
     private final LocationMapper locationMapper;
     private final ShopGroupMapper shopGroupMapper;
+    private final WorkDTOAssembler workDTOAssembler;
 
-    private final ScriptService scriptService;
+    private final WorkTypeValidatorRegistry workTypeValidatorRegistry;
+    private final WorkflowRegistry workflowRegistry;
+    private final WorkflowPropagationService workflowPropagationService;
+    private final WorkChangeTracker workChangeTracker;
+    private final WorkStatusCounterService workStatusCounterService;
     private final DomainService domainService;
+    private final DomainStatisticRefreshQueue domainStatisticRefreshQueue;
     private final BucketService bucketService;
     private final AuthService authService;
+    private final AuthorizationSnapshotService authorizationSnapshotService;
+    private final AuthorizationVersionService authorizationVersionService;
 
     private final WorkRepository workRepository;
+    private final WorkHistoryEntryRepository workHistoryEntryRepository;
     private final WorkTypeRepository workTypeRepository;
     private final LogService logService;
     private final LocationService locationService;
@@ -152,6 +173,11 @@ public class WorkService {
                 newWorkDTO
         );
 
+        // store the path up to the root of the tree
+        if (parentWork != null) {
+            workToSave.setAncestorIds(workflowPropagationService.ancestorIdsForChildOf(parentWork));
+        }
+
         // validate lov
         modelFieldValidationService.verify(
                 workToSave,
@@ -180,16 +206,17 @@ public class WorkService {
         );
 
         log.info("New Work '{}-{}' has been created by '{}'", savedWork.getWorkNumber(), savedWork.getTitle(), savedWork.getCreatedBy());
+        workStatusCounterService.workCreated(savedWork);
         updateWorkAuthorization(savedWork);
 
         // after this work is update we need to update all the
         // tree up to the ancestor
         if (parentWork != null) {
-            updateParentWorkWorkflow(parentWork);
+            workflowPropagationService.updateAncestorsWorkflow(savedWork);
         }
 
-        log.info("Update domain statistic");
-        domainService.updateDomainStatistics(savedWork.getDomainId());
+        // the domain statistics are refreshed once for all the changes of the window
+        domainStatisticRefreshQueue.markDirty(savedWork.getDomainId());
 
         // log the creation of the work
         if (logIf.isPresent() && logIf.get()) {
@@ -228,6 +255,15 @@ public class WorkService {
                 -2
         );
 
+        // track the modifications to store only the changed fields
+        var trackedWork = workChangeTracker.track(foundWork);
+        // keep the fields that determine the grants
+        Work workBeforeUpdate = Work.builder()
+                .location(foundWork.getLocation())
+                .shopGroup(foundWork.getShopGroup())
+                .createdBy(foundWork.getCreatedBy())
+                .assignedTo(foundWork.getAssignedTo() != null ? new ArrayList<>(foundWork.getAssignedTo()) : null)
+                .build();
         // update the model
         workMapper.updateModel(updateWorkDTO, foundWork);
 
@@ -266,34 +302,23 @@ public class WorkService {
         updateWorkWorkflow(foundWork, domainMapper.toModel(updateWorkDTO.workflowStateUpdate()));
 
         // save the work
-        var updatedWork = wrapCatch(
-                () -> workRepository.save(foundWork),
+        wrapCatch(
+                () -> workChangeTracker.save(trackedWork),
                 -6
         );
+        var updatedWork = foundWork;
 
         // after this work is update we need to update all the
         // tree up to the ancestor
-        if (foundWork.getParentWorkId() != null) {
-            // find parent work
-            var parentWork = wrapCatch(
-                    () -> workRepository.findByDomainIdAndId(domainId, foundWork.getParentWorkId()).orElseThrow(
-                            () -> WorkNotFound
-                                    .notFoundById()
-                                    .errorCode(-1)
-                                    .workId(foundWork.getParentWorkId())
-                                    .build()
-                    ),
-                    -7
-            );
-            // try to find parent work type
-            updateParentWorkWorkflow(parentWork);
-        }
+        workflowPropagationService.updateAncestorsWorkflow(updatedWork);
 
-        // update all authorization
-        updateWorkAuthorization(updatedWork);
+        // update all authorization only if something that determine them is changed
+        if (isAuthorizationChanged(workBeforeUpdate, updatedWork)) {
+            updateWorkAuthorization(updatedWork);
+        }
 
         //update domain statistic
-        domainService.updateDomainStatistics(updatedWork.getDomainId());
+        domainStatisticRefreshQueue.markDirty(updatedWork.getDomainId());
         log.info("Work '{}' has been updated by '{}'", updatedWork.getId(), updatedWork.getLastModifiedBy());
     }
 
@@ -326,9 +351,8 @@ public class WorkService {
      */
     public void isValidForWorkflow(String domainId, NewWorkValidation newWorkValidation) {
         Set<ConstraintViolation<WorkflowValidation<NewWorkValidation>>> violations = null;
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                newWorkValidation.getWork().getWorkType().getValidatorName(),
-                WorkTypeValidation.class
+        WorkTypeValidation wtv = workTypeValidatorRegistry.getValidator(
+                newWorkValidation.getWork().getWorkType().getValidatorName()
         );
         wtv.checkValid(newWorkValidation);
     }
@@ -342,9 +366,8 @@ public class WorkService {
      */
     public void isValidForWorkflow(UpdateWorkValidation updateWorkValidation) {
         Set<ConstraintViolation<WorkflowValidation<UpdateWorkValidation>>> violations = null;
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                updateWorkValidation.getExistingWork().getWorkType().getValidatorName(),
-                WorkTypeValidation.class
+        WorkTypeValidation wtv = workTypeValidatorRegistry.getValidator(
+                updateWorkValidation.getExistingWork().getWorkType().getValidatorName()
         );
         wtv.checkValid(updateWorkValidation);
     }
@@ -360,58 +383,14 @@ public class WorkService {
         if (work == null) {
             return;
         }
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                work.getWorkType().getValidatorName(),
-                WorkTypeValidation.class
+        WorkTypeValidation wtv = workTypeValidatorRegistry.getValidator(
+                work.getWorkType().getValidatorName()
         );
         // fetch the workflow
-        var wInstance = (BaseWorkflow) applicationContext.getBean(work.getWorkType().getWorkflow().getImplementation());
+        var wInstance = workflowRegistry.getWorkflow(work.getWorkType().getWorkflow().getImplementation());
         wtv.updateWorkflow(WorkflowWorkUpdate.builder().work(work).workflow(wInstance).updateWorkflowState(updateState).build());
     }
 
-    /**
-     * Update all the parent workflow of a work
-     *
-     * @param parentWWork the parent work
-     */
-    public void updateParentWorkWorkflow(Work parentWWork) {
-        if (parentWWork == null) {
-            return;
-        }
-        // get validator for the work type
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                parentWWork.getWorkType().getValidatorName(),
-                WorkTypeValidation.class
-        );
-        // retrieve workflow instance
-        var wInstance = (BaseWorkflow) applicationContext.getBean(parentWWork.getWorkType().getWorkflow().getImplementation());
-
-        // update workflow with the script associated to the work type
-        wtv.updateWorkflow(WorkflowWorkUpdate.builder().work(parentWWork).workflow(wInstance).build());
-
-        // save parent work with updated workflow
-        wrapCatch(
-                () -> workRepository.save(parentWWork),
-                -2
-        );
-        if (parentWWork.getParentWorkId() != null) {
-            // try to find the parent work
-            var parentWork = wrapCatch(
-                    () -> workRepository.findByDomainIdAndId(parentWWork.getDomainId(), parentWWork.getParentWorkId()).orElseThrow(
-                            () -> WorkNotFound
-                                    .notFoundById()
-                                    .errorCode(-1)
-                                    .workId(parentWWork.getParentWorkId())
-                                    .build()
-                    ),
-                    -3
-            );
-
-            // find work type of the parent and if found update the parent workflow
-            updateParentWorkWorkflow(parentWork);
-        }
-    }
-
     /**
      * Check if the user can update the work
      *
@@ -422,9 +401,8 @@ public class WorkService {
      */
     public boolean checkWorkflowForUpdate(String userId, WorkDTO workDTO, UpdateWorkDTO updateWorkDTO) {
 // get validator for the work type
-        WorkTypeValidation wtv = scriptService.getInterfaceImplementationFromFile(
-                workDTO.workType().validatorName(),
-                WorkTypeValidation.class
+        WorkTypeValidation wtv = workTypeValidatorRegistry.getValidator(
+                workDTO.workType().validatorName()
         );
         return wtv.isUserAuthorizedToUpdate(userId, workDTO, updateWorkDTO);
     }
@@ -466,10 +444,9 @@ public class WorkService {
                 )
         );
         // fetch the workflow
-        var wInstance = (BaseWorkflow) applicationContext.getBean(foundParentWork.getWorkType().getWorkflow().getImplementation());
-        var validationInstance = scriptService.getInterfaceImplementationFromFile(
-                foundParentWork.getWorkType().getValidatorName(),
-                WorkTypeValidation.class
+        var wInstance = workflowRegistry.getWorkflow(foundParentWork.getWorkType().getWorkflow().getImplementation());
+        var validationInstance = workTypeValidatorRegistry.getValidator(
+                foundParentWork.getWorkType().getValidatorName()
         );
         // validate the child admission
         validationInstance.admitChildren(AdmitChildrenValidation.builder().work(foundParentWork).workflow(wInstance).build());
@@ -478,27 +455,96 @@ public class WorkService {
 
     /**
      * Update the work authorization
+     * <p>
+     * The grants that the work should have are compared with the stored ones, only the
+     * grants no more valid are deleted and only the missing ones are created, both through the auth service
+     * so its caches are evicted as for any other change of the grants
      *
      * @param work the work to update
      */
     private void updateWorkAuthorization(Work work) {
-        Set<String> adminUserList = new HashSet<>();
-        Set<String> writerUserList = new HashSet<>();
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String resource = WORK_AUTHORIZATION_TEMPLATE.formatted(work.getId());
+        Map<String, AuthorizationTypeDTO> desiredGrants = getDesiredWorkGrants(work);
 
-        // delete old authorization
-        authService.deleteAuthorizationForResourcePrefix(WORK_AUTHORIZATION_TEMPLATE.formatted(work.getId()));
+        // find what need to be changed
+        List<String> authorizationIdsToDelete = new ArrayList<>();
+        Set<String> satisfiedOwners = new HashSet<>();
+        wrapCatch(
+                () -> authService.findByResourceIs(resource),
+                -1
+        ).forEach(
+                authorization -> {
+                    if (
+                            authorization.authorizationType() == desiredGrants.get(authorization.owner()) &&
+                                    satisfiedOwners.add(authorization.owner())
+                    ) {
+                        // still valid and not duplicated
+                        return;
+                    }
+                    authorizationIdsToDelete.add(authorization.id());
+                }
+        );
+        if (authorizationIdsToDelete.isEmpty() && satisfiedOwners.size() == desiredGrants.size()) {
+            log.debug("Authorization for work {} are already up to date", work.getId());
+            return;
+        }
 
-        // this will fire exception in case the location has not been found
-        LocationDTO locationDTO = locationService.findById(work.getDomainId(), work.getLocation().getId());
+        // remove the grants no more valid
+        authorizationIdsToDelete.forEach(
+                authorizationId -> wrapCatch(
+                        () -> {
+                            authService.deleteAuthorizationById(authorizationId);
+                            return null;
+                        },
+                        -2
+                )
+        );
+        // add the missing grants
+        desiredGrants.forEach(
+                (user, authorizationType) -> {
+                    if (satisfiedOwners.contains(user)) return;
+                    authService.addNewAuthorization(
+                            NewAuthorizationDTO.builder()
+                                    .authorizationType(authorizationType)
+                                    .owner(user)
+                                    .ownerType(User)
+                                    .resource(resource)
+                                    .build()
+                    );
+                }
+        );
+        // the grants are changed
+        authorizationVersionService.workAuthorizationChanged(work.getId());
+        log.info(
+                "Authorization for work {}[{}] updated, {} removed, {} granted",
+                work.getTitle(),
+                work.getId(),
+                authorizationIdsToDelete.size(),
+                desiredGrants.size() - satisfiedOwners.size()
+        );
+    }
+
+    /**
+     * Compute the grants that a work should have
+     *
+     * @param work the work
+     * @return the authorization type for each user
+     */
+    private Map<String, AuthorizationTypeDTO> getDesiredWorkGrants(Work work) {
+        Set<String> adminUserList = new HashSet<>();
+        Set<String> writerUserList = new HashSet<>();
 
         if (work.getCreatedBy() != null) {
             // the creator is a writer
             writerUserList.add(work.getCreatedBy());
         }
 
-        // authorize location manager as admin
-        adminUserList.add(locationDTO.locationManagerUserId());
+        // authorize location manager as admin, read from the location because the embedded one can be stale
+        // this will fire exception in case the location has not been found
+        String locationManagerUserId = locationService.findById(work.getDomainId(), work.getLocation().getId()).locationManagerUserId();
+        if (locationManagerUserId != null) {
+            adminUserList.add(locationManagerUserId);
+        }
         // add shop group as writer in the form of virtual user
         writerUserList.add(SHOP_GROUP_FAKE_USER_TEMPLATE.formatted(work.getShopGroup().getId()));
         // add assigned to users
@@ -512,38 +558,33 @@ public class WorkService {
         // so remove all the admin that are also reader
         writerUserList.removeAll(adminUserList);
 
-        // add admin authorization
-        adminUserList.forEach(
-                (user) -> {
-                    authService.addNewAuthorization(
-                            NewAuthorizationDTO.builder()
-                                    .authorizationType(Admin)
-                                    .owner(user)
-                                    .ownerType(User)
-                                    .resource(WORK_AUTHORIZATION_TEMPLATE.formatted(work.getId()))
-                                    .build()
-                    );
-                }
-        );
-        // add user authorization
-        writerUserList.forEach(
-                (user) -> {
-                    authService.addNewAuthorization(
-                            NewAuthorizationDTO.builder()
-                                    .authorizationType(Write)
-                                    .owner(user)
-                                    .ownerType(User)
-                                    .resource(WORK_AUTHORIZATION_TEMPLATE.formatted(work.getId()))
-                                    .build()
-                    );
-                }
-        );
-        log.info(
-                "Users '{}' has been granted as admin for work {}[{}]",
-                String.join(",", adminUserList),
-                work.getTitle(),
-                work.getId()
-        );
+        Map<String, AuthorizationTypeDTO> desiredGrants = new HashMap<>();
+        adminUserList.forEach(user -> desiredGrants.put(user, Admin));
+        writerUserList.forEach(user -> desiredGrants.put(user, Write));
+        return desiredGrants;
+    }
+
+    /**
+     * Check if the fields that determine the work grants are changed
+     *
+     * @param before the work before the update
+     * @param after  the work after the update
+     * @return true if the grants need to be updated
+     */
+    private static boolean isAuthorizationChanged(Work before, Work after) {
+        return !Objects.equals(
+                        before.getLocation() != null ? before.getLocation().getId() : null,
+                        after.getLocation() != null ? after.getLocation().getId() : null
+                ) ||
+                !Objects.equals(
+                        before.getShopGroup() != null ? before.getShopGroup().getId() : null,
+                        after.getShopGroup() != null ? after.getShopGroup().getId() : null
+                ) ||
+                !Objects.equals(before.getCreatedBy(), after.getCreatedBy()) ||
+                !Objects.equals(
+                        before.getAssignedTo() != null ? new HashSet<>(before.getAssignedTo()) : Set.of(),
+                        after.getAssignedTo() != null ? new HashSet<>(after.getAssignedTo()) : Set.of()
+                );
     }
 
     /**
@@ -581,6 +622,8 @@ public class WorkService {
                 -2
         );
 
+        var trackedWork = workChangeTracker.track(foundWork);
+
         // check for work type admission
         assertion(
                 ControllerLogicException
@@ -649,7 +692,7 @@ public class WorkService {
 
         // save the bucket slot
         wrapCatch(
-                () -> workRepository.save(foundWork),
+                () -> workChangeTracker.save(trackedWork),
                 -6
         );
     }
@@ -687,6 +730,7 @@ public class WorkService {
                 () -> work.getCurrentBucketAssociation().getBucketId().compareTo(bucketSlotId) == 0
         );
 
+        var trackedWork = workChangeTracker.track(work);
         // remove the association
         work.getBucketAssociationsHistory().add(
                 work.getCurrentBucketAssociation()
@@ -695,7 +739,7 @@ public class WorkService {
         work.setCurrentBucketAssociation(null);
         // save the work
         wrapCatch(
-                () -> workRepository.save(work),
+                () -> workChangeTracker.save(trackedWork),
                 -5
         );
     }
@@ -708,7 +752,7 @@ public class WorkService {
      */
     public WorkDTO findWorkById(@NotNull String domainId, @NotNull String id, @Valid WorkDetailsOptionDTO workDetailsOptionDTO) {
         return wrapCatch(
-                () -> workRepository.findById(id)
+                () -> workRepository.findByIdWithFields(id, workDetailsOptionDTO != null ? workMapper.toModelFields(workDetailsOptionDTO.fields()) : null)
                         .map(w -> workMapper.toDTO(w, workDetailsOptionDTO))
                         .orElseThrow(
                                 () -> WorkNotFound
@@ -721,6 +765,30 @@ public class WorkService {
         );
     }
 
+    /**
+     * Return a slim view of the work used by the permission checks
+     * only the path of the document needed by the checks and by the work type validators are loaded
+     * and no other entity is fetched during the conversion
+     *
+     * @param domainId the id of the domain
+     * @param id       the id of the work
+     * @return the slim work
+     */
+    public WorkDTO findWorkForPermissionCheck(@NotNull String domainId, @NotNull String id) {
+        return wrapCatch(
+                () -> workRepository.findByDomainIdAndIdWithFields(domainId, id, WorkMapper.PERMISSION_CHECK_PATHS)
+                        .map(workMapper::toPermissionCheckDTO)
+                        .orElseThrow(
+                                () -> WorkNotFound
+                                        .notFoundById()
+                                        .errorCode(-1)
+                                        .workId(id)
+                                        .build()
+                        ),
+                -1
+        );
+    }
+
     /**
      * Return the child of a work by his id
      *
@@ -730,12 +798,90 @@ public class WorkService {
      * @return the work
      */
     public List<WorkDTO> findWorkChildrenById(@NotNull String domainId, @NotNull String workId, @Valid WorkDetailsOptionDTO workDetailsOptionDTO) {
+        return workDTOAssembler.toDTO(
+                wrapCatch(
+                        () -> workRepository.findByDomainIdAndParentWorkId(domainId, workId),
+                        -1
+                ),
+                workDetailsOptionDTO
+        );
+    }
+
+    /**
+     * Return a page of the works in the subtree of a work
+     * the subtree is read on the ancestor path with the same keyset cursor of the search, the limit is capped
+     * to {@link #MAX_PAGE_SIZE}
+     *
+     * @param domainId             the id of the domain
+     * @param workId               the id of the root of the subtree
+     * @param cursor               the cursor returned for the last work of the previous page, null to start from the first one
+     * @param limit                the max number of works to return
+     * @param workDetailsOptionDTO the option to retrieve the works
+     * @return the descendants of the work ordered by creation
+     */
+    public List<WorkDTO> findWorkSubtreeById(@NotNull String domainId, @NotNull String workId, String cursor, @NotNull Integer limit, @Valid WorkDetailsOptionDTO workDetailsOptionDTO) {
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-1)
+                        .errorMessage("The limit need to be greater than zero")
+                        .errorDomain("WorkService::findWorkSubtreeById")
+                        .build(),
+                () -> limit > 0
+        );
+        assertWorkExists(domainId, workId, -2);
+        var queryParameter = workMapper.toModel(
+                WorkQueryParameterDTO.builder()
+                        .domainIds(List.of(domainId))
+                        .cursor(cursor)
+                        .limit(Math.min(limit, MAX_PAGE_SIZE))
+                        .fields(workDetailsOptionDTO != null ? workDetailsOptionDTO.fields() : null)
+                        .build()
+        );
+        queryParameter.setAncestorIds(List.of(workId));
+        return workDTOAssembler.toDTO(
+                wrapCatch(
+                        () -> workRepository.searchAll(queryParameter),
+                        -3
+                ),
+                workDetailsOptionDTO
+        );
+    }
+
+    /**
+     * Return the count of the works in the subtree of a work for each status
+     *
+     * @param domainId the id of the domain
+     * @param workId   the id of the root of the subtree
+     * @return the count for each status
+     */
+    public List<WorkStatusCountStatisticsDTO> getWorkSubtreeStatusStatistics(@NotNull String domainId, @NotNull String workId) {
+        assertWorkExists(domainId, workId, -1);
         return wrapCatch(
-                () -> workRepository.findByDomainIdAndParentWorkId(domainId, workId)
-                        .stream()
-                        .map(w -> workMapper.toDTO(w, workDetailsOptionDTO))
-                        .toList(),
-                -1
+                () -> workRepository.getSubtreeStatusStatistics(domainId, workId),
+                -2
+        ).stream().map(domainMapper::toDTO).toList();
+    }
+
+    /**
+     * Check that a work exists in the domain
+     *
+     * @param domainId  the id of the domain
+     * @param workId    the id of the work
+     * @param errorCode the error code of the thrown exception
+     * @throws WorkNotFound if the work doesn't exist
+     */
+    private void assertWorkExists(String domainId, String workId, int errorCode) {
+        assertion(
+                () -> wrapCatch(
+                        () -> workRepository.existsByDomainIdAndId(domainId, workId),
+                        errorCode
+                ),
+                WorkNotFound
+                        .notFoundById()
+                        .errorCode(errorCode)
+                        .workId(workId)
+                        .build()
         );
     }
 
@@ -755,6 +901,44 @@ public class WorkService {
         );
     }
 
+    /**
+     * Return a page of the full history of a work, from the most recent entry to the oldest one
+     * the work keeps embedded only the most recent entries, all of them are in the work history, the limit is capped
+     * to {@link #MAX_PAGE_SIZE}
+     *
+     * @param domainId the id of the domain
+     * @param workId   the id of the work
+     * @param anchorId the id of the last entry of the previous page, null to start from the most recent one
+     * @param limit    the max number of entries to return
+     * @return the history entries
+     */
+    public List<WorkHistoryEntryDTO> findWorkHistoryEntriesById(@NotNull String domainId, @NotNull String workId, String anchorId, @NotNull Integer limit) {
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-1)
+                        .errorMessage("The limit need to be greater than zero")
+                        .errorDomain("WorkService::findWorkHistoryEntriesById")
+                        .build(),
+                () -> limit > 0
+        );
+        assertion(
+                () -> wrapCatch(
+                        () -> workRepository.existsByDomainIdAndId(domainId, workId),
+                        -2
+                ),
+                WorkNotFound
+                        .notFoundById()
+                        .errorCode(-3)
+                        .workId(workId)
+                        .build()
+        );
+        return wrapCatch(
+                () -> workHistoryEntryRepository.findPageByWorkId(domainId, workId, anchorId, Math.min(limit, MAX_PAGE_SIZE)),
+                -4
+        ).stream().map(workMapper::toDTO).toList();
+    }
+
     /**
      * Return the shop group id by the work id
      *
@@ -785,9 +969,53 @@ public class WorkService {
                 () -> workRepository.searchAll(workMapper.toModel(workQueryParameterDTO)),
                 -1
         );
-        return workList.stream()
-                .map(w -> workMapper.toDTO(w, WorkDetailsOptionDTO.builder().build()))
-                .toList();
+        return workDTOAssembler.toDTO(
+                workList,
+                WorkDetailsOptionDTO.builder()
+                        .fields(workQueryParameterDTO.fields())
+                        .build()
+        );
+    }
+
+    /**
+     * Export all the work that match the filters of the query parameter
+     * the works are read from a database cursor and converted in batches, so only
+     * a batch at time is kept in memory
+     *
+     * @param workQueryParameterDTO the query parameter, position and limit are ignored
+     * @param batchSize             the number of works converted at time
+     * @param batchConsumer         the consumer of each converted batch
+     */
+    public void exportAllWork(WorkQueryParameterDTO workQueryParameterDTO, int batchSize, Consumer<List<WorkDTO>> batchConsumer) {
+        var workDetailsOptionDTO = WorkDetailsOptionDTO.builder()
+                .fields(workQueryParameterDTO.fields())
+                .build();
+        var queryParameter = workMapper.toModel(workQueryParameterDTO);
+        try (Stream<Work> workStream = wrapCatch(() -> workRepository.streamAll(queryParameter), -1)) {
+            List<Work> batch = new ArrayList<>(batchSize);
+            Iterator<Work> iterator = workStream.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    batchConsumer.accept(workDTOAssembler.toDTO(batch, workDetailsOptionDTO));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(workDTOAssembler.toDTO(batch, workDetailsOptionDTO));
+            }
+        }
+    }
+
+    /**
+     * Return the cursor to use for continue the search after the last work of a page
+     *
+     * @param works the page of works returned by the search
+     * @return the cursor of the last work, empty if the page is empty
+     */
+    public Optional<String> getCursor(List<WorkDTO> works) {
+        if (works == null || works.isEmpty()) return Optional.empty();
+        return Optional.ofNullable(workMapper.toCursor(works.getLast()));
     }
 
     /**
@@ -797,7 +1025,8 @@ public class WorkService {
      */
     @Cacheable(
             value = {"work-authorization"},
-            key = "{#authentication.principal, #workDTO.shopGroup.id}")
+            key = "{#authentication.principal, #workDTO.id, @authorizationVersionService.getVersion(#workDTO.id)}",
+            condition = "#authentication != null")
     public List<AuthorizationResourceDTO> getAuthorizationByWork(WorkDTO workDTO, Authentication authentication) {
         if (authentication == null) {
             // if the DTO has been requested by an anonymous user, then the access level is Read
@@ -805,64 +1034,126 @@ public class WorkService {
             return emptyList();
         }
 
-        List<AuthorizationResourceDTO> accessList = new ArrayList<>();
         //check if it's a root
-        boolean isRoot = authService.checkForRoot(authentication);
+        boolean isRoot = authorizationSnapshotService.isRoot(authentication);
+        return toAccessList(
+                // a root users
+                isRoot ||
+                        // or a user that has the right as writer on the work
+                        authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Write,
+                                WORK_AUTHORIZATION_TEMPLATE.formatted(workDTO.id())
+                        ) ||
+                        // user of the shop group are always treated as admin on the work
+                        shopGroupService.checkContainsAUserEmail(
+                                // fire not found work exception
+                                workDTO.domain().id(),
+                                workDTO.shopGroup().id(),
+                                authentication.getCredentials().toString()
+                        ),
+                // a root users or a user that has the right as admin on the work
+                isRoot ||
+                        authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Admin,
+                                WORK_AUTHORIZATION_TEMPLATE.formatted(workDTO.id())
+                        ),
+                // a root users or a user that is the leader of the group
+                isRoot ||
+                        authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Admin,
+                                SHOP_GROUP_AUTHORIZATION_TEMPLATE.formatted(workDTO.shopGroup().id())
+                        )
+        );
+    }
+
+    /**
+     * Compute the access list for all the works of a page
+     * <p>
+     * The authorizations of the user on the works and on the shop groups are loaded once for all the page,
+     * as well as the shop groups, among the ones of the page, that contain the user, then each access list
+     * is computed in memory, so the cost doesn't depend on the size of the page
+     *
+     * @param workDTOs       the works of the page
+     * @param authentication the authentication of the user
+     * @return the access list for each work id
+     */
+    public Map<String, List<AuthorizationResourceDTO>> getAuthorizationByWorks(List<WorkDTO> workDTOs, Authentication authentication) {
+        Map<String, List<AuthorizationResourceDTO>> result = new HashMap<>();
+        if (workDTOs == null || workDTOs.isEmpty()) return result;
+        if (authentication == null) {
+            // if the DTO has been requested by an anonymous user, then the access level is Read
+            // in other case will should have been blocked by the security layer
+            workDTOs.forEach(workDTO -> result.put(workDTO.id(), emptyList()));
+            return result;
+        }
+
+        boolean isRoot = authorizationSnapshotService.isRoot(authentication);
+        String owner = authentication.getCredentials().toString();
+        // the granted resources are checked with the prefix trie of the authorization snapshot
+        Predicate<String> canWrite = prefix -> false;
+        Predicate<String> canAdmin = prefix -> false;
+        Map<String, Set<String>> memberOfShopGroupIdsByDomain = new HashMap<>();
+        if (!isRoot) {
+            canWrite = authorizationSnapshotService.getResourcePrefixCheck(authentication, AuthorizationTypeDTO.Write);
+            canAdmin = authorizationSnapshotService.getResourcePrefixCheck(authentication, AuthorizationTypeDTO.Admin);
+            // the shop groups of the page that contain the user, checked within the domain of the works
+            workDTOs.stream()
+                    .filter(workDTO -> workDTO.domain() != null && workDTO.shopGroup() != null && workDTO.shopGroup().id() != null)
+                    .collect(Collectors.groupingBy(workDTO -> workDTO.domain().id(), Collectors.mapping(workDTO -> workDTO.shopGroup().id(), Collectors.toSet())))
+                    .forEach(
+                            (domainId, shopGroupIds) -> memberOfShopGroupIdsByDomain.put(
+                                    domainId,
+                                    shopGroupService.findIdsContainingAUserEmail(domainId, shopGroupIds, owner)
+                            )
+                    );
+        }
+
+        for (WorkDTO workDTO : workDTOs) {
+            String workResource = WORK_AUTHORIZATION_TEMPLATE.formatted(workDTO.id());
+            String shopGroupId = workDTO.shopGroup() != null ? workDTO.shopGroup().id() : null;
+            String shopGroupResource = SHOP_GROUP_AUTHORIZATION_TEMPLATE.formatted(shopGroupId);
+            boolean memberOfShopGroup = shopGroupId != null && workDTO.domain() != null &&
+                    memberOfShopGroupIdsByDomain.getOrDefault(workDTO.domain().id(), Set.of()).contains(shopGroupId);
+            result.put(
+                    workDTO.id(),
+                    toAccessList(
+                            isRoot || canWrite.test(workResource) || memberOfShopGroup,
+                            isRoot || canAdmin.test(workResource),
+                            isRoot || (shopGroupId != null && canAdmin.test(shopGroupResource))
+                    )
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Create the access list of a work
+     *
+     * @param canWrite              the user can write the work
+     * @param canAdminLocation      the user can change the location
+     * @param canAdminAssignTo      the user can change the assigned users
+     * @return the access list
+     */
+    private static List<AuthorizationResourceDTO> toAccessList(boolean canWrite, boolean canAdminLocation, boolean canAdminAssignTo) {
+        List<AuthorizationResourceDTO> accessList = new ArrayList<>();
         // check if user can write normal field
         accessList.add(AuthorizationResourceDTO.builder()
                 .field("*")
-                .authorizationType(
-                        any(
-                                // a root users
-                                () -> authService.checkForRoot(authentication),
-                                // or a user that has the right as writer on the work
-                                () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
-                                        authentication,
-                                        AuthorizationTypeDTO.Write,
-                                        WORK_AUTHORIZATION_TEMPLATE.formatted(workDTO.id())
-                                ),
-                                // user of the shop group are always treated as admin on the work
-                                () -> shopGroupService.checkContainsAUserEmail(
-                                        // fire not found work exception
-                                        workDTO.domain().id(),
-                                        workDTO.shopGroup().id(),
-                                        authentication.getCredentials().toString()
-                                )
-                        ) ? AuthorizationTypeDTO.Write : AuthorizationTypeDTO.Read)
+                .authorizationType(canWrite ? AuthorizationTypeDTO.Write : AuthorizationTypeDTO.Read)
                 .build());
-
         // check if can modify location
         accessList.add(AuthorizationResourceDTO.builder()
                 .field("location")
-                .authorizationType(
-                        any(
-                                // a root users
-                                () -> isRoot,
-                                // or a user that has the right as admin on the work
-                                () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
-                                        authentication,
-                                        AuthorizationTypeDTO.Admin,
-                                        WORK_AUTHORIZATION_TEMPLATE.formatted(workDTO.id())
-                                )
-                        ) ? AuthorizationTypeDTO.Admin : AuthorizationTypeDTO.Read)
+                .authorizationType(canAdminLocation ? AuthorizationTypeDTO.Admin : AuthorizationTypeDTO.Read)
                 .build());
-
         // check if can modify assignTo
         accessList.add(AuthorizationResourceDTO.builder()
                 .field("assignTo")
-                .authorizationType(
-                        any(
-                                // a root users
-                                () -> isRoot,
-                                // or a user that is the leader of the group
-                                () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
-                                        authentication,
-                                        AuthorizationTypeDTO.Admin,
-                                        SHOP_GROUP_AUTHORIZATION_TEMPLATE.formatted(workDTO.shopGroup().id())
-                                )
-                        ) ? AuthorizationTypeDTO.Admin : AuthorizationTypeDTO.Read)
+                .authorizationType(canAdminAssignTo ? AuthorizationTypeDTO.Admin : AuthorizationTypeDTO.Read)
                 .build());
-
         return accessList;
     }
 
@@ -873,12 +1164,12 @@ public class WorkService {
      * @return the work
      */
     public List<WorkDTO> findAllByBucketId(String id) {
-        return wrapCatch(
-                () -> workRepository.findAllByCurrentBucketAssociationBucketIdIs(id)
-                        .stream()
-                        .map(w -> workMapper.toDTO(w, WorkDetailsOptionDTO.builder().build()))
-                        .toList(),
-                -1
+        return workDTOAssembler.toDTO(
+                wrapCatch(
+                        () -> workRepository.findAllByCurrentBucketAssociationBucketIdIs(id),
+                        -1
+                ),
+                WorkDetailsOptionDTO.builder().build()
         );
     }
 
@@ -0,0 +1,250 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkStatusCounterService
+ * ----------------------------------------------------------------------------
+ * File       : WorkStatusCounterService.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkStatusCountStatistics;
+import edu.stanford.slac.core_work_management.model.WorkStatusCounter;
+import edu.stanford.slac.core_work_management.repository.DomainRepository;
+import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import edu.stanford.slac.core_work_management.repository.WorkStatusCounterRepository;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Maintain the number of the works of each domain for each work type and status.
+ * <p>
+ * The counters are updated with atomic increments when a work is created or changes status, so reading the
+ * statistics of a domain is a read of its counters and the writes of the works never scan the work collection.
+ * The counters are periodically rebuilt from the works with an aggregation covered by an index to correct any drift,
+ * for example when a work has been modified outside the application. The aggregated and the stored counts are read
+ * from the same transaction snapshot and the correction is written as their difference with an increment, so the
+ * increments done during the rebuild are neither lost nor counted twice. A domain is rebuilt by one node at a time
+ * and at most once per reconciliation interval across the cluster.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class WorkStatusCounterService {
+    public static final String LAST_RECONCILE_MAP = "cwm-work-status-counter-last-reconcile";
+    private final Clock clock;
+    private final HazelcastInstance hazelcastInstance;
+    private final CWMAppProperties cwmAppProperties;
+    private final WorkRepository workRepository;
+    private final DomainRepository domainRepository;
+    private final WorkStatusCounterRepository workStatusCounterRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The change of the status of a work
+     *
+     * @param domainId       the domain of the work
+     * @param workTypeId     the work type of the work
+     * @param previousStatus the status before the change, null for a new work
+     * @param newStatus      the status after the change
+     */
+    public record StatusChange(String domainId, String workTypeId, WorkflowState previousStatus, WorkflowState newStatus) {
+    }
+
+    /**
+     * The counts of a domain read from the same snapshot
+     *
+     * @param aggregated the counts aggregated from the works
+     * @param stored     the stored counters
+     */
+    private record CountSnapshot(List<WorkStatusCounter> aggregated, List<WorkStatusCounter> stored) {
+    }
+
+    /**
+     * Count a new work
+     *
+     * @param work the created work
+     */
+    public void workCreated(Work work) {
+        if (work.getWorkType() == null || work.getCurrentStatus() == null) return;
+        statusChanged(
+                List.of(
+                        new StatusChange(work.getDomainId(), work.getWorkType().getId(), null, work.getCurrentStatus().getStatus())
+                )
+        );
+    }
+
+    /**
+     * Move the works from the counter of the previous status to the one of the new status
+     * all the changes are applied with a single write
+     *
+     * @param changes the status changes
+     */
+    public void statusChanged(Collection<StatusChange> changes) {
+        Map<String, WorkStatusCounter> deltaById = new HashMap<>();
+        for (StatusChange change : changes) {
+            if (change.workTypeId() == null || Objects.equals(change.previousStatus(), change.newStatus())) continue;
+            if (change.previousStatus() != null) {
+                addDelta(deltaById, change.domainId(), change.workTypeId(), change.previousStatus(), -1);
+            }
+            if (change.newStatus() != null) {
+                addDelta(deltaById, change.domainId(), change.workTypeId(), change.newStatus(), 1);
+            }
+        }
+        deltaById.values().removeIf(delta -> delta.getCount() == 0);
+        if (deltaById.isEmpty()) return;
+        wrapCatch(
+                () -> {
+                    workStatusCounterRepository.increment(deltaById.values());
+                    return null;
+                },
+                -1
+        );
+    }
+
+    /**
+     * Return the statistics of a domain
+     *
+     * @param domainId the id of the domain
+     * @return the count of the works for each status grouped by work type id
+     */
+    public Map<String, List<WorkStatusCountStatistics>> getStatisticsByDomainId(String domainId) {
+        Map<String, List<WorkStatusCountStatistics>> statistics = new HashMap<>();
+        wrapCatch(
+                () -> workStatusCounterRepository.findAllByDomainId(domainId),
+                -1
+        ).stream()
+                .filter(counter -> counter.getCount() != null && counter.getCount() > 0)
+                .forEach(
+                        counter -> statistics.computeIfAbsent(counter.getWorkTypeId(), k -> new ArrayList<>()).add(
+                                WorkStatusCountStatistics.builder()
+                                        .status(counter.getStatus())
+                                        .count(counter.getCount().intValue())
+                                        .build()
+                        )
+                );
+        return statistics;
+    }
+
+    /**
+     * Rebuild the counters of a domain from its works
+     * the domain is skipped if another node is rebuilding it
+     *
+     * @param domainId the id of the domain
+     * @return true if the counters have been rebuilt
+     */
+    public boolean reconcile(String domainId) {
+        IMap<String, Long> lastReconcile = getLastReconcile();
+        if (!lastReconcile.tryLock(domainId)) return false;
+        try {
+            lastReconcile.set(domainId, clock.millis());
+            // a work and its counters are written in the same transaction, so reading both in one transaction
+            // gives the aggregated and the stored counts of the same snapshot
+            CountSnapshot snapshot = transactionTemplate.execute(
+                    status -> new CountSnapshot(
+                            wrapCatch(
+                                    () -> workRepository.getWorkStatusCountByDomainId(domainId),
+                                    -1
+                            ),
+                            wrapCatch(
+                                    () -> workStatusCounterRepository.findAllByDomainId(domainId),
+                                    -2
+                            )
+                    )
+            );
+            List<WorkStatusCounter> counters = snapshot.aggregated();
+            List<WorkStatusCounter> storedCounters = snapshot.stored();
+            Map<String, WorkStatusCounter> deltaById = new HashMap<>();
+            counters.forEach(counter -> addDelta(deltaById, domainId, counter.getWorkTypeId(), counter.getStatus(), counter.getCount()));
+            storedCounters.stream()
+                    .filter(counter -> counter.getCount() != null)
+                    .forEach(counter -> addDelta(deltaById, domainId, counter.getWorkTypeId(), counter.getStatus(), -counter.getCount()));
+            deltaById.values().removeIf(delta -> delta.getCount() == 0);
+            if (!deltaById.isEmpty()) {
+                // the correction is applied out of the snapshot as an increment, the changes committed after it are kept
+                wrapCatch(
+                        () -> {
+                            workStatusCounterRepository.increment(deltaById.values());
+                            return null;
+                        },
+                        -3
+                );
+            }
+            log.info("[statistic domainId {}] Corrected {} of {} work status counters", domainId, deltaById.size(), counters.size());
+            return true;
+        } finally {
+            lastReconcile.unlock(domainId);
+        }
+    }
+
+    /**
+     * Rebuild the counters of all the domains not rebuilt during the last reconciliation interval
+     */
+    public void reconcileAll() {
+        IMap<String, Long> lastReconcile = getLastReconcile();
+        long intervalMillis = cwmAppProperties.getWorkStatisticReconciliationInterval().toMillis();
+        wrapCatch(
+                domainRepository::findAll,
+                -1
+        ).forEach(
+                domain -> {
+                    Long lastReconcileMillis = lastReconcile.get(domain.getId());
+                    // rebuilt by another node
+                    if (lastReconcileMillis != null && clock.millis() - lastReconcileMillis < intervalMillis) return;
+                    reconcile(domain.getId());
+                }
+        );
+    }
+
+    /**
+     * Add a delta to the counter of a work type and status
+     *
+     * @param deltaById  the deltas by counter id
+     * @param domainId   the domain id
+     * @param workTypeId the work type id
+     * @param status     the status
+     * @param delta      the value to add
+     */
+    private static void addDelta(Map<String, WorkStatusCounter> deltaById, String domainId, String workTypeId, WorkflowState status, long delta) {
+        WorkStatusCounter counter = deltaById.computeIfAbsent(
+                WorkStatusCounter.idOf(domainId, workTypeId, status),
+                id -> WorkStatusCounter.builder()
+                        .domainId(domainId)
+                        .workTypeId(workTypeId)
+                        .status(status)
+                        .count(0L)
+                        .build()
+        );
+        counter.setCount(counter.getCount() + delta);
+    }
+
+    private IMap<String, Long> getLastReconcile() {
+        return hazelcastInstance.getMap(LAST_RECONCILE_MAP);
+    }
+}
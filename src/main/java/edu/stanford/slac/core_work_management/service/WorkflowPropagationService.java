@@ -0,0 +1,221 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkflowPropagationService
+ * ----------------------------------------------------------------------------
+ * File       : WorkflowPropagationService.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.exception.WorkNotFound;
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidation;
+import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidatorRegistry;
+import edu.stanford.slac.core_work_management.service.workflow.BaseWorkflow;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowRegistry;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowWorkUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Propagate the workflow update of a work to all its ancestors.
+ * <p>
+ * The whole ancestor chain is loaded with a single query using the ancestor ids stored on the work, and the children
+ * of all the ancestors with another one. The validators are then evaluated bottom-up in memory, each ancestor sees
+ * the state of its child already updated, and all the ancestors that have been modified are written with a single
+ * version checked bulk write. The number of round trips does not depend on the depth of the tree.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class WorkflowPropagationService {
+    private final WorkRepository workRepository;
+    private final WorkTypeValidatorRegistry workTypeValidatorRegistry;
+    private final WorkflowRegistry workflowRegistry;
+    private final WorkChangeTracker workChangeTracker;
+
+    /**
+     * Return the ancestor ids for a new child of the parent work
+     * the ids are taken from the path stored on the parent, the ancestors are loaded only for a parent
+     * created before the path was stored
+     *
+     * @param parentWork the parent work
+     * @return the ids of the ancestors of the child, from the root to the parent
+     */
+    public List<String> ancestorIdsForChildOf(Work parentWork) {
+        List<String> ancestorIds = new ArrayList<>();
+        if (parentWork.getParentWorkId() != null) {
+            if (parentWork.getAncestorIds() != null && !parentWork.getAncestorIds().isEmpty()) {
+                ancestorIds.addAll(parentWork.getAncestorIds());
+            } else {
+                List<Work> parentAncestors = loadAncestors(parentWork);
+                // the ancestors are loaded from the nearest to the root
+                for (int idx = parentAncestors.size() - 1; idx >= 0; idx--) {
+                    ancestorIds.add(parentAncestors.get(idx).getId());
+                }
+            }
+        }
+        ancestorIds.add(parentWork.getId());
+        return ancestorIds;
+    }
+
+    /**
+     * Update the workflow of all the ancestors of a work
+     * the work needs to be already saved
+     *
+     * @param work the work that has been updated
+     */
+    public void updateAncestorsWorkflow(Work work) {
+        if (work == null || work.getParentWorkId() == null) {
+            return;
+        }
+        List<Work> ancestors = loadAncestors(work);
+        if (ancestors.isEmpty()) {
+            return;
+        }
+
+        // load the children of all the ancestors at once
+        List<String> ancestorIds = ancestors.stream().map(Work::getId).toList();
+        Map<String, List<Work>> childrenByParent = wrapCatch(
+                () -> workRepository.findByDomainIdAndParentWorkIdIn(work.getDomainId(), ancestorIds),
+                -1
+        ).stream().collect(Collectors.groupingBy(Work::getParentWorkId));
+
+        // evaluate the ancestors from the nearest one up to the root
+        List<WorkChangeTracker.TrackedWork> trackedAncestors = new ArrayList<>(ancestors.size());
+        Work child = work;
+        for (Work ancestor : ancestors) {
+            trackedAncestors.add(workChangeTracker.track(ancestor));
+            WorkTypeValidation wtv = workTypeValidatorRegistry.getValidator(
+                    ancestor.getWorkType().getValidatorName()
+            );
+            BaseWorkflow wInstance = workflowRegistry.getWorkflow(ancestor.getWorkType().getWorkflow().getImplementation());
+            wtv.updateWorkflow(
+                    WorkflowWorkUpdate.builder()
+                            .work(ancestor)
+                            .workflow(wInstance)
+                            .children(replaceChild(childrenByParent.get(ancestor.getId()), child))
+                            .build()
+            );
+            child = ancestor;
+        }
+
+        // write all the changed ancestors at once
+        int changedAncestors = wrapCatch(
+                () -> workChangeTracker.saveAll(trackedAncestors),
+                -2
+        );
+        if (changedAncestors > 0) {
+            log.info("Workflow of {} ancestors of work '{}' has been updated", changedAncestors, work.getId());
+        }
+    }
+
+    /**
+     * Load the ancestors of a work
+     * <p>
+     * the ancestors are loaded with one query when the work has the ancestor ids, otherwise
+     * the tree is walked up until an ancestor with the ancestor ids is found
+     *
+     * @param work the work
+     * @return the ancestors ordered from the direct parent to the root
+     */
+    private List<Work> loadAncestors(Work work) {
+        List<Work> ancestors = new ArrayList<>();
+        Work current = work;
+        while (current.getParentWorkId() != null) {
+            if (current.getAncestorIds() != null && !current.getAncestorIds().isEmpty()) {
+                ancestors.addAll(findAllAncestorById(current.getDomainId(), current.getAncestorIds()));
+                break;
+            }
+            // work created before the ancestor ids were stored
+            String parentWorkId = current.getParentWorkId();
+            current = wrapCatch(
+                    () -> workRepository.findByDomainIdAndId(work.getDomainId(), parentWorkId).orElseThrow(
+                            () -> WorkNotFound
+                                    .notFoundById()
+                                    .errorCode(-3)
+                                    .workId(parentWorkId)
+                                    .build()
+                    ),
+                    -4
+            );
+            ancestors.add(current);
+        }
+        return ancestors;
+    }
+
+    /**
+     * Find all the ancestors by id
+     *
+     * @param domainId    the domain id
+     * @param ancestorIds the ids of the ancestors from the root to the direct parent
+     * @return the ancestors ordered from the direct parent to the root
+     */
+    private List<Work> findAllAncestorById(String domainId, List<String> ancestorIds) {
+        Map<String, Work> ancestorById = new HashMap<>();
+        wrapCatch(
+                () -> workRepository.findAllById(ancestorIds),
+                -5
+        ).forEach(w -> ancestorById.put(w.getId(), w));
+        List<Work> ancestors = new ArrayList<>(ancestorIds.size());
+        for (int idx = ancestorIds.size() - 1; idx >= 0; idx--) {
+            String ancestorId = ancestorIds.get(idx);
+            Work ancestor = ancestorById.get(ancestorId);
+            if (ancestor == null || !domainId.equals(ancestor.getDomainId())) {
+                throw WorkNotFound
+                        .notFoundById()
+                        .errorCode(-6)
+                        .workId(ancestorId)
+                        .build();
+            }
+            ancestors.add(ancestor);
+        }
+        return ancestors;
+    }
+
+    /**
+     * Return the children list where the stored child is replaced with the updated one
+     *
+     * @param children the stored children
+     * @param child    the updated child
+     * @return the children with the updated child
+     */
+    private static List<Work> replaceChild(List<Work> children, Work child) {
+        if (children == null) {
+            return Collections.singletonList(child);
+        }
+        List<Work> result = new ArrayList<>(children.size());
+        boolean replaced = false;
+        for (Work stored : children) {
+            if (stored.getId().equals(child.getId())) {
+                result.add(child);
+                replaced = true;
+            } else {
+                result.add(stored);
+            }
+        }
+        if (!replaced) result.add(child);
+        return result;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : AuthorizationSnapshotService
+ * ----------------------------------------------------------------------------
+ * File       : AuthorizationSnapshotService.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service.authorization;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Keep, for each principal, a snapshot of the resources on which it has been authorized.
+ * <p>
+ * The snapshot is loaded with one query for each authorization type and the granted resources are
+ * indexed in a prefix trie, so the checks by resource prefix done on each request are answered in memory.
+ * The snapshots expire after a short time and are all invalidated when the application changes the grants,
+ * to invalidate all of them is cheaper than find the principals involved by a change of grants. The number of the
+ * kept snapshots is bounded, the snapshot of the least recently checked principal is evicted first.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class AuthorizationSnapshotService {
+    /**
+     * The prefix of all the resources managed by the application
+     */
+    public static final String RESOURCE_ROOT_PREFIX = "/cwm/";
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+    private final AuthService authService;
+    private final CWMAppProperties cwmAppProperties;
+    private final Clock clock;
+    private final Map<String, Snapshot> snapshots = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                    return size() > getMaxSize();
+                }
+            }
+    );
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Check if the principal is a root user
+     *
+     * @param authentication the authentication of the principal
+     * @return true if the principal is a root user
+     */
+    public boolean isRoot(Authentication authentication) {
+        if (!authService.checkAuthentication(authentication)) return false;
+        return getSnapshot(authentication).root();
+    }
+
+    /**
+     * Check if the principal has at least the authorization type on a resource that start with the prefix
+     * root users are authorized on all the resources
+     *
+     * @param authentication    the authentication of the principal
+     * @param authorizationType the minimum authorization type
+     * @param resourcePrefix    the prefix of the resource
+     * @return true if the principal is authorized
+     */
+    public boolean checkAuthorizationForOwnerAuthTypeAndResourcePrefix(Authentication authentication, AuthorizationTypeDTO authorizationType, String resourcePrefix) {
+        if (!authService.checkAuthentication(authentication)) return false;
+        Snapshot snapshot = getSnapshot(authentication);
+        if (snapshot.root()) return true;
+        ResourcePrefixTrie trie = snapshot.resources().get(authorizationType);
+        return trie != null && trie.containsPrefix(resourcePrefix);
+    }
+
+    /**
+     * Return all the resources, that start with the prefix, on which the principal has at least the authorization type
+     *
+     * @param authentication    the authentication of the principal
+     * @param authorizationType the minimum authorization type
+     * @param resourcePrefix    the prefix of the resource
+     * @return the found resources
+     */
+    public List<String> findResources(Authentication authentication, AuthorizationTypeDTO authorizationType, String resourcePrefix) {
+        if (!authService.checkAuthentication(authentication)) return List.of();
+        ResourcePrefixTrie trie = getSnapshot(authentication).resources().get(authorizationType);
+        return trie != null ? trie.findByPrefix(resourcePrefix) : List.of();
+    }
+
+    /**
+     * Return a check of the resource prefixes on which the principal has at least the authorization type
+     * the snapshot is read once, so the check can be applied to many resources without other lookups
+     *
+     * @param authentication    the authentication of the principal
+     * @param authorizationType the minimum authorization type
+     * @return the check that is true if a granted resource starts with the prefix
+     */
+    public Predicate<String> getResourcePrefixCheck(Authentication authentication, AuthorizationTypeDTO authorizationType) {
+        if (!authService.checkAuthentication(authentication)) return prefix -> false;
+        Snapshot snapshot = getSnapshot(authentication);
+        if (snapshot.root()) return prefix -> true;
+        ResourcePrefixTrie trie = snapshot.resources().get(authorizationType);
+        return prefix -> trie != null && prefix != null && trie.containsPrefix(prefix);
+    }
+
+    /**
+     * Invalidate all the snapshots, to be called each time the grants are changed
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        snapshots.clear();
+    }
+
+    /**
+     * Return the valid snapshot of the principal or load a new one
+     *
+     * @param authentication the authentication of the principal
+     * @return the snapshot
+     */
+    private Snapshot getSnapshot(Authentication authentication) {
+        String owner = authentication.getCredentials().toString();
+        Instant now = clock.instant();
+        long currentGeneration = generation.get();
+        Snapshot snapshot = snapshots.get(owner);
+        if (snapshot != null && snapshot.generation() == currentGeneration && now.isBefore(snapshot.expireAt())) {
+            return snapshot;
+        }
+        snapshot = loadSnapshot(authentication, owner, currentGeneration, now.plus(getTtl()));
+        // a snapshot loaded during an invalidation is used only by the current check
+        if (!getTtl().isZero() && generation.get() == currentGeneration) {
+            snapshots.put(owner, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Load the snapshot of the principal
+     *
+     * @param authentication the authentication of the principal
+     * @param owner          the owner of the authorizations
+     * @param generation     the generation of the snapshots
+     * @param expireAt       the expiration of the snapshot
+     * @return the loaded snapshot
+     */
+    private Snapshot loadSnapshot(Authentication authentication, String owner, long generation, Instant expireAt) {
+        boolean root = authService.checkForRoot(authentication);
+        Map<AuthorizationTypeDTO, ResourcePrefixTrie> resources = new EnumMap<>(AuthorizationTypeDTO.class);
+        for (AuthorizationTypeDTO authorizationType : AuthorizationTypeDTO.values()) {
+            ResourcePrefixTrie trie = new ResourcePrefixTrie();
+            // the auth service return also the authorization with an higher type
+            wrapCatch(
+                    () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                            owner,
+                            authorizationType,
+                            RESOURCE_ROOT_PREFIX,
+                            Optional.empty()
+                    ),
+                    -1
+            ).stream().map(AuthorizationDTO::resource).forEach(trie::add);
+            resources.put(authorizationType, trie);
+        }
+        log.debug("Authorization snapshot loaded for {}", owner);
+        return new Snapshot(generation, expireAt, root, resources);
+    }
+
+    /**
+     * Return the number of the kept snapshots
+     *
+     * @return the number of the snapshots
+     */
+    int size() {
+        return snapshots.size();
+    }
+
+    private int getMaxSize() {
+        Integer maxSize = cwmAppProperties.getAuthorizationSnapshotMaxSize();
+        return maxSize != null && maxSize > 0 ? maxSize : DEFAULT_MAX_SIZE;
+    }
+
+    private Duration getTtl() {
+        Duration ttl = cwmAppProperties.getAuthorizationSnapshotTtl();
+        return ttl == null || ttl.isNegative() ? Duration.ZERO : ttl;
+    }
+
+    /**
+     * The snapshot of the grants of a principal
+     *
+     * @param generation the generation of the snapshots when it has been loaded
+     * @param expireAt   the expiration of the snapshot
+     * @param root       the principal is a root user
+     * @param resources  the granted resources for each authorization type
+     */
+    private record Snapshot(long generation, Instant expireAt, boolean root, Map<AuthorizationTypeDTO, ResourcePrefixTrie> resources) {
+    }
+
+    /**
+     * Character trie of the resources, it answers if a resource starts with a prefix
+     * walking only the characters of the prefix
+     */
+    static final class ResourcePrefixTrie {
+        private final Node root = new Node();
+
+        /**
+         * Add a resource to the trie
+         *
+         * @param resource the resource to add
+         */
+        void add(String resource) {
+            if (resource == null) return;
+            Node node = root;
+            for (int idx = 0; idx < resource.length(); idx++) {
+                node = node.children.computeIfAbsent(resource.charAt(idx), c -> new Node());
+            }
+            node.resource = resource;
+        }
+
+        /**
+         * Check if at least a resource start with the prefix
+         *
+         * @param prefix the prefix
+         * @return true if a resource starts with the prefix
+         */
+        boolean containsPrefix(String prefix) {
+            return findNode(prefix) != null;
+        }
+
+        /**
+         * Return all the resources that start with the prefix
+         *
+         * @param prefix the prefix
+         * @return the found resources
+         */
+        List<String> findByPrefix(String prefix) {
+            List<String> result = new ArrayList<>();
+            Node node = findNode(prefix);
+            if (node == null) return result;
+            List<Node> toVisit = new ArrayList<>(List.of(node));
+            while (!toVisit.isEmpty()) {
+                Node current = toVisit.removeLast();
+                if (current.resource != null) result.add(current.resource);
+                toVisit.addAll(current.children.values());
+            }
+            return result;
+        }
+
+        private Node findNode(String prefix) {
+            Node node = root;
+            for (int idx = 0; idx < prefix.length() && node != null; idx++) {
+                node = node.children.get(prefix.charAt(idx));
+            }
+            // the root node exists also when the trie is empty
+            return node == root && node.children.isEmpty() ? null : node;
+        }
+
+        private static final class Node {
+            private final Map<Character, Node> children = new HashMap<>();
+            private String resource;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : AuthorizationVersionService
+ * ----------------------------------------------------------------------------
+ * File       : AuthorizationVersionService.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service.authorization;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.topic.ITopic;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Keep the cluster wide version of the work authorizations.
+ * <p>
+ * The version is part of the key of the cached work access list, so when the grants of a work change
+ * the old entries are no more reachable on any node. The grants of the shop groups can involve any work
+ * so their changes increment a global version shared by all the works. The versions expire when they are not read
+ * for longer than the cached access lists live, so a work that is not used anymore does not keep its entry and its
+ * version can restart from zero safely.
+ * Each change is also published on a topic, so every node drops its local authorization snapshots.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class AuthorizationVersionService {
+    public static final String AUTHORIZATION_VERSION_MAP = "cwm-authorization-version";
+    public static final String AUTHORIZATION_CHANGE_TOPIC = "cwm-authorization-change";
+    private static final String GLOBAL_VERSION_KEY = "*";
+    private final HazelcastInstance hazelcastInstance;
+    private final AuthorizationSnapshotService authorizationSnapshotService;
+    private UUID listenerId;
+
+    @PostConstruct
+    public void init() {
+        listenerId = getTopic().addMessageListener(
+                message -> {
+                    log.debug("Authorization changed on {}, dropping the local snapshots", message.getMessageObject());
+                    authorizationSnapshotService.invalidateAll();
+                }
+        );
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (listenerId != null) {
+            getTopic().removeMessageListener(listenerId);
+        }
+    }
+
+    /**
+     * Return the version of the authorization of a work
+     *
+     * @param workId the id of the work
+     * @return the version, it changes each time the grants of the work or of any shop group change
+     */
+    public String getVersion(String workId) {
+        IMap<String, Long> versions = getVersions();
+        return "%d.%d".formatted(
+                versions.getOrDefault(GLOBAL_VERSION_KEY, 0L),
+                workId != null ? versions.getOrDefault(workId, 0L) : 0L
+        );
+    }
+
+    /**
+     * Notify that the grants of a work have been changed
+     *
+     * @param workId the id of the work
+     */
+    public void workAuthorizationChanged(String workId) {
+        getVersions().merge(workId, 1L, Long::sum);
+        notifyChange("work/%s".formatted(workId));
+    }
+
+    /**
+     * Notify that the grants or the members of a shop group have been changed
+     *
+     * @param shopGroupId the id of the shop group
+     */
+    public void shopGroupAuthorizationChanged(String shopGroupId) {
+        getVersions().merge(GLOBAL_VERSION_KEY, 1L, Long::sum);
+        notifyChange("shop-group/%s".formatted(shopGroupId));
+    }
+
+    /**
+     * Drop the local snapshots and publish the change to the other nodes
+     *
+     * @param resource the changed resource
+     */
+    private void notifyChange(String resource) {
+        authorizationSnapshotService.invalidateAll();
+        getTopic().publish(resource);
+    }
+
+    private IMap<String, Long> getVersions() {
+        return hazelcastInstance.getMap(AUTHORIZATION_VERSION_MAP);
+    }
+
+    private ITopic<String> getTopic() {
+        return hazelcastInstance.getTopic(AUTHORIZATION_CHANGE_TOPIC);
+    }
+}
@@ -19,7 +19,6 @@ package edu.stanford.slac.core_work_management.service.authorization;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
 import edu.stanford.slac.ad.eed.baselib.exception.NotAuthorized;
-import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.core_work_management.api.v1.dto.UpdateShopGroupDTO;
 import edu.stanford.slac.core_work_management.service.ShopGroupService;
 import edu.stanford.slac.core_work_management.service.WorkService;
@@ -34,7 +33,7 @@ import static edu.stanford.slac.core_work_management.config.AuthorizationStringC
 @Service
 @AllArgsConstructor
 public class ShopGroupAuthorizationService {
-    private final AuthService authService;
+    private final AuthorizationSnapshotService authorizationSnapshotService;
     private final WorkService workService;
     private final ShopGroupService shopGroupService;
 
@@ -55,9 +54,9 @@ public class ShopGroupAuthorizationService {
                 // should be one of these
                 () -> any(
                         // a root users
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationSnapshotService.isRoot(authentication),
                         // or an user that can administer this shop group
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 AuthorizationTypeDTO.Admin,
                                 SHOP_GROUP_AUTHORIZATION_TEMPLATE.formatted(shopGroupId))
@@ -40,6 +40,7 @@ import static edu.stanford.slac.core_work_management.config.AuthorizationStringC
 @AllArgsConstructor
 public class WorkAuthorizationService {
     private final AuthService authService;
+    private final AuthorizationSnapshotService authorizationSnapshotService;
     private final WorkService workService;
     private final ShopGroupService shopGroupService;
 
@@ -58,10 +59,10 @@ public class WorkAuthorizationService {
     public boolean checkUpdate(Authentication authentication, String domainId, String workId, UpdateWorkDTO updateWorkDTO) {
         // get stored work for check authorization on all fields
         var currentStoredWork = wrapCatch(
-                () -> workService.findWorkById(domainId, workId, WorkDetailsOptionDTO.builder().build()),
+                () -> workService.findWorkForPermissionCheck(domainId, workId),
                 -1
         );
-        boolean isRoot = authService.checkForRoot(authentication);
+        boolean isRoot = authorizationSnapshotService.isRoot(authentication);
         // check for auth
         assertion(
                 NotAuthorized.notAuthorizedBuilder()
@@ -75,16 +76,15 @@ public class WorkAuthorizationService {
                         // a root users
                         () -> isRoot,
                         // or a user that has the right as writer on the work
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 AuthorizationTypeDTO.Write,
                                 WORK_AUTHORIZATION_TEMPLATE.formatted(workId)
                         ),
                         // user of the shop group are always treated as admin on the work
                         () -> shopGroupService.checkContainsAUserEmail(
-                                // fire not found work exception
                                 domainId,
-                                workService.getShopGroupIdByWorkId(workId),
+                                currentStoredWork.shopGroup().id(),
                                 authentication.getCredentials().toString()
                         )
                 )
@@ -102,7 +102,7 @@ public class WorkAuthorizationService {
                             // a root users
                             () -> isRoot,
                             // or a user that has the right as admin on the work
-                            () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                            () -> authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                     authentication,
                                     AuthorizationTypeDTO.Admin,
                                     WORK_AUTHORIZATION_TEMPLATE.formatted(workId)
@@ -126,10 +126,10 @@ public class WorkAuthorizationService {
     public boolean canAssociateToBucket(Authentication authentication, String domainId, String workId, String buketId, Optional<Boolean> move) {
         // get stored work for check authorization on all fields
         var currentStoredWork = wrapCatch(
-                () -> workService.findWorkById(domainId, workId, WorkDetailsOptionDTO.builder().build()),
+                () -> workService.findWorkForPermissionCheck(domainId, workId),
                 -1
         );
-        boolean isRoot = authService.checkForRoot(authentication);
+        boolean isRoot = authorizationSnapshotService.isRoot(authentication);
         // check for auth
         assertion(
                 NotAuthorized.notAuthorizedBuilder()
@@ -143,16 +143,15 @@ public class WorkAuthorizationService {
                         // a root users
                         () -> isRoot,
                         // or a user that has the right as writer on the work
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 AuthorizationTypeDTO.Write,
                                 WORK_AUTHORIZATION_TEMPLATE.formatted(workId)
                         ),
                         // user of the shop group are always treated as admin on the work
                         () -> shopGroupService.checkContainsAUserEmail(
-                                // fire not found work exception
                                 domainId,
-                                workService.getShopGroupIdByWorkId(workId),
+                                currentStoredWork.shopGroup().id(),
                                 authentication.getCredentials().toString()
                         )
                 )
@@ -171,10 +170,10 @@ public class WorkAuthorizationService {
     public boolean checkLoggingOnWork(Authentication authentication, String domainId, String workId) {
         // get stored work for check authorization on all fields
         var currentStoredWork = wrapCatch(
-                () -> workService.findWorkById(domainId, workId, WorkDetailsOptionDTO.builder().build()),
+                () -> workService.findWorkForPermissionCheck(domainId, workId),
                 -1
         );
-        boolean isRoot = authService.checkForRoot(authentication);
+        boolean isRoot = authorizationSnapshotService.isRoot(authentication);
         // check for auth
         assertion(
                 NotAuthorized.notAuthorizedBuilder()
@@ -188,16 +187,15 @@ public class WorkAuthorizationService {
                         // a root users
                         () -> isRoot,
                         // or a user that has the right as writer on the work
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 AuthorizationTypeDTO.Write,
                                 WORK_AUTHORIZATION_TEMPLATE.formatted(workId)
                         ),
                         // user of the shop group are always treated as admin on the work
                         () -> shopGroupService.checkContainsAUserEmail(
-                                // fire not found work exception
                                 domainId,
-                                workService.getShopGroupIdByWorkId(workId),
+                                currentStoredWork.shopGroup().id(),
                                 authentication.getCredentials().toString()
                         )
                 )
@@ -212,12 +210,10 @@ public class WorkAuthorizationService {
      * @return true if the user can update the status of the activity, false otherwise
      */
     public boolean applyCompletionDTOList(ApiResultResponse<List<WorkDTO>> workDTOS, Authentication authentication) {
+        // compute the access list of all the page at once
+        var authListByWorkId = workService.getAuthorizationByWorks(workDTOS.getPayload(), authentication);
         List<WorkDTO> filledDTOs = workDTOS.getPayload().stream().map(
-                workDTO -> {
-                    // check for auth
-                    var authList = workService.getAuthorizationByWork(workDTO, authentication);
-                    return workDTO.toBuilder().accessList(authList).build();
-                }
+                workDTO -> workDTO.toBuilder().accessList(authListByWorkId.get(workDTO.id())).build()
         ).toList();
         workDTOS.setPayload(filledDTOs);
         return true;
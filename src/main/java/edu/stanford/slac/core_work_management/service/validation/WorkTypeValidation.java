@@ -7,6 +7,7 @@ import edu.stanford.slac.core_work_management.api.v1.dto.WriteCustomFieldDTO;
 import edu.stanford.slac.core_work_management.model.CustomField;
 import edu.stanford.slac.core_work_management.model.WATypeCustomField;
 import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.repository.WorkRepository;
 import edu.stanford.slac.core_work_management.service.workflow.AdmitChildrenValidation;
 import edu.stanford.slac.core_work_management.service.workflow.NewWorkValidation;
 import edu.stanford.slac.core_work_management.service.workflow.UpdateWorkValidation;
@@ -31,6 +32,23 @@ public abstract class WorkTypeValidation {
      */
     abstract public void updateWorkflow(WorkflowWorkUpdate workflowWorkUpdate) throws ControllerLogicException;
 
+    /**
+     * Return the children of the work under workflow update
+     * the children already loaded by the caller are used when present, so the state of the
+     * children that are not yet saved is considered, otherwise they are read from the repository
+     *
+     * @param workflowWorkUpdate the work's workflow update
+     * @param workRepository     the repository used when the children are not loaded
+     * @return the children of the work
+     */
+    protected List<Work> findChildren(WorkflowWorkUpdate workflowWorkUpdate, WorkRepository workRepository) {
+        if (workflowWorkUpdate.getChildren() != null) {
+            return workflowWorkUpdate.getChildren();
+        }
+        Work work = workflowWorkUpdate.getWork();
+        return workRepository.findByDomainIdAndParentWorkId(work.getDomainId(), work.getId());
+    }
+
     /**
      * Check if the work is valid
      * the validation is done according to the state of the workflow
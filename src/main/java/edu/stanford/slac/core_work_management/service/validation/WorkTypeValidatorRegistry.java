@@ -0,0 +1,413 @@
+/*
+ * -----------------------------------------------------------------------------
+ * Title      : WorkTypeValidatorRegistry
+ * ----------------------------------------------------------------------------
+ * File       : WorkTypeValidatorRegistry.java
+ * Author     : Claudio Bisegni, bisegni@slac.stanford.edu
+ * ----------------------------------------------------------------------------
+ * This file is part of core-work-management. It is subject to
+ * the license terms in the LICENSE.txt file found in the top-level directory
+ * of this distribution and at:
+ * <a href="https://confluence.slac.stanford.edu/display/ppareg/LICENSE.html"/>.
+ * No part of core-work-management, including this file, may be
+ * copied, modified, propagated, or distributed except according to the terms
+ *  contained in the LICENSE.txt file.
+ * ----------------------------------------------------------------------------
+ */
+
+package edu.stanford.slac.core_work_management.service.validation;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import edu.stanford.slac.core_work_management.service.ScriptService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Registry of the work type validators.
+ * <p>
+ * All the validator scripts found in the classpath are compiled, and instantiated as autowired beans,
+ * when all the singletons of the application have been created, so a broken script stops the application
+ * at boot. The validator instances are stateless and are shared by all the requests, they are
+ * identified by the validator name of the work type that is the classpath location of the script.
+ * <p>
+ * When a validator scripts directory is configured its scripts override the classpath ones and the directory
+ * is watched: each changed script is compiled, in its own class loader, into a new version of the validator
+ * that replaces the old one atomically. A script that fails to compile keeps the previous version active.
+ * Each version holds a reference to its class loader; the reference of a replaced version is released only when
+ * its instance is no more reachable, so the calls still running on it complete before the class loader is closed.
+ * <p>
+ * The validators listed in the static compiled validators configuration are type checked and compiled statically.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class WorkTypeValidatorRegistry implements SmartInitializingSingleton, DisposableBean {
+    public static final String VALIDATOR_LOCATION = "validation/";
+    public static final String VALIDATOR_LOCATION_PATTERN = "classpath*:" + VALIDATOR_LOCATION + "*.groovy";
+    private static final String VALIDATOR_EXTENSION = ".groovy";
+    private final ApplicationContext applicationContext;
+    private final ScriptService scriptService;
+    private final CWMAppProperties cwmAppProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LoadedValidator> validators = new ConcurrentHashMap<>();
+    private final Set<WeakReference<ClassLoader>> loadedVersions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final Cleaner versionCleaner = Cleaner.create();
+    private WatchService watchService;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        meterRegistry.gauge("cwm_validator_loaded_versions", this, WorkTypeValidatorRegistry::countLoadedVersions);
+        loadAll();
+        Path scriptsPath = getScriptsPath();
+        if (scriptsPath != null) {
+            loadDirectory(scriptsPath);
+            startWatcher(scriptsPath);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Return the validator for a validator name
+     * the validators not found at boot are loaded, and then cached, from the classpath
+     *
+     * @param validatorName the name of the validator
+     * @return the validator instance
+     */
+    public WorkTypeValidation getValidator(String validatorName) {
+        if (validatorName == null) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("The validator name is mandatory")
+                    .errorDomain("WorkTypeValidatorRegistry::getValidator")
+                    .build();
+        }
+        LoadedValidator validator = validators.get(validatorName);
+        if (validator != null) return validator.instance();
+        log.warn("Validator {} has not been loaded at boot, it will be loaded from the classpath", validatorName);
+        // the instance holds a reference to its class, so the eviction from the script cache doesn't close its class loader
+        return validators.computeIfAbsent(
+                validatorName,
+                name -> new LoadedValidator(
+                        0,
+                        null,
+                        scriptService.getInterfaceImplementationFromFile(name, WorkTypeValidation.class)
+                )
+        ).instance();
+    }
+
+    /**
+     * Return the version of a validator
+     *
+     * @param validatorName the name of the validator
+     * @return the version, zero for the validators loaded on demand, or -1 if the validator is not loaded
+     */
+    public long getVersion(String validatorName) {
+        LoadedValidator validator = validators.get(validatorName);
+        return validator != null ? validator.version() : -1;
+    }
+
+    /**
+     * Return the name of all the loaded validators
+     *
+     * @return the validator names
+     */
+    public Set<String> getValidatorNames() {
+        return Set.copyOf(validators.keySet());
+    }
+
+    /**
+     * Remove a validator, its version is released when it is no more used
+     *
+     * @param validatorName the name of the validator
+     * @return true if the validator was loaded
+     */
+    public boolean unregister(String validatorName) {
+        LoadedValidator old = validators.remove(validatorName);
+        if (old == null) return false;
+        release(old);
+        return true;
+    }
+
+    /**
+     * Compile a validator script from the file system and replace the current version
+     * if the script fails to compile the current version is kept
+     *
+     * @param scriptFile the script file
+     * @return true if a new version has been loaded
+     */
+    public boolean reload(Path scriptFile) {
+        String validatorName = VALIDATOR_LOCATION + scriptFile.getFileName();
+        try {
+            String scriptContent = Files.readString(scriptFile, StandardCharsets.UTF_8);
+            LoadedValidator current = validators.get(validatorName);
+            if (current != null && Objects.equals(current.source(), scriptContent)) return false;
+            replace(validatorName, createValidator(validatorName, scriptFile.getFileName().toString(), scriptContent));
+            log.info("Validator {} reloaded from {} at version {}", validatorName, scriptFile, getVersion(validatorName));
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to reload the validator {} from {}, the current version is kept: {}", validatorName, scriptFile, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Compile and instantiate all the validators found in the classpath
+     * any error is propagated to stop the application
+     */
+    private void loadAll() {
+        Resource[] resources;
+        try {
+            resources = new PathMatchingResourcePatternResolver(getClass().getClassLoader()).getResources(VALIDATOR_LOCATION_PATTERN);
+        } catch (Exception e) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("Failed to scan the validator scripts: " + e.getMessage())
+                    .errorDomain("WorkTypeValidatorRegistry::loadAll")
+                    .build();
+        }
+        for (Resource resource : resources) {
+            String validatorName = VALIDATOR_LOCATION + resource.getFilename();
+            if (validators.containsKey(validatorName)) {
+                log.warn("Validator {} found more than once in the classpath, {} is ignored", validatorName, resource);
+                continue;
+            }
+            try {
+                String scriptContent = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                validators.put(validatorName, createValidator(validatorName, resource.getFilename(), scriptContent));
+            } catch (IOException e) {
+                throw ControllerLogicException.builder()
+                        .errorCode(-2)
+                        .errorMessage("Failed to read the validator %s: %s".formatted(validatorName, e.getMessage()))
+                        .errorDomain("WorkTypeValidatorRegistry::loadAll")
+                        .build();
+            }
+            log.info("Validator {} loaded", validatorName);
+        }
+    }
+
+    /**
+     * Compile and instantiate all the validators found in the scripts directory
+     * they override the ones with the same name found in the classpath
+     *
+     * @param scriptsPath the scripts directory
+     */
+    private void loadDirectory(Path scriptsPath) {
+        try (Stream<Path> files = Files.list(scriptsPath)) {
+            for (Path scriptFile : files.filter(this::isValidatorScript).toList()) {
+                String validatorName = VALIDATOR_LOCATION + scriptFile.getFileName();
+                replace(
+                        validatorName,
+                        createValidator(validatorName, scriptFile.getFileName().toString(), Files.readString(scriptFile, StandardCharsets.UTF_8))
+                );
+                log.info("Validator {} loaded from {}", validatorName, scriptFile);
+            }
+        } catch (IOException e) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("Failed to load the validator scripts from %s: %s".formatted(scriptsPath, e.getMessage()))
+                    .errorDomain("WorkTypeValidatorRegistry::loadDirectory")
+                    .build();
+        }
+    }
+
+    /**
+     * Start the thread that watch the scripts directory
+     *
+     * @param scriptsPath the scripts directory
+     */
+    private void startWatcher(Path scriptsPath) {
+        try {
+            watchService = scriptsPath.getFileSystem().newWatchService();
+            scriptsPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("Failed to watch the validator scripts in %s: %s".formatted(scriptsPath, e.getMessage()))
+                    .errorDomain("WorkTypeValidatorRegistry::startWatcher")
+                    .build();
+        }
+        Thread.ofPlatform()
+                .daemon()
+                .name("cwm-validator-watcher")
+                .start(() -> watch(scriptsPath));
+        log.info("Watching the validator scripts in {}", scriptsPath);
+    }
+
+    /**
+     * Reload the scripts changed in the directory until the watch service is closed
+     *
+     * @param scriptsPath the scripts directory
+     */
+    private void watch(Path scriptsPath) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                // let the editors complete the write of the file
+                Thread.sleep(100);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path changed) {
+                        Path scriptFile = scriptsPath.resolve(changed);
+                        if (isValidatorScript(scriptFile)) reload(scriptFile);
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("The validator scripts directory {} is no more accessible", scriptsPath);
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.info("Stopped watching the validator scripts in {}", scriptsPath);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Replace the current version of a validator and release the old one
+     *
+     * @param validatorName the name of the validator
+     * @param validator     the new version
+     */
+    private void replace(String validatorName, LoadedValidator validator) {
+        LoadedValidator old = validators.put(validatorName, validator);
+        if (old != null) release(old);
+    }
+
+    /**
+     * Release the reference of a version to its class loader once its instance is no more reachable
+     * the callers that got the instance before its replacement keep it reachable until their calls complete
+     *
+     * @param validator the version to release
+     */
+    private void release(LoadedValidator validator) {
+        // the action must not reference the instance, the class doesn't reference it
+        Class<?> validatorClass = validator.instance().getClass();
+        ScriptService releasingService = scriptService;
+        versionCleaner.register(validator.instance(), () -> releasingService.releaseClass(validatorClass));
+    }
+
+    /**
+     * Compile a validator script and create the autowired instance
+     *
+     * @param validatorName the name of the validator
+     * @param fileName      the name of the script file
+     * @param scriptContent the content of the script
+     * @return the new version of the validator
+     */
+    private LoadedValidator createValidator(String validatorName, String fileName, String scriptContent) {
+        Class<?> validatorClass = null;
+        try {
+            validatorClass = scriptService.compileScript(scriptContent, fileName, getCompilationMode(validatorName));
+            if (!WorkTypeValidation.class.isAssignableFrom(validatorClass)) {
+                throw ControllerLogicException.builder()
+                        .errorCode(-1)
+                        .errorMessage("The validator %s does not extend %s".formatted(validatorName, WorkTypeValidation.class.getName()))
+                        .errorDomain("WorkTypeValidatorRegistry::createValidator")
+                        .build();
+            }
+            // the instance is not created as a full bean because the bean factory keeps, by class, the
+            // lifecycle metadata of the created beans and that would prevent the unloading of the old versions
+            AutowireCapableBeanFactory factory = applicationContext.getAutowireCapableBeanFactory();
+            var instance = (WorkTypeValidation) factory.autowire(validatorClass, AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR, false);
+            factory.autowireBean(instance);
+            loadedVersions.add(new WeakReference<>(validatorClass.getClassLoader()));
+            return new LoadedValidator(versionSequence.incrementAndGet(), scriptContent, instance);
+        } catch (ControllerLogicException e) {
+            scriptService.releaseClass(validatorClass);
+            throw e;
+        } catch (Exception e) {
+            scriptService.releaseClass(validatorClass);
+            throw ControllerLogicException.builder()
+                    .errorCode(-2)
+                    .errorMessage("Failed to load the validator %s: %s".formatted(validatorName, e.getMessage()))
+                    .errorDomain("WorkTypeValidatorRegistry::createValidator")
+                    .build();
+        }
+    }
+
+    /**
+     * Return the number of the validator versions whose classes have not been unloaded yet
+     *
+     * @return the number of loaded versions
+     */
+    private double countLoadedVersions() {
+        loadedVersions.removeIf(ref -> ref.get() == null);
+        return loadedVersions.size();
+    }
+
+    /**
+     * Return the compilation mode of a validator
+     * the validators are compiled statically only if configured, the mode can be chosen for each script
+     *
+     * @param validatorName the name of the validator
+     * @return the compilation mode
+     */
+    private ScriptService.CompilationMode getCompilationMode(String validatorName) {
+        Set<String> staticCompiledValidators = cwmAppProperties.getStaticCompiledValidators();
+        return staticCompiledValidators != null && staticCompiledValidators.contains(validatorName) ?
+                ScriptService.CompilationMode.Static :
+                ScriptService.CompilationMode.Dynamic;
+    }
+
+    private boolean isValidatorScript(Path file) {
+        return file.getFileName().toString().endsWith(VALIDATOR_EXTENSION) && Files.isRegularFile(file);
+    }
+
+    private Path getScriptsPath() {
+        String scriptsPath = cwmAppProperties.getValidatorScriptsPath();
+        if (scriptsPath == null || scriptsPath.isBlank()) return null;
+        Path path = Path.of(scriptsPath);
+        if (!Files.isDirectory(path)) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("The validator scripts path %s is not a directory".formatted(scriptsPath))
+                    .errorDomain("WorkTypeValidatorRegistry::getScriptsPath")
+                    .build();
+        }
+        return path;
+    }
+
+    /**
+     * A version of a validator
+     *
+     * @param version  the version, zero for the validators loaded on demand from the script service
+     * @param source   the content of the script
+     * @param instance the validator instance
+     */
+    private record LoadedValidator(long version, String source, WorkTypeValidation instance) {
+    }
+}
@@ -7,11 +7,13 @@ import edu.stanford.slac.core_work_management.api.v1.dto.WriteCustomFieldDTO;
 import edu.stanford.slac.core_work_management.model.*;
 import jakarta.validation.ConstraintValidatorContext;
 import jakarta.validation.ConstraintViolationException;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.util.*;
 
-import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 import static edu.stanford.slac.core_work_management.service.workflow.WorkflowState.Closed;
 
 /**
@@ -23,6 +25,78 @@ public abstract class BaseWorkflow {
      * The valid transitions for each state
      */
     protected Map<WorkflowState, Set<WorkflowState>> validTransitions;
+    /**
+     * The compiled transition matrix, for each state ordinal the bits of the states that can be reached
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile long[] transitionMatrix;
+    /**
+     * The compiled valid transitions, immutable and backed by enum map and set
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Map<WorkflowState, Set<WorkflowState>> compiledTransitions;
+
+    /**
+     * Set the valid transitions, the compiled tables are invalidated
+     *
+     * @param validTransitions the valid transitions for each state
+     */
+    public void setValidTransitions(Map<WorkflowState, Set<WorkflowState>> validTransitions) {
+        this.validTransitions = validTransitions;
+        this.transitionMatrix = null;
+        this.compiledTransitions = null;
+    }
+
+    /**
+     * Compile the valid transitions in a transition matrix and in an immutable enum map
+     * it is called once at startup for each workflow bean, or at the first use
+     */
+    public void compileTransitions() {
+        WorkflowState[] states = WorkflowState.values();
+        long[] matrix = new long[states.length];
+        EnumMap<WorkflowState, Set<WorkflowState>> transitions = new EnumMap<>(WorkflowState.class);
+        if (validTransitions != null) {
+            validTransitions.forEach(
+                    (from, toStates) -> {
+                        EnumSet<WorkflowState> reachable = toStates == null || toStates.isEmpty() ?
+                                EnumSet.noneOf(WorkflowState.class) :
+                                EnumSet.copyOf(toStates);
+                        reachable.forEach(to -> matrix[from.ordinal()] |= 1L << to.ordinal());
+                        transitions.put(from, Collections.unmodifiableSet(reachable));
+                    }
+            );
+        }
+        compiledTransitions = Collections.unmodifiableMap(transitions);
+        transitionMatrix = matrix;
+    }
+
+    /**
+     * Return the compiled valid transitions
+     *
+     * @return the immutable valid transitions for each state
+     */
+    public Map<WorkflowState, Set<WorkflowState>> getCompiledTransitions() {
+        if (compiledTransitions == null) compileTransitions();
+        return compiledTransitions;
+    }
+
+    /**
+     * Check if a transition is valid
+     *
+     * @param from the current state
+     * @param to   the new state
+     * @return true if the workflow can move from the current state to the new one
+     */
+    public boolean isTransitionValid(WorkflowState from, WorkflowState to) {
+        long[] matrix = transitionMatrix;
+        if (matrix == null) {
+            compileTransitions();
+            matrix = transitionMatrix;
+        }
+        return from != null && to != null && (matrix[from.ordinal()] & (1L << to.ordinal())) != 0;
+    }
 
     /**
      * Check if the work is completed
@@ -42,7 +116,7 @@ public abstract class BaseWorkflow {
      * @return the set of the permitted status
      */
     public Set<WorkflowState> permittedStatus(Work work) {
-        return validTransitions.get(work.getCurrentStatus().getStatus());
+        return getCompiledTransitions().get(work.getCurrentStatus().getStatus());
     }
     /**
      * Check if the work can move to the state
@@ -59,15 +133,15 @@ public abstract class BaseWorkflow {
                     .errorDomain("BaseWorkflow::update")
                     .build();
         }
-        assertion(
-                ControllerLogicException
-                        .builder()
-                        .errorCode(-1)
-                        .errorMessage("Cannot move to state %s from %s".formatted(newState.getNewState().name(), work.getCurrentStatus().getStatus().name()))
-                        .errorDomain("BaseWorkflow::update")
-                        .build(),
-                () -> validTransitions != null && validTransitions.get(work.getCurrentStatus().getStatus()).contains(Objects.requireNonNullElse(newState.getNewState(), WorkflowState.None))
-        );
+        // the error is built only when the transition is not valid
+        if (!isTransitionValid(work.getCurrentStatus().getStatus(), Objects.requireNonNullElse(newState.getNewState(), WorkflowState.None))) {
+            throw ControllerLogicException
+                    .builder()
+                    .errorCode(-1)
+                    .errorMessage("Cannot move to state %s from %s".formatted(newState.getNewState(), work.getCurrentStatus().getStatus().name()))
+                    .errorDomain("BaseWorkflow::update")
+                    .build();
+        }
     }
 
     /**
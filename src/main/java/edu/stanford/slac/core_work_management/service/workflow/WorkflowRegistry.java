@@ -0,0 +1,110 @@
+package edu.stanford.slac.core_work_management.service.workflow;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkflowDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkflowStateDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registry of the workflow implementations.
+ * <p>
+ * At startup the transitions of each workflow bean are compiled in a transition matrix and the
+ * description of the workflow is converted, once, in an immutable {@link WorkflowDTO}, so the
+ * transition checks and the mapping of the workflows are lookups that do not allocate.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class WorkflowRegistry {
+    private final Map<String, BaseWorkflow> workflowBeans;
+    private final Map<String, WorkflowDTO> workflowDTOs = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        workflowBeans.forEach(
+                (implementation, workflow) -> {
+                    workflow.compileTransitions();
+                    Workflow annotation = workflow.getClass().getAnnotation(Workflow.class);
+                    if (annotation == null) {
+                        log.warn("Workflow bean {} is not annotated with @Workflow and cannot be used by a domain", implementation);
+                        return;
+                    }
+                    workflowDTOs.put(
+                            implementation,
+                            WorkflowDTO.builder()
+                                    .name(annotation.name())
+                                    .description(annotation.description())
+                                    .implementation(implementation)
+                                    .validTransitions(toDTO(workflow.getCompiledTransitions()))
+                                    .build()
+                    );
+                    log.info("Workflow {} compiled", implementation);
+                }
+        );
+    }
+
+    /**
+     * Return the workflow instance for an implementation
+     *
+     * @param implementation the name of the workflow bean
+     * @return the workflow instance
+     */
+    public BaseWorkflow getWorkflow(String implementation) {
+        BaseWorkflow workflow = implementation != null ? workflowBeans.get(implementation) : null;
+        if (workflow == null) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("The workflow class with name '%s' is not available".formatted(implementation))
+                    .errorDomain("WorkflowRegistry::getWorkflow")
+                    .build();
+        }
+        return workflow;
+    }
+
+    /**
+     * Return the immutable description of a workflow implementation
+     * the returned DTO has no id because it is not bound to any domain
+     *
+     * @param implementation the name of the workflow bean
+     * @return the workflow DTO
+     */
+    public WorkflowDTO getWorkflowDTO(String implementation) {
+        WorkflowDTO workflowDTO = implementation != null ? workflowDTOs.get(implementation) : null;
+        if (workflowDTO == null) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("The workflow class with name '%s' is not available".formatted(implementation))
+                    .errorDomain("WorkflowRegistry::getWorkflowDTO")
+                    .build();
+        }
+        return workflowDTO;
+    }
+
+    /**
+     * Convert the compiled transitions to an immutable map of WorkflowStateDTO
+     *
+     * @param transitions the transitions to convert
+     * @return the converted map
+     */
+    private static Map<WorkflowStateDTO, Set<WorkflowStateDTO>> toDTO(Map<WorkflowState, Set<WorkflowState>> transitions) {
+        EnumMap<WorkflowStateDTO, Set<WorkflowStateDTO>> result = new EnumMap<>(WorkflowStateDTO.class);
+        transitions.forEach(
+                (from, toStates) -> {
+                    EnumSet<WorkflowStateDTO> converted = EnumSet.noneOf(WorkflowStateDTO.class);
+                    toStates.forEach(to -> converted.add(WorkflowStateDTO.valueOf(to.name())));
+                    result.put(WorkflowStateDTO.valueOf(from.name()), Collections.unmodifiableSet(converted));
+                }
+        );
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.util.List;
+
 @Getter
 @Builder
 @AllArgsConstructor
@@ -13,4 +15,9 @@ public class WorkflowWorkUpdate {
     private Work work;
     private BaseWorkflow workflow;
     private UpdateWorkflowState updateWorkflowState;
+    /**
+     * The children of the work, when they are already loaded
+     * null means that they need to be read from the repository
+     */
+    private List<Work> children;
 }
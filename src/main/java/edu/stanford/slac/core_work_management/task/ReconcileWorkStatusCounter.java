@@ -0,0 +1,30 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.core_work_management.service.WorkStatusCounterService;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically rebuild the work status counters from the works
+ */
+@Log4j2
+@Component
+@AllArgsConstructor
+public class ReconcileWorkStatusCounter {
+    private final WorkStatusCounterService workStatusCounterService;
+
+    @Scheduled(
+            initialDelayString = "${edu.stanford.slac.core-work-management.work-statistic-reconciliation-interval}",
+            fixedDelayString = "${edu.stanford.slac.core-work-management.work-statistic-reconciliation-interval}"
+    )
+    public void reconcile() {
+        log.info("Rebuild the work status counters");
+        try {
+            workStatusCounterService.reconcileAll();
+        } catch (Throwable e) {
+            log.error("Error rebuilding the work status counters", e);
+        }
+    }
+}
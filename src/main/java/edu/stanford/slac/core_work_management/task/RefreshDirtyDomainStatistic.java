@@ -0,0 +1,25 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.core_work_management.service.DomainStatisticRefreshQueue;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refresh the statistics of the domains marked as dirty
+ */
+@Log4j2
+@Component
+@AllArgsConstructor
+public class RefreshDirtyDomainStatistic {
+    private final DomainStatisticRefreshQueue domainStatisticRefreshQueue;
+
+    @Scheduled(fixedDelayString = "${edu.stanford.slac.core-work-management.domain-statistic-refresh-window}")
+    public void refresh() {
+        int refreshed = domainStatisticRefreshQueue.refreshDirtyDomains();
+        if (refreshed > 0) {
+            log.info("Statistics of {} domains refreshed", refreshed);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package edu.stanford.slac.core_work_management.task;
+
+import edu.stanford.slac.core_work_management.service.ShopGroupMembershipIndex;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically reload the shop group membership index, the changes published by the other nodes can be lost
+ */
+@Log4j2
+@Component
+@AllArgsConstructor
+public class ResyncShopGroupMembershipIndex {
+    private final ShopGroupMembershipIndex shopGroupMembershipIndex;
+
+    @Scheduled(
+            initialDelayString = "${edu.stanford.slac.core-work-management.shop-group-membership-resync-interval}",
+            fixedDelayString = "${edu.stanford.slac.core-work-management.shop-group-membership-resync-interval}"
+    )
+    public void resync() {
+        try {
+            shopGroupMembershipIndex.reloadAll();
+        } catch (Throwable e) {
+            log.error("Error reloading the shop group membership index", e);
+        }
+    }
+}
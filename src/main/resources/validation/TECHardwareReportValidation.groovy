@@ -47,16 +47,16 @@ class TECHardwareReportValidation extends WorkTypeValidation {
         var currentStatus = work.getCurrentStatus().getStatus();
         switch (currentStatus) {
             case WorkflowState.Created -> {
-                manageInCreateState(workflowInstance, work)
+                manageInCreateState(workflowInstance, work, findChildren(workflowWorkUpdate, workRepository))
             }
             case WorkflowState.Scheduled -> {
-                manageScheduledState(workflowInstance, work)
+                manageScheduledState(workflowInstance, work, findChildren(workflowWorkUpdate, workRepository))
             }
             case WorkflowState.InProgress -> {
-                manageInProgressState(workflowInstance, work)
+                manageInProgressState(workflowInstance, work, findChildren(workflowWorkUpdate, workRepository))
             }
             case WorkflowState.ReviewToClose -> {
-                manageReviewToCodeState(workflowInstance, work, updateWorkflowState)
+                manageReviewToCodeState(workflowInstance, work, findChildren(workflowWorkUpdate, workRepository), updateWorkflowState)
             }
             case WorkflowState.Closed -> {
             }
@@ -64,8 +64,7 @@ class TECHardwareReportValidation extends WorkTypeValidation {
     }
 
 
-    private void manageReviewToCodeState(BaseWorkflow workflowInstance, Work work, UpdateWorkflowState updateWorkflowState) {
-        List<Work> children = workRepository.findByDomainIdAndParentWorkId(work.getDomainId(), work.getId());
+    private void manageReviewToCodeState(BaseWorkflow workflowInstance, Work work, List<Work> children, UpdateWorkflowState updateWorkflowState) {
         boolean childrenInReadyForWork = children.stream().anyMatch(w -> w.getCurrentStatus().getStatus() == WorkflowState.ReadyForWork);
         boolean childrenInProgress = children.stream().anyMatch(w -> EnumSet.of(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose).contains(w.getCurrentStatus().getStatus()));
         if (childrenInProgress) {
@@ -77,8 +76,7 @@ class TECHardwareReportValidation extends WorkTypeValidation {
         }
     }
 
-    private void manageInProgressState(BaseWorkflow workflowInstance, Work work) {
-        List<Work> children = workRepository.findByDomainIdAndParentWorkId(work.getDomainId(), work.getId());
+    private void manageInProgressState(BaseWorkflow workflowInstance, Work work, List<Work> children) {
         boolean childrenInReadyForWork = children.stream().anyMatch(w -> w.getCurrentStatus().getStatus() == WorkflowState.ReadyForWork);
         boolean childrenInProgress = children.stream().anyMatch(w -> EnumSet.of(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose).contains(w.getCurrentStatus().getStatus()));
          if (!childrenInProgress && !childrenInReadyForWork) {
@@ -88,8 +86,7 @@ class TECHardwareReportValidation extends WorkTypeValidation {
         }
     }
 
-    private void manageScheduledState(BaseWorkflow workflowInstance, Work work) {
-        List<Work> children = workRepository.findByDomainIdAndParentWorkId(work.getDomainId(), work.getId());
+    private void manageScheduledState(BaseWorkflow workflowInstance, Work work, List<Work> children) {
         boolean childrenInReadyForWork = children.stream().anyMatch(w -> w.getCurrentStatus().getStatus() == WorkflowState.ReadyForWork);
         boolean childrenInProgress = children.stream().anyMatch(w -> EnumSet.of(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose).contains(w.getCurrentStatus().getStatus()));
         if (!childrenInProgress && !childrenInReadyForWork) {
@@ -99,8 +96,7 @@ class TECHardwareReportValidation extends WorkTypeValidation {
         }
     }
 
-    private void manageInCreateState(BaseWorkflow workflowInstance, Work work) {
-        List<Work> children = workRepository.findByDomainIdAndParentWorkId(work.getDomainId(), work.getId());
+    private void manageInCreateState(BaseWorkflow workflowInstance, Work work, List<Work> children) {
         boolean childrenInReadyForWork = children.stream().anyMatch(w -> w.getCurrentStatus().getStatus() == WorkflowState.ReadyForWork);
         boolean childrenInProgress = children.stream().anyMatch(w -> EnumSet.of(WorkflowState.InProgress, WorkflowState.WorkComplete, WorkflowState.ReviewToClose).contains(w.getCurrentStatus().getStatus()));
         if (childrenInProgress) {
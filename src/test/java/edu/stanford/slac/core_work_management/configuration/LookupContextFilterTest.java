@@ -0,0 +1,71 @@
+package edu.stanford.slac.core_work_management.configuration;
+
+import edu.stanford.slac.core_work_management.api.v1.mapper.LookupContext;
+import edu.stanford.slac.core_work_management.config.LookupContextFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+public class LookupContextFilterTest {
+    @Autowired
+    LookupContextFilter lookupContextFilter;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void writeRequestIsMemoizedAndCounted() {
+        double hits = count(LookupContext.Kind.Domain, "hit");
+        double misses = count(LookupContext.Kind.Domain, "miss");
+        AtomicInteger loads = new AtomicInteger();
+        FilterChain chain = (request, response) -> {
+            LookupContext.lookup(LookupContext.Kind.Domain, "domain-id", loads::incrementAndGet);
+            LookupContext.lookup(LookupContext.Kind.Domain, "domain-id", loads::incrementAndGet);
+        };
+
+        assertDoesNotThrow(() -> lookupContextFilter.doFilter(new MockHttpServletRequest("PUT", "/v1/domain"), new MockHttpServletResponse(), chain));
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(count(LookupContext.Kind.Domain, "hit") - hits).isEqualTo(1);
+        assertThat(count(LookupContext.Kind.Domain, "miss") - misses).isEqualTo(1);
+        assertThat(LookupContext.current()).isEmpty();
+    }
+
+    @Test
+    public void failedRequestIsCounted() {
+        double misses = count(LookupContext.Kind.WorkType, "miss");
+        FilterChain chain = (request, response) -> {
+            LookupContext.lookup(LookupContext.Kind.WorkType, "work-type-id", () -> null);
+            throw new IllegalStateException("request failed");
+        };
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> lookupContextFilter.doFilter(new MockHttpServletRequest("GET", "/v1/domain"), new MockHttpServletResponse(), chain)
+        );
+        assertThat(count(LookupContext.Kind.WorkType, "miss") - misses).isEqualTo(1);
+        assertThat(LookupContext.current()).isEmpty();
+    }
+
+    private double count(LookupContext.Kind kind, String result) {
+        return meterRegistry.counter("cwm_lookup_context", "kind", kind.name(), "result", result).count();
+    }
+}
@@ -550,4 +550,60 @@ public class WorkControllerTest {
                 .extracting(AuthorizationResourceDTO::authorizationType)
                 .contains(AuthorizationTypeDTO.Write, AuthorizationTypeDTO.Read, AuthorizationTypeDTO.Admin);
     }
+
+    @Test
+    public void testWorkSearchAccessListMatchesFindById() {
+        List<String> workIds = new ArrayList<>();
+        for (int idx = 0; idx < 2; idx++) {
+            int finalIdx = idx;
+            var newWorkIdResult =
+                    assertDoesNotThrow(
+                            () -> testControllerHelperService.workControllerCreateNew(
+                                    mockMvc,
+                                    status().isCreated(),
+                                    Optional.of("user1@slac.stanford.edu"),
+                                    domainDTO.id(),
+                                    NewWorkDTO.builder()
+                                            .locationId(testLocationIds.get(0))
+                                            .workTypeId(testWorkTypeIds.get(0))
+                                            .shopGroupId(testShopGroupIds.get(finalIdx))
+                                            .title("work %d".formatted(finalIdx))
+                                            .description("work %d description".formatted(finalIdx))
+                                            .build()
+                            )
+                    );
+            assertThat(newWorkIdResult.getErrorCode()).isEqualTo(0);
+            workIds.add(newWorkIdResult.getPayload());
+        }
+
+        for (String user : List.of("user1@slac.stanford.edu", "user3@slac.stanford.edu")) {
+            var foundWorks = assertDoesNotThrow(
+                    () -> testControllerHelperService.workControllerSearchAllWork(
+                            mockMvc,
+                            status().isOk(),
+                            Optional.of(user),
+                            Optional.empty(),
+                            Optional.empty(),
+                            Optional.of(10),
+                            Optional.empty()
+                    )
+            );
+            assertThat(foundWorks.getErrorCode()).isEqualTo(0);
+            assertThat(foundWorks.getPayload()).extracting(WorkDTO::id).containsExactlyElementsOf(workIds);
+            // the access list computed for the page is the same computed for the single work
+            for (WorkDTO foundWork : foundWorks.getPayload()) {
+                var singleWork = assertDoesNotThrow(
+                        () -> testControllerHelperService.workControllerFindWorkById(
+                                mockMvc,
+                                status().isOk(),
+                                Optional.of(user),
+                                domainDTO.id(),
+                                foundWork.id(),
+                                WorkDetailsOptionDTO.builder().build()
+                        )
+                );
+                assertThat(foundWork.accessList()).containsExactlyElementsOf(singleWork.getPayload().accessList());
+            }
+        }
+    }
 }
@@ -5,11 +5,14 @@ import edu.stanford.slac.core_work_management.api.v1.dto.*;
 import edu.stanford.slac.core_work_management.api.v1.mapper.DomainMapper;
 import edu.stanford.slac.core_work_management.exception.DomainNotFound;
 import edu.stanford.slac.core_work_management.model.Domain;
+import edu.stanford.slac.core_work_management.model.DomainStatistics;
 import edu.stanford.slac.core_work_management.model.LOVElement;
 import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkStatusCounter;
 import edu.stanford.slac.core_work_management.model.WorkType;
 import edu.stanford.slac.core_work_management.repository.WorkRepository;
 import edu.stanford.slac.core_work_management.repository.WorkTypeRepository;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -50,6 +53,8 @@ public class DomainServiceTest {
     private WorkRepository workRepository;
     @Autowired
     private WorkTypeRepository workTypeRepository;
+    @Autowired
+    private WorkStatusCounterService workStatusCounterService;
 
     @BeforeEach
     public void cleanCollection() {
@@ -57,6 +62,8 @@ public class DomainServiceTest {
         mongoTemplate.remove(new Query(), Work.class);
         mongoTemplate.remove(new Query(), WorkType.class);
         mongoTemplate.remove(new Query(), LOVElement.class);
+        mongoTemplate.remove(new Query(), WorkStatusCounter.class);
+        mongoTemplate.remove(new Query(), DomainStatistics.class);
     }
 
     @Test
@@ -298,6 +305,55 @@ public class DomainServiceTest {
     }
 
 
+    @Test
+    public void statisticsAreStoredApartFromTheDomain() {
+        DomainDTO domain = assertDoesNotThrow(
+                () -> domainService.createNewAndGet(
+                        NewDomainDTO.builder()
+                                .name("dom1")
+                                .description("Test domain description")
+                                .workflowImplementations(
+                                        Set.of(
+                                                "DummyParentWorkflow"
+                                        )
+                                )
+                                .build()
+                )
+        );
+        String workTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domain.id(),
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workflowId(domain.workflows().stream().findFirst().get().id())
+                                .validatorName("validator/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+        workStatusCounterService.statusChanged(
+                List.of(
+                        new WorkStatusCounterService.StatusChange(domain.id(), workTypeId, null, WorkflowState.Created),
+                        new WorkStatusCounterService.StatusChange(domain.id(), workTypeId, null, WorkflowState.Created)
+                )
+        );
+        assertDoesNotThrow(() -> domainService.updateDomainStatistics(domain.id()));
+
+        // the domain is returned without statistics unless they are requested
+        assertThat(assertDoesNotThrow(() -> domainService.findById(domain.id())).workTypeStatusStatistics()).isNull();
+        var domainWithStatistics = assertDoesNotThrow(() -> domainService.findById(domain.id(), true));
+        assertThat(domainWithStatistics.workTypeStatusStatistics()).hasSize(1);
+        assertThat(domainWithStatistics.workTypeStatusStatistics().getFirst().workType().id()).isEqualTo(workTypeId);
+        assertThat(domainWithStatistics.workTypeStatusStatistics().getFirst().status())
+                .containsExactly(WorkStatusCountStatisticsDTO.builder().status(WorkflowStateDTO.Created).count(2).build());
+
+        // the statistics are not in the domain document
+        assertThat(mongoTemplate.findById(domain.id(), DomainStatistics.class)).isNotNull();
+        assertThat(mongoTemplate.getCollection(mongoTemplate.getCollectionName(Domain.class)).find().first())
+                .doesNotContainKey("workTypeStatusStatistics");
+    }
+
     @Test
     public void createNewWorkType() {
         DomainDTO domain = assertDoesNotThrow(
@@ -0,0 +1,101 @@
+package edu.stanford.slac.core_work_management.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class DomainStatisticRefreshQueueTest {
+    @SpyBean
+    private DomainService domainService;
+    @Autowired
+    private DomainStatisticRefreshQueue domainStatisticRefreshQueue;
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+    @Autowired
+    private CWMAppProperties cwmAppProperties;
+
+    @BeforeEach
+    public void cleanQueue() {
+        reset(domainService);
+        doNothing().when(domainService).updateDomainStatistics(anyString());
+        hazelcastInstance.getMap(DomainStatisticRefreshQueue.DIRTY_DOMAIN_MAP).clear();
+        hazelcastInstance.getMap(DomainStatisticRefreshQueue.LAST_REFRESH_MAP).clear();
+    }
+
+    @Test
+    public void burstOfChangesTriggerOneRefresh() {
+        String domainId = UUID.randomUUID().toString();
+        String otherDomainId = UUID.randomUUID().toString();
+        for (int idx = 0; idx < 500; idx++) {
+            domainStatisticRefreshQueue.markDirty(domainId);
+        }
+        domainStatisticRefreshQueue.markDirty(otherDomainId);
+
+        assertThat(domainStatisticRefreshQueue.refreshDirtyDomains()).isEqualTo(2);
+        verify(domainService, times(1)).updateDomainStatistics(domainId);
+        verify(domainService, times(1)).updateDomainStatistics(otherDomainId);
+
+        // nothing more to refresh
+        assertThat(domainStatisticRefreshQueue.refreshDirtyDomains()).isZero();
+    }
+
+    @Test
+    public void domainIsRefreshedOncePerWindow() {
+        String domainId = UUID.randomUUID().toString();
+        domainStatisticRefreshQueue.markDirty(domainId);
+        assertThat(domainStatisticRefreshQueue.refreshDirtyDomains()).isEqualTo(1);
+
+        // marked again inside the window, it waits for the next one
+        domainStatisticRefreshQueue.markDirty(domainId);
+        assertThat(domainStatisticRefreshQueue.refreshDirtyDomains()).isZero();
+        assertThat(hazelcastInstance.getMap(DomainStatisticRefreshQueue.DIRTY_DOMAIN_MAP).containsKey(domainId)).isTrue();
+        verify(domainService, times(1)).updateDomainStatistics(domainId);
+    }
+
+    @Test
+    public void failedRefreshKeepTheDomainDirty() {
+        String domainId = UUID.randomUUID().toString();
+        doThrow(new RuntimeException("statistics not available")).when(domainService).updateDomainStatistics(domainId);
+        domainStatisticRefreshQueue.markDirty(domainId);
+
+        assertThat(domainStatisticRefreshQueue.refreshDirtyDomains()).isZero();
+        assertThat(hazelcastInstance.getMap(DomainStatisticRefreshQueue.DIRTY_DOMAIN_MAP).containsKey(domainId)).isTrue();
+
+        // the refresh is retried in the next window
+        Duration window = cwmAppProperties.getDomainStatisticRefreshWindow();
+        cwmAppProperties.setDomainStatisticRefreshWindow(Duration.ZERO);
+        try {
+            doNothing().when(domainService).updateDomainStatistics(domainId);
+            assertThat(domainStatisticRefreshQueue.refreshDirtyDomains()).isEqualTo(1);
+            assertThat(hazelcastInstance.getMap(DomainStatisticRefreshQueue.DIRTY_DOMAIN_MAP).containsKey(domainId)).isFalse();
+            verify(domainService, times(2)).updateDomainStatistics(domainId);
+        } finally {
+            cwmAppProperties.setDomainStatisticRefreshWindow(window);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package edu.stanford.slac.core_work_management.service;
 
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,10 +10,13 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @AutoConfigureMockMvc
 @SpringBootTest()
@@ -39,4 +43,77 @@ public class ScriptServiceTest {
         );
         resultContent.thenAccept(result->assertThat(result).isEqualTo("This is a dummy method implementation in Groovy!"));
     }
+
+    @Test
+    public void staticCompilationCheckTheTypes() {
+        String wrongTypedContent = """
+                package edu.stanford.slac.core_work_management.service;
+                
+                class WrongTypedScript implements DummyScriptInterface {
+                    @Override
+                    String dummyMethod() {
+                        return "dummy".notExistingMethod()
+                    }
+                }""";
+        // dynamic groovy resolve the method at runtime
+        assertDoesNotThrow(
+                () -> scriptService.compileScript(wrongTypedContent, null, ScriptService.CompilationMode.Dynamic)
+        );
+        // the static compilation fails
+        assertThrows(
+                RuntimeException.class,
+                () -> scriptService.compileScript(wrongTypedContent, null, ScriptService.CompilationMode.Static)
+        );
+        Class<?> staticClass = assertDoesNotThrow(
+                () -> scriptService.compileScript(content, null, ScriptService.CompilationMode.Static)
+        );
+        assertThat(DummyScriptInterface.class.isAssignableFrom(staticClass)).isTrue();
+    }
+
+    @Test
+    public void loopingScriptIsStoppedOnTimeout() {
+        String loopingContent = """
+                package edu.stanford.slac.core_work_management.service;
+                
+                class LoopingScript implements DummyScriptInterface {
+                    @Override
+                    String dummyMethod() {
+                        while (true) {}
+                    }
+                }""";
+        CompletableFuture<String> resultContent = assertDoesNotThrow(
+                () -> scriptService.executeScriptContent(loopingContent, Duration.ofMillis(500), DummyScriptInterface.class, "dummyMethod")
+        );
+        ExecutionException executionException = assertThrows(
+                ExecutionException.class,
+                resultContent::get
+        );
+        assertThat(executionException.getCause()).isInstanceOf(ControllerLogicException.class);
+        assertThat(((ControllerLogicException) executionException.getCause()).getErrorCode()).isEqualTo(-4);
+
+        // the executor is still able to run other scripts
+        CompletableFuture<String> result = scriptService.executeScriptContent(content, DummyScriptInterface.class, "dummyMethod");
+        assertThat(assertDoesNotThrow(() -> result.get())).isEqualTo("This is a dummy method implementation in Groovy!");
+    }
+
+    @Test
+    public void classOfAnInstanceIsKeptUntilReleased() {
+        // a content not used by the other tests, so no other execution holds its class
+        String referencedContent = content + "\n// referenced";
+        DummyScriptInterface instance = assertDoesNotThrow(
+                () -> scriptService.getInterfaceImplementation(referencedContent, DummyScriptInterface.class)
+        );
+        // the cache and the instance hold a reference
+        int references = scriptService.getClassReferences(instance.getClass());
+        assertThat(references).isGreaterThanOrEqualTo(2);
+
+        // the executions release their reference when they complete
+        CompletableFuture<String> result = scriptService.executeScriptContent(referencedContent, DummyScriptInterface.class, "dummyMethod");
+        assertThat(assertDoesNotThrow(() -> result.get())).isEqualTo("This is a dummy method implementation in Groovy!");
+        assertThat(scriptService.getClassReferences(instance.getClass())).isEqualTo(references);
+
+        scriptService.releaseClass(instance.getClass());
+        assertThat(scriptService.getClassReferences(instance.getClass())).isEqualTo(references - 1);
+        assertThat(instance.dummyMethod()).isEqualTo("This is a dummy method implementation in Groovy!");
+    }
 }
@@ -8,6 +8,7 @@ import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.core_work_management.api.v1.dto.*;
 import edu.stanford.slac.core_work_management.model.Domain;
 import edu.stanford.slac.core_work_management.model.ShopGroup;
+import edu.stanford.slac.core_work_management.model.ShopGroupMembership;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -62,6 +63,8 @@ public class ShopGroupServiceTest {
     private AuthService authService;
     @Autowired
     private MongoTemplate mongoTemplate;
+    @Autowired
+    private ShopGroupMembershipIndex shopGroupMembershipIndex;
 
     private DomainDTO domainDTO = null;
 
@@ -70,6 +73,7 @@ public class ShopGroupServiceTest {
         mongoTemplate.remove(new Query(), Domain.class);
         mongoTemplate.remove(new Query(), Authorization.class);
         mongoTemplate.remove(new Query(), ShopGroup.class);
+        mongoTemplate.remove(new Query(), ShopGroupMembership.class);
 
         domainDTO = assertDoesNotThrow(
                 () -> domainService.createNewAndGet(
@@ -236,6 +240,100 @@ public class ShopGroupServiceTest {
         ).hasSize(1);
     }
 
+    @Test
+    public void membershipChangeLostByTheTopicIsAppliedOnReload() {
+        var newShopGroupId = assertDoesNotThrow(
+                () -> shopGroupService.createNew(
+                        domainDTO.id(),
+                        NewShopGroupDTO.builder()
+                                .name("shop1")
+                                .description("shop1 user2")
+                                .users(
+                                        of(
+                                                ShopGroupUserInputDTO.builder()
+                                                        .userId("user2@slac.stanford.edu")
+                                                        .build()
+                                        )
+                                )
+                                .build()
+                )
+        );
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "user2@slac.stanford.edu")).isTrue();
+
+        // a membership written by another node whose change message has been lost
+        mongoTemplate.save(
+                ShopGroupMembership.builder()
+                        .domainId(domainDTO.id())
+                        .shopGroupId(newShopGroupId)
+                        .userEmail("user3@slac.stanford.edu")
+                        .build()
+        );
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "user3@slac.stanford.edu")).isFalse();
+
+        shopGroupMembershipIndex.reloadAll();
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "user3@slac.stanford.edu")).isTrue();
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "user2@slac.stanford.edu")).isTrue();
+    }
+
+    @Test
+    public void checkMembershipIsCaseInsensitiveAndFollowUpdate() {
+        var newShopGroupId = assertDoesNotThrow(
+                () -> shopGroupService.createNew(
+                        domainDTO.id(),
+                        NewShopGroupDTO.builder()
+                                .name("shop1")
+                                .description("shop1 user[2-3]")
+                                .users(
+                                        of(
+                                                ShopGroupUserInputDTO.builder()
+                                                        .userId("user2@slac.stanford.edu")
+                                                        .build(),
+                                                ShopGroupUserInputDTO.builder()
+                                                        .userId("user3@slac.stanford.edu")
+                                                        .build()
+                                        )
+                                )
+                                .build()
+                )
+        );
+
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "User2@SLAC.stanford.edu")).isTrue();
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "user1@slac.stanford.edu")).isFalse();
+        // a partial email is not a member
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "user2")).isFalse();
+        assertThat(shopGroupService.checkContainsAUserEmail("bad-domain-id", newShopGroupId, "user2@slac.stanford.edu")).isFalse();
+        assertThat(mongoTemplate.findAll(ShopGroupMembership.class)).hasSize(2);
+
+        // update the members
+        assertDoesNotThrow(
+                () -> shopGroupService.update(
+                        domainDTO.id(),
+                        newShopGroupId,
+                        UpdateShopGroupDTO.builder()
+                                .name("shop1 updated")
+                                .description("shop1 user updated")
+                                .users(
+                                        of(
+                                                ShopGroupUserInputDTO.builder()
+                                                        .userId("user1@slac.stanford.edu")
+                                                        .build()
+                                        )
+                                )
+                                .build()
+                )
+        );
+
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "user2@slac.stanford.edu")).isFalse();
+        assertThat(shopGroupService.checkContainsAUserEmail(domainDTO.id(), newShopGroupId, "user1@slac.stanford.edu")).isTrue();
+        assertThat(shopGroupService.findIdsContainingAUserEmail(domainDTO.id(), of(newShopGroupId, "other-id"), "USER1@slac.stanford.edu"))
+                .containsExactly(newShopGroupId);
+        assertThat(shopGroupService.findIdsContainingAUserEmail("other-domain", of(newShopGroupId), "user1@slac.stanford.edu"))
+                .isEmpty();
+        assertThat(mongoTemplate.findAll(ShopGroupMembership.class))
+                .extracting(ShopGroupMembership::getUserEmail)
+                .containsExactly("user1@slac.stanford.edu");
+    }
+
     @Test
     public void createNewShopGroupFailsWrongUserEmail() {
         PersonNotFound personNotFoundError = assertThrows(
@@ -0,0 +1,208 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkHistoryEntry;
+import edu.stanford.slac.core_work_management.model.WorkHistoryType;
+import edu.stanford.slac.core_work_management.model.WorkStatusLog;
+import edu.stanford.slac.core_work_management.repository.WorkHistoryEntryRepository;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import org.bson.Document;
+import org.javers.core.Javers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class WorkChangeTrackerTest {
+    @Autowired
+    private WorkChangeTracker workChangeTracker;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @SpyBean
+    private WorkHistoryEntryRepository workHistoryEntryRepository;
+    @SpyBean
+    private Javers javers;
+
+    @BeforeEach
+    public void cleanCollection() {
+        reset(javers, workHistoryEntryRepository);
+        mongoTemplate.remove(new Query(), Work.class);
+        mongoTemplate.remove(new Query(), WorkHistoryEntry.class);
+    }
+
+    @Test
+    public void historyChangesArePushedAndOtherFieldsAreSet() {
+        Document before = new Document("title", "old title")
+                .append("description", "description")
+                .append("statusHistory", List.of(new Document("status", "Created")))
+                .append("bucketAssociationsHistory", List.of(new Document("bucketId", "b1")));
+        Document after = new Document("title", "new title")
+                .append("description", "description")
+                .append("statusHistory", List.of(new Document("status", "InProgress"), new Document("status", "Created")))
+                .append("bucketAssociationsHistory", List.of(new Document("bucketId", "b1"), new Document("bucketId", "b2")));
+
+        Update update = WorkChangeTracker.getUpdate(before, after).orElseThrow();
+        assertThat(update.getUpdateObject().get("$set", Document.class).keySet()).containsExactly("title");
+        assertThat(update.getUpdateObject().get("$push", Document.class).keySet())
+                .containsExactlyInAnyOrder("statusHistory", "bucketAssociationsHistory");
+
+        // applying the update to the old form give the new one
+        mongoTemplate.insert(new Document(before).append("_id", "tracked"), "work_change_tracker_test");
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is("tracked")), update, "work_change_tracker_test");
+        Document updated = mongoTemplate.findById("tracked", Document.class, "work_change_tracker_test");
+        mongoTemplate.dropCollection("work_change_tracker_test");
+        assertThat(updated).isNotNull();
+        updated.remove("_id");
+        assertThat(updated).isEqualTo(after);
+
+        // nothing changed
+        assertThat(WorkChangeTracker.getUpdate(before, before)).isEmpty();
+    }
+
+    @Test
+    public void historyPushesAreSlicedToTheWindow() {
+        Document before = new Document("statusHistory", List.of(new Document("status", "Submitted"), new Document("status", "Created")))
+                .append("bucketAssociationsHistory", List.of(new Document("bucketId", "b1"), new Document("bucketId", "b2")));
+        Document after = new Document("statusHistory", List.of(new Document("status", "InProgress"), new Document("status", "Submitted"), new Document("status", "Created")))
+                .append("bucketAssociationsHistory", List.of(new Document("bucketId", "b1"), new Document("bucketId", "b2"), new Document("bucketId", "b3")));
+
+        Map<String, List<Object>> addedHistory = new HashMap<>();
+        Update update = WorkChangeTracker.getUpdate(before, after, 2, addedHistory).orElseThrow();
+        assertThat(addedHistory.get("statusHistory")).containsExactly(new Document("status", "InProgress"));
+        assertThat(addedHistory.get("bucketAssociationsHistory")).containsExactly(new Document("bucketId", "b3"));
+
+        // only the most recent entries are kept
+        mongoTemplate.insert(new Document(before).append("_id", "tracked"), "work_change_tracker_test");
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is("tracked")), update, "work_change_tracker_test");
+        Document updated = mongoTemplate.findById("tracked", Document.class, "work_change_tracker_test");
+        mongoTemplate.dropCollection("work_change_tracker_test");
+        assertThat(updated).isNotNull();
+        assertThat(updated.getList("statusHistory", Document.class))
+                .containsExactly(new Document("status", "InProgress"), new Document("status", "Submitted"));
+        assertThat(updated.getList("bucketAssociationsHistory", Document.class))
+                .containsExactly(new Document("bucketId", "b2"), new Document("bucketId", "b3"));
+    }
+
+    @Test
+    public void addedHistoryIsStoredInTheWorkHistory() {
+        Work work = mongoTemplate.insert(Work.builder().domainId("domain").title("title").build());
+        List<WorkflowState> states = List.of(WorkflowState.Submitted, WorkflowState.PendingAssignment, WorkflowState.InProgress);
+        for (WorkflowState state : states) {
+            var trackedWork = workChangeTracker.track(work);
+            work.getStatusHistory().addFirst(work.getCurrentStatus());
+            work.setCurrentStatus(WorkStatusLog.builder().status(state).build());
+            assertThat(assertDoesNotThrow(() -> workChangeTracker.save(trackedWork))).isTrue();
+        }
+
+        // the full history is paged from the most recent entry
+        var firstPage = workHistoryEntryRepository.findPageByWorkId("domain", work.getId(), null, 2);
+        assertThat(firstPage).hasSize(2).allMatch(e -> e.getType() == WorkHistoryType.Status);
+        assertThat(firstPage).extracting(e -> e.getStatus().getStatus())
+                .containsExactly(WorkflowState.PendingAssignment, WorkflowState.Submitted);
+        var secondPage = workHistoryEntryRepository.findPageByWorkId("domain", work.getId(), firstPage.getLast().getId(), 2);
+        assertThat(secondPage).extracting(e -> e.getStatus().getStatus()).containsExactly(WorkflowState.Created);
+        assertThat(workHistoryEntryRepository.findPageByWorkId("other-domain", work.getId(), null, 2)).isEmpty();
+    }
+
+    @Test
+    public void saveOnlyTheChangesWithVersionCheck() {
+        Work work = mongoTemplate.insert(Work.builder().domainId("domain").title("title").build());
+        Long insertedVersion = work.getVersion();
+        Work concurrentCopy = mongoTemplate.findById(work.getId(), Work.class);
+
+        var trackedWork = workChangeTracker.track(work);
+        work.getStatusHistory().addFirst(work.getCurrentStatus());
+        work.setCurrentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build());
+        assertThat(assertDoesNotThrow(() -> workChangeTracker.save(trackedWork))).isTrue();
+        assertThat(work.getVersion()).isEqualTo(insertedVersion + 1);
+
+        Work stored = mongoTemplate.findById(work.getId(), Work.class);
+        assertThat(stored).isNotNull();
+        assertThat(stored.getVersion()).isEqualTo(insertedVersion + 1);
+        assertThat(stored.getCurrentStatus().getStatus()).isEqualTo(WorkflowState.InProgress);
+        assertThat(stored.getStatusHistory()).extracting(WorkStatusLog::getStatus).containsExactly(WorkflowState.Created);
+        assertThat(stored.getTitle()).isEqualTo("title");
+
+        // a save without changes does not write
+        assertThat(workChangeTracker.save(workChangeTracker.track(work))).isFalse();
+
+        // the copy read before the update is stale
+        var staleTrackedWork = workChangeTracker.track(concurrentCopy);
+        concurrentCopy.setTitle("concurrent title");
+        assertThrows(
+                OptimisticLockingFailureException.class,
+                () -> workChangeTracker.save(staleTrackedWork)
+        );
+    }
+
+    @Test
+    public void failedEffectRollsBackTheSave() {
+        Work work = mongoTemplate.insert(Work.builder().domainId("domain").title("title").build());
+        Long insertedVersion = work.getVersion();
+        doThrow(new RuntimeException("audit not available")).when(javers).commit(any(), any());
+
+        var trackedWork = workChangeTracker.track(work);
+        work.getStatusHistory().addFirst(work.getCurrentStatus());
+        work.setCurrentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build());
+        assertThrows(RuntimeException.class, () -> workChangeTracker.save(trackedWork));
+
+        // neither the work nor its history entries are stored
+        Work stored = mongoTemplate.findById(work.getId(), Work.class);
+        assertThat(stored).isNotNull();
+        assertThat(stored.getVersion()).isEqualTo(insertedVersion);
+        assertThat(stored.getCurrentStatus().getStatus()).isEqualTo(WorkflowState.Created);
+        assertThat(workHistoryEntryRepository.findPageByWorkId("domain", work.getId(), null, 10)).isEmpty();
+
+        // the save can be retried from a new tracking of the stored work
+        reset(javers);
+        var retriedWork = workChangeTracker.track(stored);
+        stored.getStatusHistory().addFirst(stored.getCurrentStatus());
+        stored.setCurrentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build());
+        assertThat(assertDoesNotThrow(() -> workChangeTracker.save(retriedWork))).isTrue();
+        assertThat(workHistoryEntryRepository.findPageByWorkId("domain", work.getId(), null, 10)).hasSize(1);
+    }
+
+    @Test
+    public void historyEntriesAreStoredWithTheSlicedPush() {
+        Work work = mongoTemplate.insert(Work.builder().domainId("domain").title("title").build());
+        doThrow(new RuntimeException("history not available")).when(workHistoryEntryRepository).saveAll(any());
+
+        var trackedWork = workChangeTracker.track(work);
+        work.getStatusHistory().addFirst(work.getCurrentStatus());
+        work.setCurrentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build());
+        assertThrows(RuntimeException.class, () -> workChangeTracker.save(trackedWork));
+
+        // the push is not applied, so no entry can be sliced out of the work without being in the history
+        Work stored = mongoTemplate.findById(work.getId(), Work.class);
+        assertThat(stored).isNotNull();
+        assertThat(stored.getStatusHistory()).isEmpty();
+        assertThat(stored.getCurrentStatus().getStatus()).isEqualTo(WorkflowState.Created);
+    }
+}
@@ -0,0 +1,206 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkFlowStatisticsDTO;
+import edu.stanford.slac.core_work_management.model.Domain;
+import edu.stanford.slac.core_work_management.model.EmbeddableShopGroup;
+import edu.stanford.slac.core_work_management.model.EmbeddableWorkType;
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkFlowRollup;
+import edu.stanford.slac.core_work_management.model.WorkStatusLog;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import org.javers.core.Javers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class WorkFlowAnalyticsServiceTest {
+    @Autowired
+    private WorkFlowAnalyticsService workFlowAnalyticsService;
+    @Autowired
+    private WorkChangeTracker workChangeTracker;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private Clock clock;
+    @SpyBean
+    private Javers javers;
+    private String domainId;
+
+    @BeforeEach
+    public void cleanCollection() {
+        reset(javers);
+        mongoTemplate.remove(new Query(), Domain.class);
+        mongoTemplate.remove(new Query(), Work.class);
+        mongoTemplate.remove(new Query(), WorkFlowRollup.class);
+        domainId = mongoTemplate.insert(Domain.builder().name("domain").build()).getId();
+    }
+
+    @Test
+    public void transitionsSavedByTheTrackerAreRolledUp() {
+        Work closedWork = insertWork("wt1");
+        Work openWork = insertWork("wt1");
+        moveToState(closedWork, WorkflowState.InProgress);
+        moveToState(closedWork, WorkflowState.Closed);
+        moveToState(openWork, WorkflowState.InProgress);
+        // a reopened work is not started again
+        moveToState(closedWork, WorkflowState.InProgress);
+        assertThat(mongoTemplate.findById(closedWork.getId(), Work.class).getStartedDate()).isNotNull();
+
+        // a window that ends now and is shorter than the interval has a single interval
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<WorkFlowStatisticsDTO> statistics = assertDoesNotThrow(
+                () -> workFlowAnalyticsService.getFlowStatistics(domainId, null, null, now.minusHours(1), null, Duration.ofHours(2), List.of(50))
+        );
+        assertThat(statistics).hasSize(1);
+        WorkFlowStatisticsDTO flow = statistics.getFirst();
+        assertThat(flow.workTypeId()).isEqualTo("wt1");
+        assertThat(flow.started()).isEqualTo(2);
+        assertThat(flow.completed()).isEqualTo(1);
+        assertThat(flow.wip()).isEqualTo(2);
+        assertThat(flow.leadTime()).containsOnlyKeys("p50");
+        assertThat(flow.cycleTime()).containsOnlyKeys("p50");
+
+        // the shop group filter read only the rollup of the shop group
+        assertThat(
+                workFlowAnalyticsService.getFlowStatistics(domainId, null, "other-shop-group", now.minusHours(1), null, Duration.ofHours(2), List.of(50))
+        ).isEmpty();
+    }
+
+    @Test
+    public void transitionsOfAFailedSaveAreNotRolledUp() {
+        Work work = insertWork("wt1");
+        doThrow(new RuntimeException("audit not available")).when(javers).commit(any(), any());
+        var trackedWork = workChangeTracker.track(work);
+        work.getStatusHistory().addFirst(work.getCurrentStatus());
+        work.setCurrentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build());
+        assertThrows(RuntimeException.class, () -> workChangeTracker.save(trackedWork));
+
+        // the rollup written before the failure is rolled back with the work
+        assertThat(mongoTemplate.findAll(WorkFlowRollup.class)).isEmpty();
+        assertThat(mongoTemplate.findById(work.getId(), Work.class).getStartedDate()).isNull();
+    }
+
+    @Test
+    public void percentilesAndWorkInProgressOverTime() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime closeDate = now.minusDays(2);
+        List<WorkFlowAnalyticsService.Transition> transitions = new ArrayList<>();
+        // ten works closed two days ago with lead time from one to ten hours
+        for (int hours = 1; hours <= 10; hours++) {
+            transitions.add(
+                    new WorkFlowAnalyticsService.Transition(
+                            domainId, "wt1", "sg1", WorkflowState.InProgress, WorkflowState.Closed, false,
+                            closeDate, closeDate.minusHours(hours), closeDate.minusMinutes(30)
+                    )
+            );
+        }
+        // one work started yesterday and still in progress
+        transitions.add(
+                new WorkFlowAnalyticsService.Transition(
+                        domainId, "wt1", "sg1", WorkflowState.Created, WorkflowState.InProgress, true,
+                        now.minusDays(1), now.minusDays(1), now.minusDays(1)
+                )
+        );
+        workFlowAnalyticsService.recordTransitions(transitions);
+        // the work in progress is stored on the works
+        Work inProgress = insertWork("wt1");
+        inProgress.setCurrentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build());
+        mongoTemplate.save(inProgress);
+
+        List<WorkFlowStatisticsDTO> statistics = workFlowAnalyticsService.getFlowStatistics(
+                domainId, "wt1", null, now.minusDays(3), now, Duration.ofDays(1), List.of(50, 100)
+        );
+        assertThat(statistics).hasSizeGreaterThanOrEqualTo(3);
+        WorkFlowStatisticsDTO closedInterval = statistics.stream()
+                .filter(s -> s.completed() > 0)
+                .findFirst()
+                .orElseThrow();
+        assertThat(closedInterval.completed()).isEqualTo(10);
+        // the percentiles are at most ten percent above the exact value
+        assertThat(closedInterval.leadTime().get("p50")).isBetween(Duration.ofHours(5).toSeconds(), (long) (Duration.ofHours(5).toSeconds() * 1.1));
+        assertThat(closedInterval.leadTime().get("p100")).isBetween(Duration.ofHours(10).toSeconds(), (long) (Duration.ofHours(10).toSeconds() * 1.1));
+        assertThat(closedInterval.cycleTime().get("p50")).isBetween(Duration.ofMinutes(30).toSeconds(), (long) (Duration.ofMinutes(30).toSeconds() * 1.1));
+        // the ten works left the progress in that interval
+        assertThat(closedInterval.wip()).isEqualTo(0);
+        assertThat(statistics.getLast().wip()).isEqualTo(1);
+    }
+
+    @Test
+    public void histogramBinsBoundTheDuration() {
+        for (long seconds : List.of(0L, 1L, 2L, 9L, 10L, 11L, 59L, 3600L, 86_400L, 31_536_000L)) {
+            long upperBound = WorkFlowAnalyticsService.histogramBinUpperBound(WorkFlowAnalyticsService.histogramBin(seconds));
+            assertThat(upperBound).isGreaterThanOrEqualTo(seconds);
+            assertThat(upperBound).isLessThanOrEqualTo(Math.max(1, (long) Math.ceil(seconds * 1.1)));
+        }
+    }
+
+    @Test
+    public void wrongWindowFails() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        assertThrows(
+                ControllerLogicException.class,
+                () -> workFlowAnalyticsService.getFlowStatistics(domainId, null, null, now, now.minusDays(1), Duration.ofDays(1), List.of(50))
+        );
+        assertThrows(
+                ControllerLogicException.class,
+                () -> workFlowAnalyticsService.getFlowStatistics(domainId, null, null, now.minusDays(1), now, Duration.ofMinutes(10), List.of(50))
+        );
+        assertThrows(
+                ControllerLogicException.class,
+                () -> workFlowAnalyticsService.getFlowStatistics(domainId, null, null, now.minusDays(1), now, Duration.ofDays(1), List.of(0))
+        );
+    }
+
+    /**
+     * Insert a work of the shop group sg1
+     */
+    private Work insertWork(String workTypeId) {
+        return mongoTemplate.insert(
+                Work.builder()
+                        .domainId(domainId)
+                        .title("title")
+                        .workType(EmbeddableWorkType.builder().id(workTypeId).build())
+                        .shopGroup(EmbeddableShopGroup.builder().id("sg1").build())
+                        .createdDate(LocalDateTime.now(clock))
+                        .build()
+        );
+    }
+
+    /**
+     * Move the work to a state and save it as the workflow does
+     */
+    private void moveToState(Work work, WorkflowState state) {
+        var trackedWork = workChangeTracker.track(work);
+        work.getStatusHistory().addFirst(work.getCurrentStatus());
+        work.setCurrentStatus(WorkStatusLog.builder().status(state).build());
+        assertThat(assertDoesNotThrow(() -> workChangeTracker.save(trackedWork))).isTrue();
+    }
+}
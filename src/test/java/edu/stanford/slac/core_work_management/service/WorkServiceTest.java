@@ -1,7 +1,11 @@
 package edu.stanford.slac.core_work_management.service;
 
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.core_work_management.api.v1.dto.*;
+import edu.stanford.slac.core_work_management.api.v1.mapper.LookupContext;
 import edu.stanford.slac.core_work_management.exception.LocationNotFound;
 import edu.stanford.slac.core_work_management.exception.ShopGroupNotFound;
 import edu.stanford.slac.core_work_management.exception.WorkNotFound;
@@ -18,16 +22,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import static com.google.common.collect.ImmutableSet.of;
+import static edu.stanford.slac.core_work_management.config.AuthorizationStringConfig.WORK_AUTHORIZATION_TEMPLATE;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -44,6 +52,8 @@ public class WorkServiceTest {
     @Autowired
     WorkService workService;
     @Autowired
+    AuthService authService;
+    @Autowired
     MongoTemplate mongoTemplate;
     @Autowired
     LocationService locationService;
@@ -277,6 +287,286 @@ public class WorkServiceTest {
         assertThat(foundWork.shopGroup().id()).isEqualTo(shopGroupId);
     }
 
+    @Test
+    public void createNewWorkAndGetItWithSparseFields() {
+        String newWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workflowId(parentWorkflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+        assertThat(newWorkTypeId).isNotNull();
+        var newWorkId = assertDoesNotThrow(
+                () -> workService.createNew(
+                        domainId,
+                        NewWorkDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workTypeId(newWorkTypeId)
+                                .locationId(locationId)
+                                .shopGroupId(shopGroupId)
+                                .build()
+                )
+        );
+        assertThat(newWorkId).isNotNull();
+
+        var foundWork = assertDoesNotThrow(
+                () -> workService.findWorkById(
+                        domainId,
+                        newWorkId,
+                        WorkDetailsOptionDTO.builder().fields(Set.of("title", "currentStatus")).build()
+                )
+        );
+        assertThat(foundWork).isNotNull();
+        assertThat(foundWork.id()).isEqualTo(newWorkId);
+        assertThat(foundWork.title()).isEqualTo("Update the documentation");
+        assertThat(foundWork.currentStatus()).isNotNull();
+        // domain and shop group are always returned with their id
+        assertThat(foundWork.domain().id()).isEqualTo(domainId);
+        assertThat(foundWork.domain().name()).isNull();
+        assertThat(foundWork.shopGroup().id()).isEqualTo(shopGroupId);
+        // not requested fields are not filled
+        assertThat(foundWork.description()).isNull();
+        assertThat(foundWork.workType()).isNull();
+        assertThat(foundWork.location()).isNull();
+        assertThat(foundWork.statusHistory()).isNull();
+
+        // search only the requested fields
+        var foundWorks = assertDoesNotThrow(
+                () -> workService.searchAllWork(
+                        WorkQueryParameterDTO.builder()
+                                .limit(10)
+                                .fields(Set.of("title"))
+                                .build()
+                )
+        );
+        assertThat(foundWorks).hasSize(1);
+        assertThat(foundWorks.getFirst().title()).isEqualTo("Update the documentation");
+        assertThat(foundWorks.getFirst().description()).isNull();
+
+        // unknown fields are rejected
+        assertThrows(
+                ControllerLogicException.class,
+                () -> workService.findWorkById(
+                        domainId,
+                        newWorkId,
+                        WorkDetailsOptionDTO.builder().fields(Set.of("notAField")).build()
+                )
+        );
+    }
+
+    @Test
+    public void searchWorkWithCursorAndFilters() {
+        String newWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workflowId(parentWorkflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+        assertThat(newWorkTypeId).isNotNull();
+        List<String> workIds = new ArrayList<>();
+        for (int idx = 0; idx < 5; idx++) {
+            int finalIdx = idx;
+            workIds.add(
+                    assertDoesNotThrow(
+                            () -> workService.createNew(
+                                    domainId,
+                                    NewWorkDTO
+                                            .builder()
+                                            .title("Work %d".formatted(finalIdx))
+                                            .description("Work %d description".formatted(finalIdx))
+                                            .workTypeId(newWorkTypeId)
+                                            .locationId(locationId)
+                                            .shopGroupId(shopGroupId)
+                                            .build()
+                            )
+                    )
+            );
+        }
+
+        // walk all the works using the cursor
+        List<String> foundIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            String finalCursor = cursor;
+            var page = assertDoesNotThrow(
+                    () -> workService.searchAllWork(
+                            WorkQueryParameterDTO.builder()
+                                    .cursor(finalCursor)
+                                    .limit(2)
+                                    .domainIds(List.of(domainId))
+                                    .shopGroupIds(List.of(shopGroupId))
+                                    .workTypeIds(List.of(newWorkTypeId))
+                                    .build()
+                    )
+            );
+            assertThat(page.size()).isLessThanOrEqualTo(2);
+            page.forEach(w -> foundIds.add(w.id()));
+            cursor = page.isEmpty() ? null : workService.getCursor(page).orElse(null);
+        } while (cursor != null);
+        assertThat(foundIds).containsExactlyElementsOf(workIds);
+
+        // the context before the cursor includes the work at the cursor position
+        var lastWork = assertDoesNotThrow(() -> workService.findWorkById(domainId, workIds.get(2), WorkDetailsOptionDTO.builder().build()));
+        var context = assertDoesNotThrow(
+                () -> workService.searchAllWork(
+                        WorkQueryParameterDTO.builder()
+                                .cursor(workService.getCursor(List.of(lastWork)).orElseThrow())
+                                .contextSize(2)
+                                .limit(1)
+                                .build()
+                )
+        );
+        assertThat(context).extracting(WorkDTO::id).containsExactly(workIds.get(1), workIds.get(2), workIds.get(3));
+
+        // filter that doesn't match anything
+        var notFound = assertDoesNotThrow(
+                () -> workService.searchAllWork(
+                        WorkQueryParameterDTO.builder()
+                                .limit(10)
+                                .locationIds(List.of("not-a-location"))
+                                .build()
+                )
+        );
+        assertThat(notFound).isEmpty();
+
+        // invalid cursor is rejected
+        assertThrows(
+                ControllerLogicException.class,
+                () -> workService.searchAllWork(
+                        WorkQueryParameterDTO.builder()
+                                .cursor("not a cursor")
+                                .limit(10)
+                                .build()
+                )
+        );
+    }
+
+    @Test
+    public void exportAllWorkInBatches() {
+        String newWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workflowId(parentWorkflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+        assertThat(newWorkTypeId).isNotNull();
+        List<String> workIds = new ArrayList<>();
+        for (int idx = 0; idx < 5; idx++) {
+            int finalIdx = idx;
+            workIds.add(
+                    assertDoesNotThrow(
+                            () -> workService.createNew(
+                                    domainId,
+                                    NewWorkDTO
+                                            .builder()
+                                            .title("Work %d".formatted(finalIdx))
+                                            .description("Work %d description".formatted(finalIdx))
+                                            .workTypeId(newWorkTypeId)
+                                            .locationId(locationId)
+                                            .shopGroupId(shopGroupId)
+                                            .build()
+                            )
+                    )
+            );
+        }
+
+        List<List<WorkDTO>> batches = new ArrayList<>();
+        assertDoesNotThrow(
+                () -> workService.exportAllWork(
+                        WorkQueryParameterDTO.builder()
+                                .domainIds(List.of(domainId))
+                                .fields(Set.of("title"))
+                                .build(),
+                        2,
+                        batches::add
+                )
+        );
+        assertThat(batches).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(batches.stream().flatMap(List::stream).map(WorkDTO::id).toList()).containsExactlyElementsOf(workIds);
+        assertThat(batches.getFirst().getFirst().title()).isEqualTo("Work 0");
+        assertThat(batches.getFirst().getFirst().description()).isNull();
+    }
+
+    @Test
+    public void findWorkForPermissionCheckLoadSlimView() {
+        String newWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workflowId(parentWorkflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+        assertThat(newWorkTypeId).isNotNull();
+        var newWorkId = assertDoesNotThrow(
+                () -> workService.createNew(
+                        domainId,
+                        NewWorkDTO
+                                .builder()
+                                .title("Work 1")
+                                .description("Work 1 description")
+                                .workTypeId(newWorkTypeId)
+                                .locationId(locationId)
+                                .shopGroupId(shopGroupId)
+                                .build()
+                )
+        );
+        assertThat(newWorkId).isNotNull();
+
+        WorkDTO slimWork;
+        try (LookupContext context = LookupContext.open()) {
+            slimWork = assertDoesNotThrow(
+                    () -> workService.findWorkForPermissionCheck(domainId, newWorkId)
+            );
+            // no work type, LOV or other entity has been loaded by the conversion
+            assertThat(context.getMisses()).isEmpty();
+        }
+        assertThat(slimWork.id()).isEqualTo(newWorkId);
+        assertThat(slimWork.domain().id()).isEqualTo(domainId);
+        assertThat(slimWork.shopGroup().id()).isEqualTo(shopGroupId);
+        assertThat(slimWork.location().id()).isEqualTo(locationId);
+        assertThat(slimWork.workType().validatorName()).isEqualTo("validation/DummyParentValidation.groovy");
+        assertThat(slimWork.currentStatus()).isNotNull();
+        // the not needed information are not loaded
+        assertThat(slimWork.description()).isNull();
+        assertThat(slimWork.workType().workflow()).isNull();
+        assertThat(slimWork.statusHistory()).isNull();
+
+        assertThrows(
+                WorkNotFound.class,
+                () -> workService.findWorkForPermissionCheck(domainId, "bad-id")
+        );
+        // the work is searched only in its domain
+        assertThrows(
+                WorkNotFound.class,
+                () -> workService.findWorkForPermissionCheck("other-domain", newWorkId)
+        );
+    }
+
     @Test
     public void updateWorkOK() {
         String newWorkTypeId = assertDoesNotThrow(
@@ -322,6 +612,135 @@ public class WorkServiceTest {
         );
     }
 
+    @Test
+    public void updateWorkDescriptionKeepAuthorization() {
+        String newWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workflowId(parentWorkflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+        assertThat(newWorkTypeId).isNotNull();
+        var newWorkId = assertDoesNotThrow(
+                () -> workService.createNew(
+                        domainId,
+                        NewWorkDTO
+                                .builder()
+                                .title("Work 1")
+                                .description("Work 1 description")
+                                .workTypeId(newWorkTypeId)
+                                .locationId(locationId)
+                                .shopGroupId(shopGroupId)
+                                .build()
+                )
+        );
+        assertThat(newWorkId).isNotNull();
+        var authorizationIds = authService.findByResourceIs(WORK_AUTHORIZATION_TEMPLATE.formatted(newWorkId))
+                .stream().map(AuthorizationDTO::id).toList();
+        assertThat(authorizationIds).isNotEmpty();
+
+        assertDoesNotThrow(
+                () -> workService.update(
+                        domainId,
+                        newWorkId,
+                        UpdateWorkDTO
+                                .builder()
+                                .description("Update work 1 description")
+                                .build()
+                )
+        );
+
+        // the authorization documents are the same
+        assertThat(
+                authService.findByResourceIs(WORK_AUTHORIZATION_TEMPLATE.formatted(newWorkId))
+                        .stream().map(AuthorizationDTO::id).toList()
+        ).containsExactlyInAnyOrderElementsOf(authorizationIds);
+    }
+
+    @Test
+    public void updateWorkAuthorizationGrantTheCurrentLocationManager() {
+        String newWorkTypeId = assertDoesNotThrow(
+                () -> domainService.createNew(
+                        domainId,
+                        NewWorkTypeDTO
+                                .builder()
+                                .title("Update the documentation")
+                                .description("Update the documentation description")
+                                .workflowId(parentWorkflow.id())
+                                .validatorName("validation/DummyParentValidation.groovy")
+                                .build()
+                )
+        );
+        assertThat(newWorkTypeId).isNotNull();
+        var newWorkId = assertDoesNotThrow(
+                () -> workService.createNew(
+                        domainId,
+                        NewWorkDTO
+                                .builder()
+                                .title("Work 1")
+                                .description("Work 1 description")
+                                .workTypeId(newWorkTypeId)
+                                .locationId(locationId)
+                                .shopGroupId(shopGroupId)
+                                .build()
+                )
+        );
+        assertThat(newWorkId).isNotNull();
+        String otherShopGroupId = assertDoesNotThrow(
+                () -> shopGroupService.createNew(
+                        domainId,
+                        NewShopGroupDTO.builder()
+                                .name("shop3")
+                                .description("shop3 user[2]")
+                                .users(
+                                        of(
+                                                ShopGroupUserInputDTO.builder()
+                                                        .userId("user2@slac.stanford.edu")
+                                                        .build()
+                                        )
+                                )
+                                .build()
+                )
+        );
+        // the manager of the location changes, the location embedded in the work still has the old one
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(locationId)),
+                Update.update("locationManagerUserId", "user4@slac.stanford.edu"),
+                Location.class
+        );
+
+        assertDoesNotThrow(
+                () -> workService.update(
+                        domainId,
+                        newWorkId,
+                        UpdateWorkDTO
+                                .builder()
+                                .shopGroupId(otherShopGroupId)
+                                .build()
+                )
+        );
+
+        // the stale grants are deleted through the auth service and the current manager is admin
+        var owners = authService.findByResourceIs(WORK_AUTHORIZATION_TEMPLATE.formatted(newWorkId))
+                .stream().map(AuthorizationDTO::owner).toList();
+        assertThat(owners).contains("user4@slac.stanford.edu");
+        assertThat(owners).doesNotContain("user1@slac.stanford.edu");
+        assertThat(
+                authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu",
+                        AuthorizationTypeDTO.Admin,
+                        WORK_AUTHORIZATION_TEMPLATE.formatted(newWorkId),
+                        Optional.empty()
+                )
+        ).isEmpty();
+    }
+
     @Test
     public void updateWorkFailOnInvalidLocationForDomainId() {
         String newWorkTypeId = assertDoesNotThrow(
@@ -2,8 +2,10 @@ package edu.stanford.slac.core_work_management.service;
 
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.core_work_management.api.v1.dto.*;
+import edu.stanford.slac.core_work_management.exception.WorkNotFound;
 import edu.stanford.slac.core_work_management.exception.WorkflowNotManuallyUpdatable;
 import edu.stanford.slac.core_work_management.model.*;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,11 +21,13 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
 import static com.google.common.collect.ImmutableSet.of;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.doThrow;
@@ -40,6 +44,8 @@ public class WorkServiceWorkflowArchitectureTestTest {
     HelperService helperService;
     @SpyBean
     DomainService domainService;
+    @SpyBean
+    DomainStatisticRefreshQueue domainStatisticRefreshQueue;
     @Autowired
     WorkService workService;
     @Autowired
@@ -62,6 +68,7 @@ public class WorkServiceWorkflowArchitectureTestTest {
     @BeforeEach
     public void cleanCollection() {
         reset(domainService);
+        reset(domainStatisticRefreshQueue);
         mongoTemplate.remove(new Query(), Domain.class);
         mongoTemplate.remove(new Query(), Location.class);
         mongoTemplate.remove(new Query(), WorkType.class);
@@ -268,6 +275,133 @@ public class WorkServiceWorkflowArchitectureTestTest {
                 ))).isTrue();
     }
 
+    @Test
+    public void childStoresTheAncestorPathAndParentIsUpdatedWithVersionCheck() {
+        String parentWorkId = assertDoesNotThrow(
+                () -> workService.createNew(
+                        domainId,
+                        NewWorkDTO.builder()
+                                .title("Test parent work")
+                                .description("Test parent work description")
+                                .workTypeId(newParentWorkTypeId)
+                                .locationId(locationId)
+                                .shopGroupId(shopGroupId)
+                                .build()
+                )
+        );
+        Work parentBeforeChild = mongoTemplate.findById(parentWorkId, Work.class);
+        assertThat(parentBeforeChild).isNotNull();
+
+        String childWorkId = assertDoesNotThrow(
+                () -> workService.createNew(
+                        domainId,
+                        NewWorkDTO.builder()
+                                .title("Test child work")
+                                .description("Test child work description")
+                                .workTypeId(newChildWorkType)
+                                .locationId(locationId)
+                                .shopGroupId(shopGroupId)
+                                .parentWorkId(parentWorkId)
+                                .build()
+                )
+        );
+
+        // the child has the path up to the root
+        Work childWork = mongoTemplate.findById(childWorkId, Work.class);
+        assertThat(childWork).isNotNull();
+        assertThat(childWork.getAncestorIds()).containsExactly(parentWorkId);
+
+        // the parent has been moved by the propagation with a new version
+        Work parentAfterChild = mongoTemplate.findById(parentWorkId, Work.class);
+        assertThat(parentAfterChild).isNotNull();
+        assertThat(parentAfterChild.getCurrentStatus().getStatus()).isEqualTo(WorkflowState.InProgress);
+        assertThat(parentAfterChild.getVersion()).isGreaterThan(parentBeforeChild.getVersion());
+    }
+
+    @Test
+    public void findSubtreeAndStatusCountWithTheAncestorPath() {
+        String parentWorkId = assertDoesNotThrow(
+                () -> workService.createNew(
+                        domainId,
+                        NewWorkDTO.builder()
+                                .title("Test parent work")
+                                .description("Test parent work description")
+                                .workTypeId(newParentWorkTypeId)
+                                .locationId(locationId)
+                                .shopGroupId(shopGroupId)
+                                .build()
+                )
+        );
+        List<String> childIds = new ArrayList<>();
+        for (int idx = 0; idx < 2; idx++) {
+            int childIdx = idx;
+            childIds.add(
+                    assertDoesNotThrow(
+                            () -> workService.createNew(
+                                    domainId,
+                                    NewWorkDTO.builder()
+                                            .title("Test child work %d".formatted(childIdx))
+                                            .description("Test child work description")
+                                            .workTypeId(newChildWorkType)
+                                            .locationId(locationId)
+                                            .shopGroupId(shopGroupId)
+                                            .parentWorkId(parentWorkId)
+                                            .build()
+                            )
+                    )
+            );
+        }
+        // close one of the children
+        assertDoesNotThrow(() -> workService.update(
+                domainId,
+                childIds.getFirst(),
+                UpdateWorkDTO.builder()
+                        .workflowStateUpdate(UpdateWorkflowStateDTO.builder().newState(WorkflowStateDTO.Closed).build())
+                        .build()
+        ));
+
+        var subtree = assertDoesNotThrow(
+                () -> workService.findWorkSubtreeById(domainId, parentWorkId, null, 10, WorkDetailsOptionDTO.builder().build())
+        );
+        assertThat(subtree).extracting(WorkDTO::id).containsExactlyElementsOf(childIds);
+
+        // the subtree is read by page with the cursor of the last work
+        var firstPage = assertDoesNotThrow(
+                () -> workService.findWorkSubtreeById(domainId, parentWorkId, null, 1, WorkDetailsOptionDTO.builder().build())
+        );
+        assertThat(firstPage).extracting(WorkDTO::id).containsExactly(childIds.getFirst());
+        String cursor = workService.getCursor(firstPage).orElseThrow();
+        var secondPage = assertDoesNotThrow(
+                () -> workService.findWorkSubtreeById(domainId, parentWorkId, cursor, 1, WorkDetailsOptionDTO.builder().build())
+        );
+        assertThat(secondPage).extracting(WorkDTO::id).containsExactly(childIds.get(1));
+
+        // a not existing work has no subtree
+        assertThrows(
+                WorkNotFound.class,
+                () -> workService.findWorkSubtreeById(domainId, "bad-id", null, 10, WorkDetailsOptionDTO.builder().build())
+        );
+        assertThrows(
+                WorkNotFound.class,
+                () -> workService.getWorkSubtreeStatusStatistics(domainId, "bad-id")
+        );
+
+        var statistics = assertDoesNotThrow(
+                () -> workService.getWorkSubtreeStatusStatistics(domainId, parentWorkId)
+        );
+        assertThat(statistics)
+                .extracting(WorkStatusCountStatisticsDTO::status, WorkStatusCountStatisticsDTO::count)
+                .containsExactlyInAnyOrder(
+                        tuple(WorkflowStateDTO.Closed, 1),
+                        tuple(WorkflowStateDTO.Created, 1)
+                );
+
+        // a leaf has an empty subtree
+        assertThat(
+                assertDoesNotThrow(() -> workService.getWorkSubtreeStatusStatistics(domainId, childIds.getFirst()))
+        ).isEmpty();
+    }
+
     @Test
     public void testWorkflowOnFailedTransaction() {
         // create new work
@@ -283,9 +417,9 @@ public class WorkServiceWorkflowArchitectureTestTest {
 
         assertThat(helperService.checkStatusOnWork(domainId, workId, WorkflowStateDTO.Created)).isTrue();
 
-        // Temporarily mock the domainService to fails after the
+        // Temporarily mock the statistic refresh to fails after the
         // parent workflow has been updated and saved
-        doThrow(ControllerLogicException.builder().build()).when(domainService).updateDomainStatistics(domainId);
+        doThrow(ControllerLogicException.builder().build()).when(domainStatisticRefreshQueue).markDirty(domainId);
 
         // add child work, send parent to in progress state
         NewWorkDTO newChildWorkDTO = NewWorkDTO.builder()
@@ -0,0 +1,139 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.core_work_management.model.EmbeddableWorkType;
+import edu.stanford.slac.core_work_management.model.Work;
+import edu.stanford.slac.core_work_management.model.WorkStatusCountStatistics;
+import edu.stanford.slac.core_work_management.model.WorkStatusCounter;
+import edu.stanford.slac.core_work_management.model.WorkStatusLog;
+import edu.stanford.slac.core_work_management.repository.WorkRepository;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class WorkStatusCounterServiceTest {
+    @Autowired
+    private WorkStatusCounterService workStatusCounterService;
+    @Autowired
+    private WorkChangeTracker workChangeTracker;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @SpyBean
+    private WorkRepository workRepository;
+
+    @BeforeEach
+    public void cleanCollection() {
+        reset(workRepository);
+        mongoTemplate.remove(new Query(), Work.class);
+        mongoTemplate.remove(new Query(), WorkStatusCounter.class);
+    }
+
+    @Test
+    public void countersFollowCreationAndStatusChanges() {
+        insertWork("domain", "wt1");
+        Work second = insertWork("domain", "wt1");
+        insertWork("other-domain", "wt1");
+
+        // the status change is counted when the work is saved
+        var trackedWork = workChangeTracker.track(second);
+        second.getStatusHistory().addFirst(second.getCurrentStatus());
+        second.setCurrentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build());
+        assertDoesNotThrow(() -> workChangeTracker.save(trackedWork));
+
+        Map<String, List<WorkStatusCountStatistics>> statistics = workStatusCounterService.getStatisticsByDomainId("domain");
+        assertThat(statistics).containsOnlyKeys("wt1");
+        assertThat(statistics.get("wt1")).containsExactlyInAnyOrder(
+                WorkStatusCountStatistics.builder().status(WorkflowState.Created).count(1).build(),
+                WorkStatusCountStatistics.builder().status(WorkflowState.InProgress).count(1).build()
+        );
+    }
+
+    @Test
+    public void reconcileRebuildTheCountersFromTheWorks() {
+        insertWork("domain", "wt1");
+        insertWork("domain", "wt2");
+        // a counter that drifted from the works
+        workStatusCounterService.statusChanged(
+                List.of(new WorkStatusCounterService.StatusChange("domain", "wt2", null, WorkflowState.Closed))
+        );
+
+        assertThat(assertDoesNotThrow(() -> workStatusCounterService.reconcile("domain"))).isTrue();
+        Map<String, List<WorkStatusCountStatistics>> statistics = workStatusCounterService.getStatisticsByDomainId("domain");
+        assertThat(statistics).containsOnlyKeys("wt1", "wt2");
+        assertThat(statistics.get("wt1")).containsExactly(WorkStatusCountStatistics.builder().status(WorkflowState.Created).count(1).build());
+        assertThat(statistics.get("wt2")).containsExactly(WorkStatusCountStatistics.builder().status(WorkflowState.Created).count(1).build());
+    }
+
+    @Test
+    public void reconcileKeepTheIncrementsDoneDuringTheRebuild() {
+        insertWork("domain", "wt1");
+        Work changed = insertWork("domain", "wt1");
+        // once the works are aggregated another node creates a work and changes the status of an existing one
+        doAnswer(
+                invocation -> {
+                    Object aggregated = invocation.callRealMethod();
+                    CompletableFuture.runAsync(
+                            () -> {
+                                transactionTemplate.executeWithoutResult(status -> insertWork("domain", "wt1"));
+                                var trackedWork = workChangeTracker.track(changed);
+                                changed.getStatusHistory().addFirst(changed.getCurrentStatus());
+                                changed.setCurrentStatus(WorkStatusLog.builder().status(WorkflowState.InProgress).build());
+                                workChangeTracker.save(trackedWork);
+                            }
+                    ).join();
+                    return aggregated;
+                }
+        ).when(workRepository).getWorkStatusCountByDomainId(anyString());
+
+        assertThat(assertDoesNotThrow(() -> workStatusCounterService.reconcile("domain"))).isTrue();
+        // the concurrent changes are counted once
+        Map<String, List<WorkStatusCountStatistics>> statistics = workStatusCounterService.getStatisticsByDomainId("domain");
+        assertThat(statistics).containsOnlyKeys("wt1");
+        assertThat(statistics.get("wt1")).containsExactlyInAnyOrder(
+                WorkStatusCountStatistics.builder().status(WorkflowState.Created).count(2).build(),
+                WorkStatusCountStatistics.builder().status(WorkflowState.InProgress).count(1).build()
+        );
+    }
+
+    /**
+     * Insert a work and count it as the work service does
+     */
+    private Work insertWork(String domainId, String workTypeId) {
+        Work work = mongoTemplate.insert(
+                Work.builder()
+                        .domainId(domainId)
+                        .title("title")
+                        .workType(EmbeddableWorkType.builder().id(workTypeId).build())
+                        .build()
+        );
+        workStatusCounterService.workCreated(work);
+        return work;
+    }
+}
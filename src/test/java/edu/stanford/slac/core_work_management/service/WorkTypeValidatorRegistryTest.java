@@ -0,0 +1,117 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidation;
+import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidatorRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class WorkTypeValidatorRegistryTest {
+    @Autowired
+    private WorkTypeValidatorRegistry workTypeValidatorRegistry;
+    private final String reloadableScript = """
+            package validation
+            
+            import edu.stanford.slac.core_work_management.service.validation.WorkTypeValidation
+            import edu.stanford.slac.core_work_management.service.workflow.AdmitChildrenValidation
+            import edu.stanford.slac.core_work_management.service.workflow.NewWorkValidation
+            import edu.stanford.slac.core_work_management.service.workflow.UpdateWorkValidation
+            import edu.stanford.slac.core_work_management.service.workflow.WorkflowWorkUpdate
+            
+            class ReloadableValidation extends WorkTypeValidation {
+                @Override
+                void updateWorkflow(WorkflowWorkUpdate workflowWorkUpdate) {}
+                @Override
+                void checkValid(NewWorkValidation newWorkValidation) {}
+                @Override
+                void checkValid(UpdateWorkValidation updateWorkValidation) {}
+                @Override
+                void admitChildren(AdmitChildrenValidation canHaveChildValidation) {}
+                // %s
+            }
+            """;
+
+    @AfterEach
+    public void unregisterReloadedValidator() {
+        workTypeValidatorRegistry.unregister("validation/ReloadableValidation.groovy");
+    }
+
+    @Test
+    public void allValidatorsAreLoadedAtBoot() {
+        assertThat(workTypeValidatorRegistry.getValidatorNames())
+                .contains(
+                        "validation/TECHardwareRequestValidation.groovy",
+                        "validation/TECHardwareReportValidation.groovy",
+                        "validation/DummyParentValidation.groovy",
+                        "validation/DummyChildValidation.groovy"
+                );
+    }
+
+    @Test
+    public void validatorInstanceIsReused() {
+        WorkTypeValidation first = assertDoesNotThrow(
+                () -> workTypeValidatorRegistry.getValidator("validation/DummyParentValidation.groovy")
+        );
+        WorkTypeValidation second = assertDoesNotThrow(
+                () -> workTypeValidatorRegistry.getValidator("validation/DummyParentValidation.groovy")
+        );
+        assertThat(first).isNotNull().isSameAs(second);
+    }
+
+    @Test
+    public void unknownValidatorFails() {
+        assertThrows(
+                ControllerLogicException.class,
+                () -> workTypeValidatorRegistry.getValidator("validation/NotExistingValidation.groovy")
+        );
+    }
+
+    @Test
+    public void reloadCreateNewVersionAndKeepTheLastValidOne(@TempDir Path scriptsPath) throws Exception {
+        Path scriptFile = scriptsPath.resolve("ReloadableValidation.groovy");
+        String validatorName = "validation/ReloadableValidation.groovy";
+        Files.writeString(scriptFile, reloadableScript.formatted("v1"));
+        assertThat(workTypeValidatorRegistry.reload(scriptFile)).isTrue();
+        long firstVersion = workTypeValidatorRegistry.getVersion(validatorName);
+        WorkTypeValidation firstInstance = workTypeValidatorRegistry.getValidator(validatorName);
+        assertThat(firstVersion).isPositive();
+
+        // same content is not reloaded
+        assertThat(workTypeValidatorRegistry.reload(scriptFile)).isFalse();
+        assertThat(workTypeValidatorRegistry.getVersion(validatorName)).isEqualTo(firstVersion);
+
+        // a broken script keep the current version
+        Files.writeString(scriptFile, "class Broken extends {");
+        assertThat(workTypeValidatorRegistry.reload(scriptFile)).isFalse();
+        assertThat(workTypeValidatorRegistry.getValidator(validatorName)).isSameAs(firstInstance);
+
+        // a changed script is swapped in with a new class
+        Files.writeString(scriptFile, reloadableScript.formatted("v2"));
+        assertThat(workTypeValidatorRegistry.reload(scriptFile)).isTrue();
+        assertThat(workTypeValidatorRegistry.getVersion(validatorName)).isGreaterThan(firstVersion);
+        WorkTypeValidation secondInstance = workTypeValidatorRegistry.getValidator(validatorName);
+        assertThat(secondInstance).isNotSameAs(firstInstance);
+        assertThat(secondInstance.getClass()).isNotSameAs(firstInstance.getClass());
+        assertThat(secondInstance.getClass().getClassLoader()).isNotSameAs(firstInstance.getClass().getClassLoader());
+    }
+}
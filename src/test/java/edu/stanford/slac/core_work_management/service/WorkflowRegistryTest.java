@@ -0,0 +1,70 @@
+package edu.stanford.slac.core_work_management.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkflowDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkflowStateDTO;
+import edu.stanford.slac.core_work_management.service.workflow.BaseWorkflow;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowRegistry;
+import edu.stanford.slac.core_work_management.service.workflow.WorkflowState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class WorkflowRegistryTest {
+    @Autowired
+    private WorkflowRegistry workflowRegistry;
+
+    @Test
+    public void workflowDTOIsCachedAndImmutable() {
+        WorkflowDTO first = workflowRegistry.getWorkflowDTO("ReportWorkflow");
+        WorkflowDTO second = workflowRegistry.getWorkflowDTO("ReportWorkflow");
+        assertThat(first).isNotNull().isSameAs(second);
+        assertThat(first.implementation()).isEqualTo("ReportWorkflow");
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> first.validTransitions().put(WorkflowStateDTO.Closed, Set.of())
+        );
+    }
+
+    @Test
+    public void compiledMatrixMatchTheValidTransitions() {
+        for (String implementation : Set.of("RequestWorkflow", "ReportWorkflow", "RecordWorkflow")) {
+            BaseWorkflow workflow = workflowRegistry.getWorkflow(implementation);
+            for (WorkflowState from : WorkflowState.values()) {
+                Set<WorkflowState> reachable = workflow.getValidTransitions().getOrDefault(from, Set.of());
+                for (WorkflowState to : WorkflowState.values()) {
+                    assertThat(workflow.isTransitionValid(from, to))
+                            .as("%s %s -> %s", implementation, from, to)
+                            .isEqualTo(reachable.contains(to));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unknownWorkflowFails() {
+        assertThrows(
+                ControllerLogicException.class,
+                () -> workflowRegistry.getWorkflow("NotExistingWorkflow")
+        );
+        assertThrows(
+                ControllerLogicException.class,
+                () -> workflowRegistry.getWorkflowDTO("NotExistingWorkflow")
+        );
+    }
+}
@@ -0,0 +1,153 @@
+package edu.stanford.slac.core_work_management.service.authorization;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.core_work_management.config.CWMAppProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class AuthorizationSnapshotServiceTest {
+    private static final int LOAD_QUERIES = AuthorizationTypeDTO.values().length;
+    @SpyBean
+    private AuthService authService;
+    @SpyBean
+    private Clock clock;
+    @Autowired
+    private CWMAppProperties cwmAppProperties;
+    @Autowired
+    private AuthorizationSnapshotService authorizationSnapshotService;
+    private Duration ttl;
+    private Integer maxSize;
+
+    @BeforeEach
+    public void enableSnapshots() {
+        ttl = cwmAppProperties.getAuthorizationSnapshotTtl();
+        maxSize = cwmAppProperties.getAuthorizationSnapshotMaxSize();
+        cwmAppProperties.setAuthorizationSnapshotTtl(Duration.ofSeconds(30));
+        reset(authService, clock);
+        doReturn(Instant.parse("2024-01-01T00:00:00Z")).when(clock).instant();
+        doReturn(true).when(authService).checkAuthentication(any());
+        doReturn(false).when(authService).checkForRoot(any(Authentication.class));
+        authorizationSnapshotService.invalidateAll();
+    }
+
+    @AfterEach
+    public void restoreSnapshots() {
+        cwmAppProperties.setAuthorizationSnapshotTtl(ttl);
+        cwmAppProperties.setAuthorizationSnapshotMaxSize(maxSize);
+        authorizationSnapshotService.invalidateAll();
+        reset(authService, clock);
+    }
+
+    @Test
+    public void trieMatchResourcesByPrefix() {
+        var trie = new AuthorizationSnapshotService.ResourcePrefixTrie();
+        trie.add("/cwm/work/w1");
+        trie.add("/cwm/work/w12");
+        trie.add("/cwm/shop-group/s1");
+
+        assertThat(trie.containsPrefix("/cwm/work/w1")).isTrue();
+        assertThat(trie.containsPrefix("/cwm/work/")).isTrue();
+        assertThat(trie.containsPrefix("/cwm/work/w2")).isFalse();
+        assertThat(trie.containsPrefix("/cwm/work/w123")).isFalse();
+        assertThat(trie.findByPrefix("/cwm/work/w1")).containsExactlyInAnyOrder("/cwm/work/w1", "/cwm/work/w12");
+        assertThat(trie.findByPrefix("/cwm/location")).isEmpty();
+        assertThat(new AuthorizationSnapshotService.ResourcePrefixTrie().containsPrefix("")).isFalse();
+    }
+
+    @Test
+    public void snapshotIsLoadedOnceUntilItExpires() {
+        Authentication user = grant("user1@slac.stanford.edu", "/cwm/work/w1");
+
+        assertThat(authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user, AuthorizationTypeDTO.Write, "/cwm/work/w1")).isTrue();
+        assertThat(authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user, AuthorizationTypeDTO.Write, "/cwm/work/w2")).isFalse();
+        assertThat(authorizationSnapshotService.findResources(user, AuthorizationTypeDTO.Write, "/cwm/work/")).containsExactly("/cwm/work/w1");
+        // the checks are answered by a single snapshot
+        verifyLoads("user1@slac.stanford.edu", 1);
+
+        // after the time to live the snapshot is loaded again
+        doReturn(Instant.parse("2024-01-01T00:00:31Z")).when(clock).instant();
+        assertThat(authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user, AuthorizationTypeDTO.Write, "/cwm/work/w1")).isTrue();
+        verifyLoads("user1@slac.stanford.edu", 2);
+    }
+
+    @Test
+    public void changeOfGrantsInvalidateTheSnapshots() {
+        Authentication user = grant("user1@slac.stanford.edu", "/cwm/work/w1");
+        assertThat(authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user, AuthorizationTypeDTO.Write, "/cwm/work/w2")).isFalse();
+
+        grant("user1@slac.stanford.edu", "/cwm/work/w2");
+        authorizationSnapshotService.invalidateAll();
+        assertThat(authorizationSnapshotService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user, AuthorizationTypeDTO.Write, "/cwm/work/w2")).isTrue();
+        verifyLoads("user1@slac.stanford.edu", 2);
+    }
+
+    @Test
+    public void leastRecentlyUsedSnapshotIsEvicted() {
+        cwmAppProperties.setAuthorizationSnapshotMaxSize(2);
+        Authentication user1 = grant("user1@slac.stanford.edu", "/cwm/work/w1");
+        Authentication user2 = grant("user2@slac.stanford.edu", "/cwm/work/w2");
+        Authentication user3 = grant("user3@slac.stanford.edu", "/cwm/work/w3");
+
+        authorizationSnapshotService.isRoot(user1);
+        authorizationSnapshotService.isRoot(user2);
+        // user1 is used again so user2 is the least recently used
+        authorizationSnapshotService.isRoot(user1);
+        authorizationSnapshotService.isRoot(user3);
+        assertThat(authorizationSnapshotService.size()).isEqualTo(2);
+
+        authorizationSnapshotService.isRoot(user1);
+        verifyLoads("user1@slac.stanford.edu", 1);
+        authorizationSnapshotService.isRoot(user2);
+        verifyLoads("user2@slac.stanford.edu", 2);
+    }
+
+    /**
+     * Grant the write authorization on the resource to the user
+     */
+    private Authentication grant(String owner, String resource) {
+        doReturn(List.of(AuthorizationDTO.builder().resource(resource).build()))
+                .when(authService)
+                .getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(eq(owner), any(), anyString(), any());
+        return UsernamePasswordAuthenticationToken.authenticated(owner, owner, null);
+    }
+
+    /**
+     * Verify the number of the snapshots loaded for the owner
+     */
+    private void verifyLoads(String owner, int loads) {
+        verify(authService, times(loads * LOAD_QUERIES))
+                .getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(eq(owner), any(), anyString(), any());
+    }
+}
@@ -0,0 +1,133 @@
+package edu.stanford.slac.core_work_management.service.authorization;
+
+import com.hazelcast.core.HazelcastInstance;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationResourceDTO;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.core_work_management.api.v1.dto.DomainDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.ShopGroupDTO;
+import edu.stanford.slac.core_work_management.api.v1.dto.WorkDTO;
+import edu.stanford.slac.core_work_management.service.WorkService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The test profile disables the cache, here the work access lists are cached by the hazelcast cache manager
+ * as in production
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.cache.type=hazelcast")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class WorkAuthorizationCacheTest {
+    private static final String WORK_AUTHORIZATION_CACHE = "work-authorization";
+    private static final String OWNER = "user1@slac.stanford.edu";
+    @SpyBean
+    private AuthService authService;
+    @SpyBean
+    private AuthorizationSnapshotService authorizationSnapshotService;
+    @Autowired
+    private WorkService workService;
+    @Autowired
+    private AuthorizationVersionService authorizationVersionService;
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+    private Authentication user;
+
+    @BeforeEach
+    public void grantWork() {
+        reset(authService, authorizationSnapshotService);
+        hazelcastInstance.getMap(WORK_AUTHORIZATION_CACHE).clear();
+        hazelcastInstance.getMap(AuthorizationVersionService.AUTHORIZATION_VERSION_MAP).clear();
+        doReturn(true).when(authService).checkAuthentication(any());
+        doReturn(false).when(authService).checkForRoot(any(Authentication.class));
+        doReturn(List.of(AuthorizationDTO.builder().resource("/cwm/work/w1").build()))
+                .when(authService)
+                .getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(eq(OWNER), any(), anyString(), any());
+        user = UsernamePasswordAuthenticationToken.authenticated(OWNER, OWNER, null);
+    }
+
+    @AfterEach
+    public void resetAuthService() {
+        reset(authService, authorizationSnapshotService);
+    }
+
+    @Test
+    public void accessListIsCachedByWorkAndGrantVersion() {
+        List<AuthorizationResourceDTO> w1AccessList = workService.getAuthorizationByWork(work("w1"), user);
+        workService.getAuthorizationByWork(work("w1"), user);
+        // the second request is answered by the cache
+        verifyComputations(1);
+
+        // another work has its own entry
+        List<AuthorizationResourceDTO> w2AccessList = workService.getAuthorizationByWork(work("w2"), user);
+        verifyComputations(2);
+        assertThat(w2AccessList).isNotEqualTo(w1AccessList);
+        assertThat(hazelcastInstance.getMap(WORK_AUTHORIZATION_CACHE).size()).isEqualTo(2);
+        workService.getAuthorizationByWork(work("w2"), user);
+        verifyComputations(2);
+    }
+
+    @Test
+    public void grantChangesInvalidateTheCachedAccessLists() {
+        workService.getAuthorizationByWork(work("w1"), user);
+        workService.getAuthorizationByWork(work("w2"), user);
+        verifyComputations(2);
+
+        // the change of the grants of a work invalidates only the entry of that work
+        authorizationVersionService.workAuthorizationChanged("w1");
+        workService.getAuthorizationByWork(work("w1"), user);
+        verifyComputations(3);
+        workService.getAuthorizationByWork(work("w2"), user);
+        verifyComputations(3);
+
+        // the change of the grants of a shop group invalidates the entries of all the works
+        authorizationVersionService.shopGroupAuthorizationChanged("sg1");
+        workService.getAuthorizationByWork(work("w1"), user);
+        workService.getAuthorizationByWork(work("w2"), user);
+        verifyComputations(5);
+    }
+
+    /**
+     * Create the work of the shop group sg1
+     */
+    private WorkDTO work(String workId) {
+        return WorkDTO.builder()
+                .id(workId)
+                .domain(DomainDTO.builder().id("domain").build())
+                .shopGroup(ShopGroupDTO.builder().id("sg1").build())
+                .build();
+    }
+
+    /**
+     * Verify the number of the access lists computed, each computation checks once if the user is root
+     */
+    private void verifyComputations(int loads) {
+        verify(authorizationSnapshotService, times(loads)).isRoot(user);
+    }
+}
@@ -36,7 +36,7 @@ class DummyParentValidation extends WorkTypeValidation{
             return;
         }
 
-        List<Work> children = workRepository.findByDomainIdAndParentWorkId(work.getDomainId(), work.getId());
+        List<Work> children = findChildren(workflowWorkUpdate, workRepository);
 
         // check if all the children are closed
         boolean allChildrenClosed = children.stream().allMatch(w -> w.getCurrentStatus().getStatus() == Closed);